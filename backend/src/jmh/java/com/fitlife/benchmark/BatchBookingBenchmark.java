@@ -0,0 +1,109 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.dto.CourseBatchBookingDTO;
+import com.fitlife.dto.CourseBookingDTO;
+import com.fitlife.dto.CourseBookingResultDTO;
+import com.fitlife.entity.CourseBooking;
+import com.fitlife.service.CourseBookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量预约与逐条预约的耗时对比
+ * 每次调用预约batchSize项（新会员随机预约课程时间安排），batchBook-一次批量预约，sequentialBook-逐条调用bookCourse
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBookingBenchmark {
+
+    /**
+     * 每次预约的项数
+     */
+    @Param({"10", "50", "200"})
+    private int batchSize;
+
+    /**
+     * 课程时间安排数量
+     */
+    @Param({"20"})
+    private int scheduleCount;
+
+    private ConfigurableApplicationContext context;
+
+    private CourseBookingService courseBookingService;
+
+    private List<Long> scheduleIds;
+
+    private final AtomicLong nextMemberId = new AtomicLong(BenchmarkContext.MEMBER_ID_BASE);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bench-batch-booking-" + batchSize + "-" + System.nanoTime());
+        courseBookingService = context.getBean(CourseBookingService.class);
+        scheduleIds = BenchmarkContext.seedSchedules(context.getBean(JdbcTemplate.class), scheduleCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CourseBookingResultDTO> batchBook() {
+        CourseBatchBookingDTO batchBookingDTO = new CourseBatchBookingDTO();
+        batchBookingDTO.setItems(newItems());
+        List<CourseBookingResultDTO> results = courseBookingService.batchBookCourses(batchBookingDTO);
+        for (CourseBookingResultDTO result : results) {
+            if (!Boolean.TRUE.equals(result.getSuccess())) {
+                throw new IllegalStateException("批量预约失败: " + result.getMessage());
+            }
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<CourseBooking> sequentialBook() {
+        List<CourseBooking> bookings = new ArrayList<>(batchSize);
+        for (CourseBookingDTO item : newItems()) {
+            bookings.add(courseBookingService.bookCourse(item));
+        }
+        return bookings;
+    }
+
+    /**
+     * 生成batchSize项预约，每项为新会员
+     */
+    private List<CourseBookingDTO> newItems() {
+        List<CourseBookingDTO> items = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            CourseBookingDTO bookingDTO = new CourseBookingDTO();
+            bookingDTO.setMemberId(nextMemberId.getAndIncrement());
+            bookingDTO.setCourseId(1L);
+            bookingDTO.setScheduleId(BenchmarkContext.randomSchedule(scheduleIds));
+            items.add(bookingDTO);
+        }
+        return items;
+    }
+}
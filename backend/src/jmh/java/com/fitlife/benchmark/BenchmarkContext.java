@@ -0,0 +1,226 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.FitLifeBackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基准测试使用的应用上下文
+ * 使用dev配置启动完整应用（H2内存库，MySQL模式，表结构来自sql/init-simple.sql），
+ * 关闭SQL日志避免日志输出影响结果，每次启动使用独立的内存库
+ */
+public final class BenchmarkContext {
+
+    /**
+     * 基准测试数据的会员ID起始值，避开测试数据
+     */
+    public static final long MEMBER_ID_BASE = 1_000_000L;
+
+    /**
+     * 基准测试课程时间安排的上课地点前缀，用于区分测试数据
+     */
+    private static final String SEED_LOCATION_PREFIX = "基准教室";
+
+    /**
+     * 基准测试课程名称、描述和标签使用的词表
+     */
+    private static final String[] COURSE_WORDS = {"瑜伽", "普拉提", "搏击", "动感单车", "有氧", "力量", "拉伸", "核心",
+            "燃脂", "塑形", "康复", "冥想", "舞蹈", "跑步", "游泳", "HIIT", "Zumba", "TRX", "壶铃", "杠铃"};
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * 启动应用，配置以命令行参数传入，优先于application-dev.yml
+     * @param name 内存库名称
+     * @param properties 额外的配置项（key=value），如开启批量写入管道，可覆盖默认值
+     * @return 应用上下文
+     */
+    public static ConfigurableApplicationContext start(String name, String... properties) {
+        Map<String, String> config = new LinkedHashMap<>();
+        for (String property : new String[]{
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "spring.datasource.hikari.maximum-pool-size=32",
+                "spring.h2.console.enabled=false",
+                "knife4j.enable=false",
+                "mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl",
+                "logging.level.root=WARN",
+                "logging.level.com.fitlife=WARN",
+                "logging.level.org.springframework.jdbc=WARN",
+                "logging.level.org.mybatis=WARN",
+                "logging.file.name="}) {
+            put(config, property);
+        }
+        for (String property : properties) {
+            put(config, property);
+        }
+        List<String> args = new ArrayList<>(config.size());
+        for (Map.Entry<String, String> entry : config.entrySet()) {
+            args.add("--" + entry.getKey() + "=" + entry.getValue());
+        }
+        return new SpringApplicationBuilder(FitLifeBackendApplication.class)
+                .profiles("dev")
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * 插入未来一周的课程时间安排，名额足够大，基准测试期间不会约满
+     * @param jdbcTemplate JdbcTemplate
+     * @param count 数量
+     * @return 课程时间安排ID列表
+     */
+    public static List<Long> seedSchedules(JdbcTemplate jdbcTemplate, int count) {
+        return seedSchedules(jdbcTemplate, count, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 4);
+    }
+
+    /**
+     * 插入未来一周的课程时间安排
+     * @param jdbcTemplate JdbcTemplate
+     * @param count 数量
+     * @param maxPeople 最大预约人数
+     * @param bookedPeople 已预约人数
+     * @return 课程时间安排ID列表
+     */
+    public static List<Long> seedSchedules(JdbcTemplate jdbcTemplate, int count, int maxPeople, int bookedPeople) {
+        return seedSchedules(jdbcTemplate, count, maxPeople, bookedPeople, 7);
+    }
+
+    /**
+     * 插入课程时间安排，从明天开始均匀分布在指定天数内，每天8点到20点
+     * @param jdbcTemplate JdbcTemplate
+     * @param count 数量
+     * @param maxPeople 最大预约人数
+     * @param bookedPeople 已预约人数
+     * @param days 分布天数
+     * @return 课程时间安排ID列表
+     */
+    public static List<Long> seedSchedules(JdbcTemplate jdbcTemplate, int count, int maxPeople, int bookedPeople, int days) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        List<Object[]> rows = new ArrayList<>(Math.min(count, 10000));
+        for (int i = 0; i < count; i++) {
+            LocalDateTime startTime = start.plusDays(i % days).plusMinutes((i / days) % 48 * 15L);
+            rows.add(new Object[]{(long) (i % 3 + 1), Timestamp.valueOf(startTime), Timestamp.valueOf(startTime.plusHours(1)),
+                    SEED_LOCATION_PREFIX + (i % 10), maxPeople, bookedPeople});
+            if (rows.size() == 10000) {
+                insertSchedules(jdbcTemplate, rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            insertSchedules(jdbcTemplate, rows);
+        }
+        return jdbcTemplate.queryForList("select id from course_schedule where location like ? order by id", Long.class,
+                SEED_LOCATION_PREFIX + "%");
+    }
+
+    /**
+     * 插入已有预约，会员ID从MEMBER_ID_BASE开始连续编号
+     * @param jdbcTemplate JdbcTemplate
+     * @param scheduleIds 课程时间安排ID列表
+     * @param count 数量
+     */
+    public static void seedBookings(JdbcTemplate jdbcTemplate, List<Long> scheduleIds, int count) {
+        List<Object[]> rows = new ArrayList<>(Math.min(count, 10000));
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{MEMBER_ID_BASE + i, 1L, scheduleIds.get(i % scheduleIds.size())});
+            if (rows.size() == 10000) {
+                insertBookings(jdbcTemplate, rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            insertBookings(jdbcTemplate, rows);
+        }
+    }
+
+    /**
+     * 插入不同会员对不同课程的预约，会员ID从MEMBER_ID_BASE开始，课程热度不均匀（编号越小越热门）
+     * @param jdbcTemplate JdbcTemplate
+     * @param courseIds 课程ID列表
+     * @param memberCount 会员数量
+     * @param count 数量
+     */
+    public static void seedMemberBookings(JdbcTemplate jdbcTemplate, List<Long> courseIds, int memberCount, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Object[]> rows = new ArrayList<>(Math.min(count, 10000));
+        for (int i = 0; i < count; i++) {
+            double skewed = random.nextDouble() * random.nextDouble();
+            rows.add(new Object[]{MEMBER_ID_BASE + random.nextInt(memberCount), courseIds.get((int) (skewed * courseIds.size())), 1L});
+            if (rows.size() == 10000) {
+                insertBookings(jdbcTemplate, rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            insertBookings(jdbcTemplate, rows);
+        }
+    }
+
+    /**
+     * 插入课程，名称、描述和标签由词表随机组合，分类为3-7，教练为1-50，价格为50-500元
+     * @param jdbcTemplate JdbcTemplate
+     * @param count 数量
+     */
+    public static void seedCourses(JdbcTemplate jdbcTemplate, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Object[]> rows = new ArrayList<>(Math.min(count, 10000));
+        for (int i = 0; i < count; i++) {
+            String name = randomWord() + randomWord() + "课" + i;
+            String description = "本课程结合" + randomWord() + "与" + randomWord() + "训练，适合希望提升" + randomWord() + "能力的会员";
+            String tags = randomWord() + "," + randomWord();
+            rows.add(new Object[]{name, description, tags, (long) random.nextInt(3, 8), (long) random.nextInt(1, 51),
+                    random.nextInt(2), random.nextInt(3), new BigDecimal(random.nextInt(10, 101) * 5), random.nextInt(3)});
+            if (rows.size() == 10000) {
+                insertCourses(jdbcTemplate, rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            insertCourses(jdbcTemplate, rows);
+        }
+    }
+
+    /**
+     * 随机选取一个课程时间安排
+     * @param scheduleIds 课程时间安排ID列表
+     * @return 课程时间安排ID
+     */
+    public static Long randomSchedule(List<Long> scheduleIds) {
+        return scheduleIds.get(ThreadLocalRandom.current().nextInt(scheduleIds.size()));
+    }
+
+    private static void put(Map<String, String> config, String property) {
+        int index = property.indexOf('=');
+        config.put(property.substring(0, index), property.substring(index + 1));
+    }
+
+    private static String randomWord() {
+        return COURSE_WORDS[ThreadLocalRandom.current().nextInt(COURSE_WORDS.length)];
+    }
+
+    private static void insertCourses(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("insert into course (name, description, tags, category_id, coach_id, type, difficulty, price, status) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private static void insertSchedules(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("insert into course_schedule (course_id, start_time, end_time, location, max_people, booked_people, status) " +
+                "values (?, ?, ?, ?, ?, ?, 0)", rows);
+    }
+
+    private static void insertBookings(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("insert into course_booking (member_id, course_id, schedule_id, status, pay_status) " +
+                "values (?, ?, ?, 1, 0)", rows);
+    }
+}
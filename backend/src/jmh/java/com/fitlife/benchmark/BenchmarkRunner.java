@@ -0,0 +1,44 @@
+package com.fitlife.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * 基准测试启动类
+ * 按配置的并发线程数逐轮运行，输出吞吐量和GC分配速率（gc.alloc.rate / gc.alloc.rate.norm），
+ * 每轮结果以JSON格式写入输出目录。
+ * benchmark.params可覆盖@Param取值，格式：name=v1,v2;name2=v1
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("benchmark.include", "com.fitlife.benchmark.*Benchmark");
+        String threads = System.getProperty("benchmark.threads", "1,4,16");
+        File output = new File(System.getProperty("benchmark.output", "target/jmh"));
+        output.mkdirs();
+        String params = System.getProperty("benchmark.params", "");
+
+        for (String thread : threads.split(",")) {
+            int threadCount = Integer.parseInt(thread.trim());
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                    .include(include)
+                    .threads(threadCount)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(output, "result-t" + threadCount + ".json").getPath());
+            for (String param : params.split(";")) {
+                int index = param.indexOf('=');
+                if (index > 0) {
+                    builder.param(param.substring(0, index).trim(), param.substring(index + 1).trim().split(","));
+                }
+            }
+            new Runner(builder.build()).run();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.dto.CourseBookingDTO;
+import com.fitlife.entity.Result;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发预约压测
+ * 模拟整点放课：启动应用（H2内存库），所有客户端同时通过 /api/course-booking/book 预约少量课程，
+ * 输出延迟分位数、每秒成功预约数、按错误消息统计的失败数，并检查是否超卖以及已预约人数与预约记录数是否一致，
+ * 检查失败时进程退出码为1。不经过HTTP的服务层并发检查见 SeatReservationStressCheck。
+ * 可同时启动管理线程反复修改这几节课的课程信息和状态，验证修改不会覆盖并发提交的预约人数。
+ * Java 8 没有虚拟线程，使用大线程池模拟并发客户端。
+ * <p>
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.fitlife.benchmark.BookingLoadDriver
+ * <p>
+ * 参数（通过 -Dbenchmark.jvmArgs 传入）：
+ * load.clients-客户端数，load.schedules-课程数，load.capacity-每节课名额，load.threads-并发线程数，
+ * load.admin-threads-压测期间修改课程信息和状态的管理线程数（默认0），
+ * load.properties-额外的应用配置（分号分隔），如 fitlife.booking.pipeline.enabled=true
+ */
+public class BookingLoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("load.clients", 5000);
+        int scheduleCount = Integer.getInteger("load.schedules", 3);
+        int capacity = Integer.getInteger("load.capacity", 50);
+        int threads = Integer.getInteger("load.threads", 1000);
+        int adminThreads = Integer.getInteger("load.admin-threads", 0);
+        String properties = System.getProperty("load.properties", "");
+        String[] extra = properties.isEmpty() ? new String[0] : properties.split(";");
+
+        ConfigurableApplicationContext context = BenchmarkContext.start("load-" + System.nanoTime(), extra);
+        int exitCode;
+        try {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            List<Long> scheduleIds = BenchmarkContext.seedSchedules(jdbcTemplate, scheduleCount, capacity, 0);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+
+            AdminEditor editor = new AdminEditor(baseUrl, jdbcTemplate, scheduleIds, adminThreads);
+            editor.start();
+            Report report;
+            try {
+                report = run(baseUrl + "/course-booking/book", scheduleIds, clients, threads);
+            } finally {
+                editor.stop();
+            }
+            report.print(clients, threads, extra);
+            System.out.printf("管理线程: %d  修改次数: %d  修改失败: %d%n", adminThreads, editor.edits.sum(), editor.failures.sum());
+            exitCode = checkOversell(jdbcTemplate, scheduleIds) ? 1 : 0;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    private static Report run(String url, List<Long> scheduleIds, int clients, int threads) throws InterruptedException {
+        RestTemplate restTemplate = createRestTemplate();
+        Report report = new Report(clients);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+
+        // 先让线程全部就绪，再同时放行，模拟整点放课
+        for (int i = 0; i < threads; i++) {
+            executor.execute(ready::countDown);
+        }
+        ready.await();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    CourseBookingDTO bookingDTO = new CourseBookingDTO();
+                    bookingDTO.setMemberId(BenchmarkContext.MEMBER_ID_BASE + client);
+                    bookingDTO.setCourseId(1L);
+                    bookingDTO.setScheduleId(scheduleIds.get(client % scheduleIds.size()));
+                    long begin = System.nanoTime();
+                    try {
+                        ResponseEntity<Result> response = restTemplate.postForEntity(url, bookingDTO, Result.class);
+                        Result<?> result = response.getBody();
+                        report.record(client, System.nanoTime() - begin,
+                                result != null && result.getCode() == 200 ? null : result == null ? "HTTP " + response.getStatusCodeValue() : result.getMessage());
+                    } catch (RuntimeException e) {
+                        report.record(client, System.nanoTime() - begin, e.getClass().getSimpleName());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        report.begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        report.end = System.nanoTime();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return report;
+    }
+
+    private static RestTemplate createRestTemplate() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(10000);
+        requestFactory.setReadTimeout(60000);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        // 业务异常返回400，同样按Result解析
+        restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+        });
+        return restTemplate;
+    }
+
+    /**
+     * 检查每节课的已预约人数和实际预约记录数是否超过最大人数，以及两者是否一致
+     * @return 是否超卖或人数与预约记录不一致（修改课程时覆盖了并发提交的预约人数）
+     */
+    private static boolean checkOversell(JdbcTemplate jdbcTemplate, List<Long> scheduleIds) {
+        boolean oversold = false;
+        System.out.println("课程名额检查:");
+        for (Long scheduleId : scheduleIds) {
+            Map<String, Object> row = jdbcTemplate.queryForMap(
+                    "select max_people, booked_people from course_schedule where id = ?", scheduleId);
+            int maxPeople = ((Number) row.get("max_people")).intValue();
+            int bookedPeople = ((Number) row.get("booked_people")).intValue();
+            Integer bookings = jdbcTemplate.queryForObject(
+                    "select count(*) from course_booking where schedule_id = ? and status in (0, 1) and deleted = 0",
+                    Integer.class, scheduleId);
+            boolean over = bookedPeople > maxPeople || bookings > maxPeople;
+            oversold |= over || bookedPeople != bookings;
+            System.out.printf("  scheduleId=%d max_people=%d booked_people=%d bookings=%d %s%n",
+                    scheduleId, maxPeople, bookedPeople, bookings,
+                    over ? "超卖" : bookedPeople != bookings ? "人数与预约记录不一致" : "正常");
+        }
+        return oversold;
+    }
+
+    /**
+     * 管理线程：压测期间反复以原值修改课程信息（PUT /course-schedule/{id}）和状态（PUT /course-schedule/{id}/status），
+     * 修改读取课程后写回，如果写回了读取时的预约人数，会覆盖其间提交的预约，压测结束后人数与预约记录不一致
+     */
+    private static final class AdminEditor {
+
+        private final String baseUrl;
+
+        private final List<Map<String, Object>> schedules;
+
+        private final int threads;
+
+        private final RestTemplate restTemplate = createRestTemplate();
+
+        private final LongAdder edits = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final List<Thread> workers = new ArrayList<>();
+
+        private volatile boolean running = true;
+
+        private AdminEditor(String baseUrl, JdbcTemplate jdbcTemplate, List<Long> scheduleIds, int threads) {
+            this.baseUrl = baseUrl;
+            this.threads = threads;
+            this.schedules = new ArrayList<>(scheduleIds.size());
+            for (Long scheduleId : scheduleIds) {
+                schedules.add(jdbcTemplate.queryForMap(
+                        "select id, course_id, start_time, end_time, location, max_people from course_schedule where id = ?", scheduleId));
+            }
+        }
+
+        private void start() {
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(this::edit, "load-admin-" + i);
+                worker.start();
+                workers.add(worker);
+            }
+        }
+
+        private void stop() throws InterruptedException {
+            running = false;
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+
+        private void edit() {
+            int round = 0;
+            while (running) {
+                Map<String, Object> schedule = schedules.get(round++ % schedules.size());
+                try {
+                    ResponseEntity<Result> response;
+                    if (round % 2 == 0) {
+                        Map<String, Object> body = new LinkedHashMap<>();
+                        body.put("courseId", schedule.get("course_id"));
+                        body.put("startTime", ((Timestamp) schedule.get("start_time")).toLocalDateTime().toString());
+                        body.put("endTime", ((Timestamp) schedule.get("end_time")).toLocalDateTime().toString());
+                        body.put("location", schedule.get("location"));
+                        body.put("maxPeople", schedule.get("max_people"));
+                        response = restTemplate.exchange(baseUrl + "/course-schedule/" + schedule.get("id"),
+                                HttpMethod.PUT, new HttpEntity<>(body), Result.class);
+                    } else {
+                        response = restTemplate.exchange(baseUrl + "/course-schedule/" + schedule.get("id") + "/status?status=0",
+                                HttpMethod.PUT, null, Result.class);
+                    }
+                    Result<?> result = response.getBody();
+                    if (result != null && result.getCode() == 200) {
+                        edits.increment();
+                    } else {
+                        failures.increment();
+                    }
+                } catch (RuntimeException e) {
+                    failures.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 压测结果
+     */
+    private static final class Report {
+
+        private final long[] latencies;
+
+        private final LongAdder success = new LongAdder();
+
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        private long begin;
+
+        private long end;
+
+        private Report(int clients) {
+            this.latencies = new long[clients];
+        }
+
+        private void record(int client, long latency, String error) {
+            latencies[client] = latency;
+            if (error == null) {
+                success.increment();
+            } else {
+                errors.computeIfAbsent(error, k -> new LongAdder()).increment();
+            }
+        }
+
+        private void print(int clients, int threads, String[] extra) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            double seconds = (end - begin) / 1e9;
+            System.out.println("==================== 并发预约压测 ====================");
+            System.out.printf("客户端: %d  线程: %d  额外配置: %s%n", clients, threads, Arrays.toString(extra));
+            System.out.printf("耗时: %.2fs  吞吐量: %.0f req/s  成功: %d（%.0f 次/s）  失败: %d%n",
+                    seconds, clients / seconds, success.sum(), success.sum() / seconds, clients - success.sum());
+            System.out.printf("延迟(ms): p50=%.2f p95=%.2f p99=%.2f max=%.2f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1e6);
+            System.out.println("失败原因:");
+            List<Map.Entry<String, LongAdder>> entries = new ArrayList<>(new TreeMap<>(errors).entrySet());
+            entries.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+            for (Map.Entry<String, LongAdder> entry : entries) {
+                System.out.printf("  %-30s %d%n", entry.getKey(), entry.getValue().sum());
+            }
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
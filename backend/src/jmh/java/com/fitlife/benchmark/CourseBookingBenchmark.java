@@ -0,0 +1,144 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.dto.CourseBookingDTO;
+import com.fitlife.dto.CourseBookingQueryDTO;
+import com.fitlife.entity.CourseBooking;
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.entity.PageResult;
+import com.fitlife.mapper.CourseBookingMapper;
+import com.fitlife.service.CourseBookingService;
+import com.fitlife.service.CourseScheduleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 课程预约热点路径基准测试
+ * 数据规模为已有预约数量，并发线程数由BenchmarkRunner按轮次设置
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseBookingBenchmark {
+
+    /**
+     * 已有预约数量
+     */
+    @Param({"1000", "100000"})
+    private int bookingCount;
+
+    /**
+     * 课程时间安排数量
+     */
+    @Param({"200"})
+    private int scheduleCount;
+
+    private ConfigurableApplicationContext context;
+
+    private CourseBookingService courseBookingService;
+
+    private CourseScheduleService courseScheduleService;
+
+    private CourseBookingMapper courseBookingMapper;
+
+    private List<Long> scheduleIds;
+
+    /**
+     * 新预约使用的会员ID，从已有预约之后开始递增，保证不重复
+     */
+    private AtomicLong nextMemberId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bench-booking-" + bookingCount + "-" + System.nanoTime());
+        courseBookingService = context.getBean(CourseBookingService.class);
+        courseScheduleService = context.getBean(CourseScheduleService.class);
+        courseBookingMapper = context.getBean(CourseBookingMapper.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        scheduleIds = BenchmarkContext.seedSchedules(jdbcTemplate, scheduleCount);
+        BenchmarkContext.seedBookings(jdbcTemplate, scheduleIds, bookingCount);
+        nextMemberId = new AtomicLong(BenchmarkContext.MEMBER_ID_BASE + bookingCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 每次调用前准备一条待取消的预约
+     */
+    @State(Scope.Thread)
+    public static class PendingCancel {
+
+        private Long bookingId;
+
+        @Setup(Level.Invocation)
+        public void prepare(CourseBookingBenchmark benchmark) {
+            CourseBooking booking = new CourseBooking();
+            booking.setMemberId(benchmark.nextMemberId.getAndIncrement());
+            booking.setCourseId(1L);
+            booking.setScheduleId(BenchmarkContext.randomSchedule(benchmark.scheduleIds));
+            booking.setStatus(1);
+            booking.setPayStatus(0);
+            benchmark.courseBookingMapper.insert(booking);
+            bookingId = booking.getId();
+        }
+    }
+
+    @Benchmark
+    public CourseBooking bookCourse() {
+        CourseBookingDTO bookingDTO = new CourseBookingDTO();
+        bookingDTO.setMemberId(nextMemberId.getAndIncrement());
+        bookingDTO.setCourseId(1L);
+        bookingDTO.setScheduleId(BenchmarkContext.randomSchedule(scheduleIds));
+        return courseBookingService.bookCourse(bookingDTO);
+    }
+
+    @Benchmark
+    public boolean cancelBooking(PendingCancel pendingCancel) {
+        return courseBookingService.cancelBooking(pendingCancel.bookingId);
+    }
+
+    @Benchmark
+    public boolean checkMemberBooked() {
+        // 与seedBookings的编号规则一致，命中已有预约
+        int index = ThreadLocalRandom.current().nextInt(bookingCount);
+        return courseBookingService.checkMemberBooked(BenchmarkContext.MEMBER_ID_BASE + index,
+                scheduleIds.get(index % scheduleIds.size()));
+    }
+
+    @Benchmark
+    public PageResult<CourseBooking> listCourseBookings() {
+        CourseBookingQueryDTO queryDTO = new CourseBookingQueryDTO();
+        queryDTO.setScheduleId(BenchmarkContext.randomSchedule(scheduleIds));
+        queryDTO.setStatus(1);
+        return courseBookingService.listCourseBookings(queryDTO);
+    }
+
+    @Benchmark
+    public List<CourseSchedule> getUpcomingCourses() {
+        return courseScheduleService.getUpcomingCourses(10);
+    }
+}
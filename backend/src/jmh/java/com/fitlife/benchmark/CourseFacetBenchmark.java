@@ -0,0 +1,89 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.cache.CourseFacetIndex;
+import com.fitlife.dto.CoursePageResultDTO;
+import com.fitlife.dto.CourseQueryDTO;
+import com.fitlife.service.CourseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程筛选基准测试
+ * 按分类、教练、难度和价格组合筛选第一页并统计筛选项，由内存位图索引提供
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseFacetBenchmark {
+
+    /**
+     * 课程数量
+     */
+    @Param({"10000", "100000"})
+    private int courseCount;
+
+    private ConfigurableApplicationContext context;
+
+    private CourseService courseService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bench-course-facet-" + courseCount + "-" + System.nanoTime());
+        courseService = context.getBean(CourseService.class);
+        BenchmarkContext.seedCourses(context.getBean(JdbcTemplate.class), courseCount);
+        context.getBean(CourseFacetIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CoursePageResultDTO listPublished() {
+        CourseQueryDTO queryDTO = new CourseQueryDTO();
+        queryDTO.setStatus(1);
+        return courseService.listCourses(queryDTO);
+    }
+
+    @Benchmark
+    public CoursePageResultDTO listByFilters() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CourseQueryDTO queryDTO = new CourseQueryDTO();
+        queryDTO.setStatus(1);
+        queryDTO.setCategoryId((long) random.nextInt(3, 8));
+        queryDTO.setDifficulty(random.nextInt(3));
+        queryDTO.setMinPrice(new BigDecimal(100));
+        queryDTO.setMaxPrice(new BigDecimal(300));
+        return courseService.listCourses(queryDTO);
+    }
+
+    @Benchmark
+    public CoursePageResultDTO listByCoachDeepPage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CourseQueryDTO queryDTO = new CourseQueryDTO();
+        queryDTO.setCoachId((long) random.nextInt(1, 51));
+        queryDTO.setPageNum(random.nextInt(1, 20));
+        return courseService.listCourses(queryDTO);
+    }
+}
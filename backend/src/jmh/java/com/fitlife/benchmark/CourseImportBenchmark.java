@@ -0,0 +1,92 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.cache.CourseFacetIndex;
+import com.fitlife.cache.CourseSearchIndex;
+import com.fitlife.dto.ImportTaskDTO;
+import com.fitlife.service.CourseService;
+import com.fitlife.task.CsvImportRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程CSV导入基准测试
+ * 每次调用导入一个完整文件并等待任务结束（解析、校验、分批写入和更新搜索、筛选索引），
+ * 每次调用后删除导入的课程并重建索引，避免已导入的课程累积
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseImportBenchmark {
+
+    /**
+     * 文件行数
+     */
+    @Param({"10000", "100000"})
+    private int rowCount;
+
+    private ConfigurableApplicationContext context;
+
+    private CourseService courseService;
+
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bench-course-import-" + rowCount + "-" + System.nanoTime());
+        courseService = context.getBean(CourseService.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder csv = new StringBuilder("name,description,price,max_people,tags,type,difficulty\n");
+        for (int i = 0; i < rowCount; i++) {
+            csv.append("导入课程").append(i).append(",\"基准测试导入的课程, 第").append(i).append("门\",")
+                    .append(random.nextInt(10, 101) * 5).append(',').append(random.nextInt(10, 31)).append(",\"瑜伽,拉伸\",")
+                    .append(random.nextInt(2)).append(',').append(random.nextInt(3)).append('\n');
+        }
+        content = csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Invocation)
+    public void clear() {
+        context.getBean(JdbcTemplate.class).update("delete from course where name like '导入课程%'");
+        context.getBean(CourseSearchIndex.class).rebuild();
+        context.getBean(CourseFacetIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ImportTaskDTO importCourses() throws InterruptedException {
+        ImportTaskDTO task = courseService.importCourses(new MockMultipartFile("file", "courses.csv", "text/csv", content));
+        while (task.getStatus() == CsvImportRunner.STATUS_RUNNING) {
+            Thread.sleep(20);
+            task = courseService.getCourseImportTask(task.getTaskId());
+        }
+        if (task.getImportedRows() != rowCount) {
+            throw new IllegalStateException("导入行数不一致: " + task.getImportedRows() + ", errors=" + task.getErrors());
+        }
+        return task;
+    }
+}
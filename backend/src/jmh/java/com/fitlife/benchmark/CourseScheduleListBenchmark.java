@@ -0,0 +1,93 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.dto.CourseScheduleQueryDTO;
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.entity.PageResult;
+import com.fitlife.service.CourseScheduleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程时间安排分页查询基准测试
+ * 课程分布在一年内，查询某一天、某一地点的第一页，延迟应不随课程总数增长；
+ * 按时间范围查询由内存时间索引提供
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseScheduleListBenchmark {
+
+    /**
+     * 课程时间安排数量
+     */
+    @Param({"10000", "100000", "500000"})
+    private int scheduleCount;
+
+    private ConfigurableApplicationContext context;
+
+    private CourseScheduleService courseScheduleService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bench-schedule-" + scheduleCount + "-" + System.nanoTime());
+        courseScheduleService = context.getBean(CourseScheduleService.class);
+        BenchmarkContext.seedSchedules(context.getBean(JdbcTemplate.class), scheduleCount, 20, 0, 365);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PageResult<CourseSchedule> listByDay() {
+        LocalDateTime day = randomDay();
+        CourseScheduleQueryDTO queryDTO = new CourseScheduleQueryDTO();
+        queryDTO.setStartTime(day);
+        queryDTO.setEndTime(day.plusDays(1));
+        return courseScheduleService.listCourseSchedules(queryDTO);
+    }
+
+    @Benchmark
+    public PageResult<CourseSchedule> listByDayAndLocation() {
+        LocalDateTime day = randomDay();
+        CourseScheduleQueryDTO queryDTO = new CourseScheduleQueryDTO();
+        queryDTO.setStartTime(day);
+        queryDTO.setEndTime(day.plusDays(1));
+        queryDTO.setLocation("基准教室" + ThreadLocalRandom.current().nextInt(10));
+        queryDTO.setStatus(0);
+        return courseScheduleService.listCourseSchedules(queryDTO);
+    }
+
+    @Benchmark
+    public List<CourseSchedule> getCourseSchedulesByTimeRange() {
+        LocalDateTime day = randomDay();
+        return courseScheduleService.getCourseSchedulesByTimeRange(day, day.plusDays(1));
+    }
+
+    private static LocalDateTime randomDay() {
+        return LocalDate.now().plusDays(1 + ThreadLocalRandom.current().nextInt(365)).atStartOfDay();
+    }
+}
@@ -0,0 +1,79 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.cache.CourseSearchIndex;
+import com.fitlife.dto.CourseQueryDTO;
+import com.fitlife.entity.Course;
+import com.fitlife.entity.PageResult;
+import com.fitlife.service.CourseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程关键词搜索基准测试
+ * 课程名称、描述和标签由词表随机组合，按关键词搜索第一页，由内存倒排索引提供
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseSearchBenchmark {
+
+    private static final String[] KEYWORDS = {"瑜伽", "动感单车", "核心燃脂", "hiit", "力量 塑形", "冥想拉伸"};
+
+    /**
+     * 课程数量
+     */
+    @Param({"10000", "100000"})
+    private int courseCount;
+
+    private ConfigurableApplicationContext context;
+
+    private CourseService courseService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bench-course-search-" + courseCount + "-" + System.nanoTime());
+        courseService = context.getBean(CourseService.class);
+        BenchmarkContext.seedCourses(context.getBean(JdbcTemplate.class), courseCount);
+        context.getBean(CourseSearchIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PageResult<Course> searchByKeyword() {
+        CourseQueryDTO queryDTO = new CourseQueryDTO();
+        queryDTO.setKeyword(KEYWORDS[ThreadLocalRandom.current().nextInt(KEYWORDS.length)]);
+        return courseService.listCourses(queryDTO);
+    }
+
+    @Benchmark
+    public PageResult<Course> searchByKeywordAndFilter() {
+        CourseQueryDTO queryDTO = new CourseQueryDTO();
+        queryDTO.setKeyword(KEYWORDS[ThreadLocalRandom.current().nextInt(KEYWORDS.length)]);
+        queryDTO.setStatus(1);
+        queryDTO.setDifficulty(ThreadLocalRandom.current().nextInt(3));
+        return courseService.listCourses(queryDTO);
+    }
+}
@@ -0,0 +1,66 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.cache.CourseSimilarityIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程相似度索引全量重建基准测试
+ * 500门课程，平均每个会员10条预约，测量流式读取全部预约、并行统计共同预约和计算相似课程的总耗时
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseSimilarityBenchmark {
+
+    private static final int COURSE_COUNT = 500;
+
+    /**
+     * 预约数量
+     */
+    @Param({"1000000", "3000000"})
+    private int bookingCount;
+
+    private ConfigurableApplicationContext context;
+
+    private CourseSimilarityIndex courseSimilarityIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bench-course-similarity-" + bookingCount + "-" + System.nanoTime());
+        courseSimilarityIndex = context.getBean(CourseSimilarityIndex.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        BenchmarkContext.seedCourses(jdbcTemplate, COURSE_COUNT);
+        List<Long> courseIds = jdbcTemplate.queryForList("select id from course order by id", Long.class);
+        BenchmarkContext.seedMemberBookings(jdbcTemplate, courseIds, bookingCount / 10, bookingCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void rebuild() {
+        courseSimilarityIndex.rebuild();
+    }
+}
@@ -0,0 +1,93 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.dto.CourseBookingDTO;
+import com.fitlife.entity.CourseBooking;
+import com.fitlife.service.CourseBookingService;
+import com.fitlife.service.FlashBookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 秒杀预约与普通同步预约的吞吐量对比
+ * 少量热门课程时间安排（名额足够大，不会约满），每次调用由新会员预约。
+ * sync-普通预约（内存账本 + 单条事务），flash-秒杀模式（Redis扣减名额，等待写回任务批量落库后返回）。
+ * flash需要本地Redis：-Dbenchmark.params=mode=sync,flash
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlashBookingBenchmark {
+
+    /**
+     * 预约方式：sync-普通预约，flash-秒杀预约
+     */
+    @Param({"sync"})
+    private String mode;
+
+    /**
+     * 热门课程时间安排数量
+     */
+    @Param({"1", "10"})
+    private int scheduleCount;
+
+    private ConfigurableApplicationContext context;
+
+    private CourseBookingService courseBookingService;
+
+    private List<Long> scheduleIds;
+
+    private final AtomicLong nextMemberId = new AtomicLong(BenchmarkContext.MEMBER_ID_BASE);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean flash = "flash".equals(mode);
+        context = BenchmarkContext.start("bench-flash-" + mode + "-" + System.nanoTime(),
+                "fitlife.booking.flash.enabled=" + flash);
+        courseBookingService = context.getBean(CourseBookingService.class);
+        scheduleIds = BenchmarkContext.seedSchedules(context.getBean(JdbcTemplate.class), scheduleCount);
+        if (flash) {
+            for (Long scheduleId : scheduleIds) {
+                context.getBean(FlashBookingService.class).openFlashSale(scheduleId);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if ("flash".equals(mode)) {
+            for (Long scheduleId : scheduleIds) {
+                context.getBean(FlashBookingService.class).closeFlashSale(scheduleId);
+            }
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public CourseBooking bookCourse() {
+        CourseBookingDTO bookingDTO = new CourseBookingDTO();
+        bookingDTO.setMemberId(nextMemberId.getAndIncrement());
+        bookingDTO.setCourseId(1L);
+        bookingDTO.setScheduleId(BenchmarkContext.randomSchedule(scheduleIds));
+        return courseBookingService.bookCourse(bookingDTO);
+    }
+}
@@ -0,0 +1,118 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.cache.ScheduleConflictIndex;
+import com.fitlife.dto.CourseScheduleDTO;
+import com.fitlife.dto.ScheduleConflictDTO;
+import com.fitlife.dto.ScheduleRecurrenceDTO;
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.service.CourseScheduleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按重复规则批量创建课程时间安排基准测试
+ * 每次调用为整个场馆生成一年的课程：每门课每周两次，共 classCount * 104 条，写入前经过冲突检测；
+ * 另测已有十万条课程时冲突检测一千条课程的耗时
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleBatchCreateBenchmark {
+
+    /**
+     * 场馆每周开设的课程数量
+     */
+    @Param({"10", "50"})
+    private int classCount;
+
+    private ConfigurableApplicationContext context;
+
+    private CourseScheduleService courseScheduleService;
+
+    /**
+     * 冲突检测使用的一千条课程：10门课各重复100次，与已有课程在同一地点
+     */
+    private List<CourseScheduleDTO> checkDTOs;
+
+    private final AtomicInteger invocation = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bench-schedule-batch-" + classCount + "-" + System.nanoTime());
+        courseScheduleService = context.getBean(CourseScheduleService.class);
+        BenchmarkContext.seedSchedules(context.getBean(JdbcTemplate.class), 100000, 20, 0, 365);
+        context.getBean(ScheduleConflictIndex.class).rebuild();
+        checkDTOs = createDTOs(10, 100, "基准教室");
+    }
+
+    /**
+     * 每次调用使用新的上课地点，避免与上次生成的课程冲突
+     */
+    @State(Scope.Thread)
+    public static class YearPlan {
+
+        private List<CourseScheduleDTO> scheduleDTOs;
+
+        @Setup(Level.Invocation)
+        public void prepare(ScheduleBatchCreateBenchmark benchmark) {
+            scheduleDTOs = createDTOs(benchmark.classCount, 104, "批量教室" + benchmark.invocation.getAndIncrement() + "-");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CourseSchedule> batchCreateYear(YearPlan plan) {
+        return courseScheduleService.batchCreateCourseSchedules(plan.scheduleDTOs);
+    }
+
+    @Benchmark
+    public List<ScheduleConflictDTO> checkConflicts() {
+        return courseScheduleService.checkScheduleConflicts(checkDTOs);
+    }
+
+    private static List<CourseScheduleDTO> createDTOs(int classCount, int count, String locationPrefix) {
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+        List<CourseScheduleDTO> scheduleDTOs = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            ScheduleRecurrenceDTO recurrence = new ScheduleRecurrenceDTO();
+            recurrence.setDaysOfWeek(Arrays.asList(2, 4));
+            recurrence.setCount(count);
+            CourseScheduleDTO scheduleDTO = new CourseScheduleDTO();
+            scheduleDTO.setCourseId(1L);
+            scheduleDTO.setStartTime(firstDay.atTime(8 + i % 12, 0));
+            scheduleDTO.setEndTime(scheduleDTO.getStartTime().plusHours(1));
+            scheduleDTO.setLocation(locationPrefix + i % 10);
+            scheduleDTO.setMaxPeople(20);
+            scheduleDTO.setRecurrence(recurrence);
+            scheduleDTOs.add(scheduleDTO);
+        }
+        return scheduleDTOs;
+    }
+}
@@ -0,0 +1,77 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.lock.ScheduleLockManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程时间安排锁竞争开销基准测试
+ * scheduleCount越小竞争越激烈（1表示所有线程争用同一把锁），临界区为固定的CPU消耗。
+ * redisson实现需要本地Redis：-Dbenchmark.params=lockType=local,redisson
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleLockBenchmark {
+
+    /**
+     * 锁实现：local-本地分段锁，redisson-Redisson公平锁
+     */
+    @Param({"local"})
+    private String lockType;
+
+    /**
+     * 参与竞争的课程时间安排数量
+     */
+    @Param({"1", "16", "1024"})
+    private int scheduleCount;
+
+    /**
+     * 临界区CPU消耗（JMH token）
+     */
+    @Param({"100"})
+    private int work;
+
+    private ConfigurableApplicationContext context;
+
+    private ScheduleLockManager scheduleLockManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bench-lock-" + System.nanoTime(), "fitlife.booking.lock.type=" + lockType);
+        scheduleLockManager = context.getBean(ScheduleLockManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Integer executeWithLock() {
+        long scheduleId = ThreadLocalRandom.current().nextInt(scheduleCount) + 1;
+        return scheduleLockManager.executeWithLock(scheduleId, () -> {
+            Blackhole.consumeCPU(work);
+            return work;
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package com.fitlife.benchmark;
+
+import com.fitlife.dto.CourseBookingDTO;
+import com.fitlife.entity.CourseBooking;
+import com.fitlife.exception.BusinessException;
+import com.fitlife.service.CourseBookingService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 名额条件更新并发检查
+ * 在同一进程中由多个线程同时对少量课程调用 bookCourse，部分预约成功后立即取消并重复取消一次，
+ * 同时覆盖条件加减已预约人数的两个方向；结束后检查每节课没有超卖、已预约人数不为负且与有效预约记录数一致，
+ * 并输出每秒成功预约数。不经过HTTP，只验证服务层和条件更新语句；经过接口的整点放课压测见 BookingLoadDriver。
+ * <p>
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.fitlife.benchmark.SeatReservationStressCheck
+ * <p>
+ * 参数（通过 -Dbenchmark.jvmArgs 传入）：
+ * check.attempts-预约次数，check.schedules-课程数，check.capacity-每节课名额，check.threads-并发线程数，
+ * check.cancel-every-每隔多少个成功的预约取消一个（0表示不取消）
+ * <p>
+ * 检查失败时进程退出码为1。
+ */
+public class SeatReservationStressCheck {
+
+    public static void main(String[] args) throws Exception {
+        int attempts = Integer.getInteger("check.attempts", 20000);
+        int scheduleCount = Integer.getInteger("check.schedules", 3);
+        int capacity = Integer.getInteger("check.capacity", 50);
+        int threads = Integer.getInteger("check.threads", 64);
+        int cancelEvery = Integer.getInteger("check.cancel-every", 4);
+
+        ConfigurableApplicationContext context = BenchmarkContext.start("seat-check-" + System.nanoTime());
+        int exitCode;
+        try {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            CourseBookingService courseBookingService = context.getBean(CourseBookingService.class);
+            List<Long> scheduleIds = BenchmarkContext.seedSchedules(jdbcTemplate, scheduleCount, capacity, 0);
+
+            LongAdder booked = new LongAdder();
+            LongAdder cancelled = new LongAdder();
+            LongAdder doubleCancelled = new LongAdder();
+            Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(attempts);
+            for (int i = 0; i < attempts; i++) {
+                int attempt = i;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        CourseBookingDTO bookingDTO = new CourseBookingDTO();
+                        bookingDTO.setMemberId(BenchmarkContext.MEMBER_ID_BASE + attempt);
+                        bookingDTO.setCourseId(1L);
+                        bookingDTO.setScheduleId(scheduleIds.get(attempt % scheduleIds.size()));
+                        CourseBooking booking = courseBookingService.bookCourse(bookingDTO);
+                        booked.increment();
+                        if (cancelEvery > 0 && attempt % cancelEvery == 0) {
+                            courseBookingService.cancelBooking(booking.getId());
+                            cancelled.increment();
+                            // 重复取消不能再次归还名额
+                            try {
+                                if (courseBookingService.cancelBooking(booking.getId())) {
+                                    doubleCancelled.increment();
+                                }
+                            } catch (BusinessException e) {
+                                // 预期：预约已取消
+                            }
+                        }
+                    } catch (BusinessException e) {
+                        errors.computeIfAbsent(e.getMessage(), k -> new LongAdder()).increment();
+                    } catch (RuntimeException e) {
+                        errors.computeIfAbsent(e.getClass().getSimpleName(), k -> new LongAdder()).increment();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            done.await();
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+
+            System.out.println("==================== 名额条件更新并发检查 ====================");
+            System.out.printf("预约次数: %d  课程: %d  名额: %d  线程: %d%n", attempts, scheduleCount, capacity, threads);
+            System.out.printf("耗时: %.2fs  请求: %.0f 次/s  成功预约: %d（%.0f 次/s）  取消: %d  重复取消成功: %d%n",
+                    seconds, attempts / seconds, booked.sum(), booked.sum() / seconds, cancelled.sum(), doubleCancelled.sum());
+            System.out.println("失败原因:");
+            for (Map.Entry<String, LongAdder> entry : new TreeMap<>(errors).entrySet()) {
+                System.out.printf("  %-30s %d%n", entry.getKey(), entry.getValue().sum());
+            }
+            boolean failed = doubleCancelled.sum() > 0;
+            failed |= !check(jdbcTemplate, scheduleIds);
+            System.out.println(failed ? "检查失败" : "检查通过");
+            exitCode = failed ? 1 : 0;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * 检查每节课的已预约人数不超过最大人数、不为负，并与有效预约记录数一致
+     * @return 是否全部正常
+     */
+    private static boolean check(JdbcTemplate jdbcTemplate, List<Long> scheduleIds) {
+        List<String> problems = new ArrayList<>();
+        System.out.println("课程名额检查:");
+        for (Long scheduleId : scheduleIds) {
+            Map<String, Object> row = jdbcTemplate.queryForMap(
+                    "select max_people, booked_people from course_schedule where id = ?", scheduleId);
+            int maxPeople = ((Number) row.get("max_people")).intValue();
+            int bookedPeople = ((Number) row.get("booked_people")).intValue();
+            Integer bookings = jdbcTemplate.queryForObject(
+                    "select count(*) from course_booking where schedule_id = ? and status in (0, 1) and deleted = 0",
+                    Integer.class, scheduleId);
+            String problem = bookedPeople > maxPeople || bookings > maxPeople ? "超卖"
+                    : bookedPeople < 0 ? "已预约人数为负"
+                    : bookedPeople != bookings ? "人数与预约记录不一致" : null;
+            if (problem != null) {
+                problems.add(problem);
+            }
+            System.out.printf("  scheduleId=%d max_people=%d booked_people=%d bookings=%d %s%n",
+                    scheduleId, maxPeople, bookedPeople, bookings, problem == null ? "正常" : problem);
+        }
+        return problems.isEmpty();
+    }
+}
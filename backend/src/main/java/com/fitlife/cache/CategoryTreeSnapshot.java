@@ -0,0 +1,69 @@
+package com.fitlife.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitlife.dto.CourseCategoryTreeDTO;
+import com.fitlife.entity.Result;
+import com.fitlife.exception.BusinessException;
+import org.springframework.util.DigestUtils;
+
+import java.util.List;
+
+/**
+ * 课程分类树快照，构建后不再修改
+ * 同时保存序列化后的响应体和按分类树内容计算的ETag，分类树不变时ETag不变
+ */
+public final class CategoryTreeSnapshot {
+
+    private final List<CourseCategoryTreeDTO> roots;
+
+    private final byte[] body;
+
+    private final String etag;
+
+    private CategoryTreeSnapshot(List<CourseCategoryTreeDTO> roots, byte[] body, String etag) {
+        this.roots = roots;
+        this.body = body;
+        this.etag = etag;
+    }
+
+    /**
+     * 构建快照
+     * @param roots 一级分类列表
+     * @param objectMapper ObjectMapper
+     * @return 分类树快照
+     */
+    public static CategoryTreeSnapshot of(List<CourseCategoryTreeDTO> roots, ObjectMapper objectMapper) {
+        try {
+            byte[] content = objectMapper.writeValueAsBytes(roots);
+            byte[] body = objectMapper.writeValueAsBytes(Result.success(roots));
+            return new CategoryTreeSnapshot(roots, body, "\"" + DigestUtils.md5DigestAsHex(content) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("分类树序列化失败", e);
+        }
+    }
+
+    /**
+     * 一级分类列表（只读）
+     * @return 一级分类列表
+     */
+    public List<CourseCategoryTreeDTO> getRoots() {
+        return roots;
+    }
+
+    /**
+     * 序列化后的响应体（Result格式，只读）
+     * @return 响应体
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * 分类树内容的ETag（带引号）
+     * @return ETag
+     */
+    public String getEtag() {
+        return etag;
+    }
+}
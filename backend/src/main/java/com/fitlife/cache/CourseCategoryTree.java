@@ -0,0 +1,170 @@
+package com.fitlife.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitlife.dto.CourseCategoryTreeDTO;
+import com.fitlife.entity.CourseCategory;
+import com.fitlife.mapper.CourseCategoryMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 课程分类树
+ * 加载全部未删除分类，预先计算每个分类的子树ID集合（含自身）和序列化后的分类树，
+ * 构建完成后整体替换，读取时无需加锁且不会看到构建到一半的树。
+ * 分类变更后立即重建，并定时重建以同步直接修改数据库的变更。
+ */
+@Slf4j
+@Component
+public class CourseCategoryTree {
+
+    private static final Comparator<CourseCategory> SORT_ORDER = Comparator
+            .comparing((CourseCategory category) -> category.getSort() == null ? 0 : category.getSort())
+            .thenComparing(CourseCategory::getId);
+
+    @Autowired
+    private CourseCategoryMapper courseCategoryMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile Tree tree;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 获取分类树快照（仅包含启用的分类，禁用分类的子分类一并隐藏）
+     * @return 分类树快照
+     */
+    public CategoryTreeSnapshot getSnapshot() {
+        return tree.snapshot;
+    }
+
+    /**
+     * 查询分类及其所有子分类的ID
+     * @param categoryId 分类ID
+     * @return 子树ID集合（含自身，只读），分类不存在时只包含自身
+     */
+    public Set<Long> getSubtreeIds(Long categoryId) {
+        Set<Long> ids = tree.subtrees.get(categoryId);
+        return ids != null ? ids : Collections.singleton(categoryId);
+    }
+
+    /**
+     * 查询分类
+     * @param categoryId 分类ID
+     * @return 分类（只读），不存在时返回null
+     */
+    public CourseCategory getCategory(Long categoryId) {
+        return tree.categories.get(categoryId);
+    }
+
+    /**
+     * 重建分类树
+     */
+    @Scheduled(fixedDelayString = "${fitlife.course.category.rebuild-interval-ms:300000}",
+            initialDelayString = "${fitlife.course.category.rebuild-interval-ms:300000}")
+    public synchronized void rebuild() {
+        Map<Long, CourseCategory> categories = new HashMap<>();
+        for (CourseCategory category : courseCategoryMapper.selectUndeleted()) {
+            categories.put(category.getId(), category);
+        }
+
+        // 父分类不存在的分类视为一级分类
+        Map<Long, List<CourseCategory>> children = new HashMap<>();
+        List<CourseCategory> roots = new ArrayList<>();
+        for (CourseCategory category : categories.values()) {
+            Long parentId = category.getParentId();
+            if (parentId == null || parentId == 0 || !categories.containsKey(parentId)) {
+                roots.add(category);
+            } else {
+                children.computeIfAbsent(parentId, k -> new ArrayList<>()).add(category);
+            }
+        }
+        roots.sort(SORT_ORDER);
+        children.values().forEach(list -> list.sort(SORT_ORDER));
+
+        Map<Long, Set<Long>> subtrees = new HashMap<>();
+        List<CourseCategoryTreeDTO> nodes = new ArrayList<>();
+        for (CourseCategory root : roots) {
+            CourseCategoryTreeDTO node = build(root, true, children, subtrees);
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+        // 每个分类只有一个父分类，一级分类无法到达的分类只可能处于循环引用中
+        if (subtrees.size() < categories.size()) {
+            log.warn("课程分类存在循环引用，已忽略: {}", categories.size() - subtrees.size());
+        }
+
+        tree = new Tree(Collections.unmodifiableMap(categories), Collections.unmodifiableMap(subtrees),
+                CategoryTreeSnapshot.of(Collections.unmodifiableList(nodes), objectMapper));
+        log.debug("课程分类树重建完成: categories={}", categories.size());
+    }
+
+    /**
+     * 深度优先构建子树，同时计算子树ID集合
+     * @return 树节点，分类或其祖先已禁用时返回null
+     */
+    private CourseCategoryTreeDTO build(CourseCategory category, boolean visible, Map<Long, List<CourseCategory>> children,
+                                        Map<Long, Set<Long>> subtrees) {
+        boolean enabled = visible && category.getStatus() != null && category.getStatus() == 1;
+        Set<Long> subtree = new LinkedHashSet<>();
+        subtree.add(category.getId());
+        List<CourseCategoryTreeDTO> childNodes = new ArrayList<>();
+        for (CourseCategory child : children.getOrDefault(category.getId(), Collections.<CourseCategory>emptyList())) {
+            CourseCategoryTreeDTO childNode = build(child, enabled, children, subtrees);
+            subtree.addAll(subtrees.get(child.getId()));
+            if (childNode != null) {
+                childNodes.add(childNode);
+            }
+        }
+        subtrees.put(category.getId(), Collections.unmodifiableSet(subtree));
+        if (!enabled) {
+            return null;
+        }
+        CourseCategoryTreeDTO node = new CourseCategoryTreeDTO();
+        node.setId(category.getId());
+        node.setName(category.getName());
+        node.setDescription(category.getDescription());
+        node.setIcon(category.getIcon());
+        node.setSort(category.getSort());
+        node.setChildren(Collections.unmodifiableList(childNodes));
+        return node;
+    }
+
+    /**
+     * 分类树数据，重建时整体替换
+     */
+    private static final class Tree {
+
+        private final Map<Long, CourseCategory> categories;
+
+        /**
+         * 分类ID -> 子树ID集合（含自身）
+         */
+        private final Map<Long, Set<Long>> subtrees;
+
+        private final CategoryTreeSnapshot snapshot;
+
+        private Tree(Map<Long, CourseCategory> categories, Map<Long, Set<Long>> subtrees, CategoryTreeSnapshot snapshot) {
+            this.categories = categories;
+            this.subtrees = subtrees;
+            this.snapshot = snapshot;
+        }
+    }
+}
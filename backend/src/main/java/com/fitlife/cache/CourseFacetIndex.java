@@ -0,0 +1,365 @@
+package com.fitlife.cache;
+
+import com.fitlife.dto.CourseFacetDTO;
+import com.fitlife.dto.CoursePageResultDTO;
+import com.fitlife.dto.CourseQueryDTO;
+import com.fitlife.entity.Coach;
+import com.fitlife.entity.Course;
+import com.fitlife.entity.CourseCategory;
+import com.fitlife.mapper.CoachMapper;
+import com.fitlife.mapper.CourseMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 课程筛选索引
+ * 未删除课程按创建时间顺序编号，分类、教练、类型、难度、状态的每个取值对应一个压缩位图，价格按有序映射保存位图。
+ * 查询时对筛选条件的位图求交集，按编号倒序分页（即创建时间倒序），并统计各筛选项取值的课程数量，
+ * 某一项的数量按除该项以外的条件统计，便于筛选栏直接展示可选项。
+ * 课程新增、修改、上下架后增量更新，并定时全量重建。
+ */
+@Slf4j
+@Component
+public class CourseFacetIndex {
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private CourseCategoryTree courseCategoryTree;
+
+    @Autowired
+    private CoachMapper coachMapper;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final SnapshotRebuilder<Long> rebuilder = new SnapshotRebuilder<>(lock.writeLock());
+
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * 教练ID -> 教练姓名
+     */
+    private volatile Map<Long, String> coachNames = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 按条件分页查询课程并统计筛选项
+     * @param queryDTO 查询条件（不含关键词）
+     * @return 按创建时间倒序的分页结果（课程为副本）
+     */
+    public CoursePageResultDTO query(CourseQueryDTO queryDTO) {
+        lock.readLock().lock();
+        try {
+            Snapshot current = snapshot;
+            RoaringBitmap base = current.live.clone();
+            if (queryDTO.getMinPrice() != null || queryDTO.getMaxPrice() != null) {
+                base.and(current.priceRange(queryDTO.getMinPrice(), queryDTO.getMaxPrice()));
+            }
+            if (StringUtils.hasText(queryDTO.getName())) {
+                base.and(current.nameContains(queryDTO.getName()));
+            }
+
+            // 已选筛选项取值对应的位图
+            Map<Facet, RoaringBitmap> selected = new EnumMap<>(Facet.class);
+            for (Facet facet : Facet.values()) {
+                Object value = facet.queryValue.apply(queryDTO);
+                if (value == null) {
+                    continue;
+                }
+                if (facet == Facet.CATEGORY && Boolean.TRUE.equals(queryDTO.getIncludeChildren())) {
+                    // 包含子分类时合并整个子树的位图
+                    List<RoaringBitmap> subtree = new ArrayList<>();
+                    for (Long categoryId : courseCategoryTree.getSubtreeIds(queryDTO.getCategoryId())) {
+                        RoaringBitmap bitmap = current.facets.get(facet).get(categoryId);
+                        if (bitmap != null) {
+                            subtree.add(bitmap);
+                        }
+                    }
+                    selected.put(facet, RoaringBitmap.or(subtree.iterator()));
+                } else {
+                    selected.put(facet, current.facets.get(facet).getOrDefault(value, new RoaringBitmap()));
+                }
+            }
+            RoaringBitmap matched = base.clone();
+            for (RoaringBitmap bitmap : selected.values()) {
+                matched.and(bitmap);
+            }
+
+            Map<String, List<CourseFacetDTO>> facets = new LinkedHashMap<>();
+            for (Facet facet : Facet.values()) {
+                RoaringBitmap others = base.clone();
+                for (Map.Entry<Facet, RoaringBitmap> entry : selected.entrySet()) {
+                    if (entry.getKey() != facet) {
+                        others.and(entry.getValue());
+                    }
+                }
+                facets.put(facet.field, count(facet, current.facets.get(facet), others));
+            }
+
+            int pageNum = Math.max(queryDTO.getPageNum(), 1);
+            int pageSize = Math.max(queryDTO.getPageSize(), 1);
+            int total = matched.getCardinality();
+            long from = (long) (pageNum - 1) * pageSize;
+            List<Course> records = new ArrayList<>();
+            for (long i = from; i < Math.min(from + pageSize, total); i++) {
+                Course course = new Course();
+                BeanUtils.copyProperties(current.courses.get(matched.select((int) (total - 1 - i))), course);
+                records.add(course);
+            }
+            CoursePageResultDTO result = new CoursePageResultDTO(records, total, pageSize, pageNum);
+            result.setFacets(facets);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 课程新增、修改、上下架或预约人数变化后更新索引
+     * @param course 课程
+     */
+    public void onCourseChanged(Course course) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = snapshot.remove(course.getId());
+            if (course.getDeleted() == null || course.getDeleted() == 0) {
+                Course copy = new Course();
+                BeanUtils.copyProperties(course, copy);
+                // 修改不改变创建时间，沿用原编号以保持顺序
+                snapshot.put(copy, ordinal != null ? ordinal : snapshot.courses.size());
+            }
+            rebuilder.changed(course.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 全量重建索引，同时刷新教练姓名
+     */
+    @Scheduled(fixedDelayString = "${fitlife.course.facet.rebuild-interval-ms:600000}",
+            initialDelayString = "${fitlife.course.facet.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        rebuilder.rebuild(this::load, (rebuilt, courseId) -> {
+            // 重建期间有变更的课程以当前索引为准
+            Integer ordinal = rebuilt.remove(courseId);
+            Integer currentOrdinal = snapshot.ordinals.get(courseId);
+            if (currentOrdinal != null) {
+                rebuilt.put(snapshot.courses.get(currentOrdinal), ordinal != null ? ordinal : rebuilt.courses.size());
+            }
+        }, rebuilt -> {
+            snapshot = rebuilt;
+            log.debug("课程筛选索引重建完成: courses={}", rebuilt.live.getCardinality());
+        });
+    }
+
+    /**
+     * 从数据库加载教练姓名和课程，生成新的索引数据
+     */
+    private Snapshot load() {
+        Map<Long, String> coaches = new HashMap<>();
+        for (Coach coach : coachMapper.selectNames()) {
+            coaches.put(coach.getId(), coach.getName());
+        }
+        coachNames = coaches;
+
+        List<Course> courses = courseMapper.selectUndeleted();
+        courses.sort(Comparator.comparing(Course::getCreateTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                .thenComparing(Course::getId));
+        Snapshot rebuilt = new Snapshot();
+        for (Course course : courses) {
+            rebuilt.put(course, rebuilt.courses.size());
+        }
+        for (Map<Object, RoaringBitmap> bitmaps : rebuilt.facets.values()) {
+            bitmaps.values().forEach(RoaringBitmap::runOptimize);
+        }
+        return rebuilt;
+    }
+
+    private List<CourseFacetDTO> count(Facet facet, Map<Object, RoaringBitmap> bitmaps, RoaringBitmap others) {
+        List<CourseFacetDTO> counts = new ArrayList<>();
+        for (Map.Entry<Object, RoaringBitmap> entry : bitmaps.entrySet()) {
+            long count = RoaringBitmap.andCardinality(others, entry.getValue());
+            if (count == 0) {
+                continue;
+            }
+            CourseFacetDTO dto = new CourseFacetDTO();
+            dto.setValue(((Number) entry.getKey()).longValue());
+            dto.setName(nameOf(facet, dto.getValue()));
+            dto.setCount(count);
+            counts.add(dto);
+        }
+        counts.sort(Comparator.comparing(CourseFacetDTO::getCount).reversed().thenComparing(CourseFacetDTO::getValue));
+        return counts;
+    }
+
+    private String nameOf(Facet facet, Long value) {
+        switch (facet) {
+            case CATEGORY:
+                CourseCategory category = courseCategoryTree.getCategory(value);
+                return category != null ? category.getName() : null;
+            case COACH:
+                return coachNames.get(value);
+            default:
+                return value >= 0 && value < facet.labels.length ? facet.labels[value.intValue()] : null;
+        }
+    }
+
+    /**
+     * 筛选项
+     */
+    private enum Facet {
+
+        CATEGORY("categoryId", Course::getCategoryId, CourseQueryDTO::getCategoryId),
+        COACH("coachId", Course::getCoachId, CourseQueryDTO::getCoachId),
+        TYPE("type", Course::getType, CourseQueryDTO::getType, "团课", "私教"),
+        DIFFICULTY("difficulty", Course::getDifficulty, CourseQueryDTO::getDifficulty, "初级", "中级", "高级"),
+        STATUS("status", Course::getStatus, CourseQueryDTO::getStatus, "未上架", "已上架", "已下架");
+
+        private final String field;
+
+        private final Function<Course, Object> courseValue;
+
+        private final Function<CourseQueryDTO, Object> queryValue;
+
+        /**
+         * 取值对应的名称，分类名称取自分类树，教练姓名从数据库加载
+         */
+        private final String[] labels;
+
+        Facet(String field, Function<Course, Object> courseValue, Function<CourseQueryDTO, Object> queryValue, String... labels) {
+            this.field = field;
+            this.courseValue = courseValue;
+            this.queryValue = queryValue;
+            this.labels = labels;
+        }
+    }
+
+    /**
+     * 索引数据，重建时整体替换
+     */
+    private static final class Snapshot {
+
+        /**
+         * 编号 -> 课程，已移除的编号为null
+         */
+        private final List<Course> courses = new ArrayList<>();
+
+        /**
+         * 课程ID -> 编号
+         */
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+
+        private final RoaringBitmap live = new RoaringBitmap();
+
+        private final Map<Facet, Map<Object, RoaringBitmap>> facets = new EnumMap<>(Facet.class);
+
+        private final NavigableMap<BigDecimal, RoaringBitmap> byPrice = new TreeMap<>();
+
+        private Snapshot() {
+            for (Facet facet : Facet.values()) {
+                facets.put(facet, new HashMap<>());
+            }
+        }
+
+        private void put(Course course, int ordinal) {
+            while (courses.size() <= ordinal) {
+                courses.add(null);
+            }
+            courses.set(ordinal, course);
+            ordinals.put(course.getId(), ordinal);
+            live.add(ordinal);
+            for (Facet facet : Facet.values()) {
+                Object value = facet.courseValue.apply(course);
+                if (value != null) {
+                    facets.get(facet).computeIfAbsent(value, k -> new RoaringBitmap()).add(ordinal);
+                }
+            }
+            if (course.getPrice() != null) {
+                byPrice.computeIfAbsent(course.getPrice(), k -> new RoaringBitmap()).add(ordinal);
+            }
+        }
+
+        /**
+         * 移除课程
+         * @return 原编号，不在索引中时返回null
+         */
+        private Integer remove(Long courseId) {
+            Integer ordinal = ordinals.remove(courseId);
+            if (ordinal == null) {
+                return null;
+            }
+            Course course = courses.set(ordinal, null);
+            live.remove(ordinal);
+            for (Facet facet : Facet.values()) {
+                Object value = facet.courseValue.apply(course);
+                if (value != null) {
+                    removeFrom(facets.get(facet), value, ordinal);
+                }
+            }
+            if (course.getPrice() != null) {
+                removeFrom(byPrice, course.getPrice(), ordinal);
+            }
+            return ordinal;
+        }
+
+        private RoaringBitmap priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+            NavigableMap<BigDecimal, RoaringBitmap> range = byPrice;
+            if (minPrice != null) {
+                range = range.tailMap(minPrice, true);
+            }
+            if (maxPrice != null) {
+                range = range.headMap(maxPrice, true);
+            }
+            return RoaringBitmap.or(range.values().iterator());
+        }
+
+        /**
+         * 课程名称包含指定内容的课程，需要逐个比较名称
+         */
+        private RoaringBitmap nameContains(String name) {
+            RoaringBitmap result = new RoaringBitmap();
+            for (int ordinal : live) {
+                String courseName = courses.get(ordinal).getName();
+                if (courseName != null && courseName.contains(name)) {
+                    result.add(ordinal);
+                }
+            }
+            return result;
+        }
+
+        private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int ordinal) {
+            RoaringBitmap bitmap = bitmaps.get(key);
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+}
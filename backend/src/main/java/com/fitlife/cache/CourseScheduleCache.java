@@ -0,0 +1,179 @@
+package com.fitlife.cache;
+
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.event.CourseSchedulesChangedEvent;
+import com.fitlife.mapper.CourseScheduleMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 课程时间安排本地缓存（按ID）
+ * 有界缓存，按数量和写入时间淘汰。每个ID对应一个版本号（按ID分段），缓存项记录加载前读取的版本号，
+ * 写入时先递增版本号再移除缓存项，读取时版本号不一致视为未命中，避免并发加载把旧数据写回缓存。
+ * 同一HTTP请求内重复读取同一ID只访问一次缓存。返回的是副本，调用方可以修改。
+ * 多节点时其他节点的缓存依靠过期时间失效，名额和状态的最终校验由条件更新语句保证。
+ */
+@Component
+public class CourseScheduleCache {
+
+    /**
+     * 版本号分段数
+     */
+    private static final int VERSION_STRIPES = 4096;
+
+    private static final String REQUEST_CACHE_ATTRIBUTE = CourseScheduleCache.class.getName() + ".REQUEST_CACHE";
+
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fitlife.schedule.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${fitlife.schedule.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private Cache<Long, Entry> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        // 命中率、淘汰数等指标：/actuator/metrics/cache.gets、cache.evictions（cache=courseSchedule）
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "courseSchedule");
+    }
+
+    /**
+     * 查询课程时间安排
+     * @param scheduleId 课程时间安排ID
+     * @return 课程时间安排副本，不存在时返回null
+     */
+    public CourseSchedule get(Long scheduleId) {
+        long version = versions.get(stripe(scheduleId));
+        Map<Long, Entry> requestCache = requestCache();
+        Entry entry = requestCache == null ? null : requestCache.get(scheduleId);
+        if (entry == null || entry.version != version) {
+            entry = load(scheduleId, version);
+            if (requestCache != null) {
+                requestCache.put(scheduleId, entry);
+            }
+        }
+        return entry.schedule == null ? null : copy(entry.schedule);
+    }
+
+    /**
+     * 使缓存失效，写入课程时间安排后调用
+     * @param scheduleId 课程时间安排ID
+     */
+    public void invalidate(Long scheduleId) {
+        versions.incrementAndGet(stripe(scheduleId));
+        cache.invalidate(scheduleId);
+    }
+
+    /**
+     * 事务提交后再次失效，丢弃事务提交前加载的数据
+     * @param event 课程时间安排变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(CourseScheduleChangedEvent event) {
+        invalidate(event.getScheduleId());
+    }
+
+    /**
+     * 批量变更后逐个失效
+     * @param event 课程时间安排批量变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchedulesChanged(CourseSchedulesChangedEvent event) {
+        for (Long scheduleId : event.getScheduleIds()) {
+            invalidate(scheduleId);
+        }
+    }
+
+    private Entry load(Long scheduleId, long version) {
+        Entry entry = cache.get(scheduleId, id -> new Entry(version, courseScheduleMapper.selectById(id)));
+        if (entry.version < version) {
+            // 缓存项在写入之前加载（或版本号分段冲突），重新加载
+            cache.invalidate(scheduleId);
+            entry = cache.get(scheduleId, id -> new Entry(version, courseScheduleMapper.selectById(id)));
+        }
+        if (entry.version < version) {
+            // 并发写入时直接读取数据库，不写入缓存
+            entry = new Entry(version, courseScheduleMapper.selectById(scheduleId));
+        }
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, Entry> requestCache() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<Long, Entry> requestCache = (Map<Long, Entry>) attributes.getAttribute(REQUEST_CACHE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (requestCache == null) {
+            requestCache = new HashMap<>();
+            attributes.setAttribute(REQUEST_CACHE_ATTRIBUTE, requestCache, RequestAttributes.SCOPE_REQUEST);
+        }
+        return requestCache;
+    }
+
+    private static int stripe(Long scheduleId) {
+        return (int) (scheduleId & (VERSION_STRIPES - 1));
+    }
+
+    private static CourseSchedule copy(CourseSchedule source) {
+        CourseSchedule schedule = new CourseSchedule();
+        schedule.setId(source.getId());
+        schedule.setCourseId(source.getCourseId());
+        schedule.setCourseName(source.getCourseName());
+        schedule.setCoachName(source.getCoachName());
+        schedule.setStartTime(source.getStartTime());
+        schedule.setEndTime(source.getEndTime());
+        schedule.setLocation(source.getLocation());
+        schedule.setMaxPeople(source.getMaxPeople());
+        schedule.setBookedPeople(source.getBookedPeople());
+        schedule.setStatus(source.getStatus());
+        schedule.setCreateTime(source.getCreateTime());
+        schedule.setUpdateTime(source.getUpdateTime());
+        schedule.setDeleted(source.getDeleted());
+        return schedule;
+    }
+
+    /**
+     * 缓存项，schedule为空表示不存在
+     */
+    private static final class Entry {
+
+        private final long version;
+
+        private final CourseSchedule schedule;
+
+        private Entry(long version, CourseSchedule schedule) {
+            this.version = version;
+            this.schedule = schedule;
+        }
+    }
+}
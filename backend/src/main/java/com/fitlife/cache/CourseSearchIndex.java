@@ -0,0 +1,286 @@
+package com.fitlife.cache;
+
+import com.fitlife.entity.Course;
+import com.fitlife.entity.PageResult;
+import com.fitlife.mapper.CourseMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * 课程全文搜索索引
+ * 对课程名称、描述和标签建立倒排索引，按字符切分（单字和相邻两字），不依赖中文分词词典。
+ * 查询时关键词按相邻两字切分，要求课程包含全部词项（近似子串匹配），
+ * 从文档数最少的词项开始求交集，按 词频 × 字段权重 × 逆文档频率 计算相关度。
+ * 课程新增、修改、上下架后增量更新，并定时全量重建。
+ */
+@Slf4j
+@Component
+public class CourseSearchIndex {
+
+    private static final float NAME_WEIGHT = 3f;
+
+    private static final float TAGS_WEIGHT = 2f;
+
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    /**
+     * 关键词最大长度，超出部分忽略
+     */
+    private static final int MAX_KEYWORD_LENGTH = 50;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final SnapshotRebuilder<Long> rebuilder = new SnapshotRebuilder<>(lock.writeLock());
+
+    private Snapshot snapshot = new Snapshot();
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 按关键词搜索课程
+     * @param keyword 关键词
+     * @param filter 其他查询条件
+     * @param pageNum 页码
+     * @param pageSize 每页数量
+     * @return 按相关度排序的分页结果（课程为副本）
+     */
+    public PageResult<Course> search(String keyword, Predicate<Course> filter, int pageNum, int pageSize) {
+        List<String> terms = new ArrayList<>(queryTerms(keyword));
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Snapshot current = snapshot;
+            if (!terms.isEmpty()) {
+                List<Map<Long, Float>> postings = new ArrayList<>(terms.size());
+                for (String term : terms) {
+                    Map<Long, Float> posting = current.postings.get(term);
+                    if (posting == null) {
+                        return new PageResult<>(Collections.<Course>emptyList(), 0L, (long) pageSize, (long) pageNum);
+                    }
+                    postings.add(posting);
+                }
+                postings.sort(Comparator.comparingInt(Map::size));
+
+                // 从文档数最少的词项开始，逐个检查其余词项
+                int total = current.courses.size();
+                Map<Long, Float> rarest = postings.get(0);
+                for (Map.Entry<Long, Float> entry : rarest.entrySet()) {
+                    Course course = current.courses.get(entry.getKey());
+                    if (!filter.test(course)) {
+                        continue;
+                    }
+                    double score = entry.getValue() * idf(total, rarest.size());
+                    for (int i = 1; i < postings.size() && score > 0; i++) {
+                        Float frequency = postings.get(i).get(entry.getKey());
+                        score = frequency == null ? 0 : score + frequency * idf(total, postings.get(i).size());
+                    }
+                    if (score > 0) {
+                        hits.add(new Hit(course, score));
+                    }
+                }
+            }
+
+            hits.sort(Hit.ORDER);
+            int from = (int) Math.min((long) Math.max(pageNum - 1, 0) * pageSize, hits.size());
+            int to = Math.min(from + pageSize, hits.size());
+            List<Course> records = new ArrayList<>(to - from);
+            for (Hit hit : hits.subList(from, to)) {
+                Course course = new Course();
+                BeanUtils.copyProperties(hit.course, course);
+                records.add(course);
+            }
+            return new PageResult<>(records, (long) hits.size(), (long) pageSize, (long) pageNum);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 课程新增、修改、上下架或预约人数变化后更新索引
+     * @param course 课程
+     */
+    public void onCourseChanged(Course course) {
+        lock.writeLock().lock();
+        try {
+            snapshot.remove(course.getId());
+            if (course.getDeleted() == null || course.getDeleted() == 0) {
+                Course copy = new Course();
+                BeanUtils.copyProperties(course, copy);
+                snapshot.put(copy);
+            }
+            rebuilder.changed(course.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 全量重建索引
+     */
+    @Scheduled(fixedDelayString = "${fitlife.course.search.rebuild-interval-ms:600000}",
+            initialDelayString = "${fitlife.course.search.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        rebuilder.rebuild(() -> {
+            Snapshot rebuilt = new Snapshot();
+            for (Course course : courseMapper.selectUndeleted()) {
+                rebuilt.put(course);
+            }
+            return rebuilt;
+        }, (rebuilt, courseId) -> {
+            // 重建期间有变更的课程以当前索引为准
+            rebuilt.remove(courseId);
+            Course course = snapshot.courses.get(courseId);
+            if (course != null) {
+                rebuilt.put(course);
+            }
+        }, rebuilt -> {
+            snapshot = rebuilt;
+            log.debug("课程搜索索引重建完成: courses={}, terms={}", rebuilt.courses.size(), rebuilt.postings.size());
+        });
+    }
+
+    private static double idf(int total, int documentFrequency) {
+        return Math.log(1 + (double) total / documentFrequency);
+    }
+
+    /**
+     * 切分索引词项：每个字母数字片段的单字和相邻两字
+     */
+    private static void indexTerms(String text, float weight, Map<String, Float> frequencies) {
+        for (String segment : segments(text, Integer.MAX_VALUE)) {
+            for (int i = 0; i < segment.length(); i++) {
+                frequencies.merge(segment.substring(i, i + 1), weight, Float::sum);
+                if (i + 1 < segment.length()) {
+                    frequencies.merge(segment.substring(i, i + 2), weight, Float::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * 切分查询词项：单字片段使用单字，其余使用相邻两字
+     */
+    private static Set<String> queryTerms(String keyword) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String segment : segments(keyword, MAX_KEYWORD_LENGTH)) {
+            if (segment.length() == 1) {
+                terms.add(segment);
+            }
+            for (int i = 0; i + 1 < segment.length(); i++) {
+                terms.add(segment.substring(i, i + 2));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 按非字母数字字符切分并转为小写
+     */
+    private static List<String> segments(String text, int maxLength) {
+        List<String> segments = new ArrayList<>();
+        if (text == null) {
+            return segments;
+        }
+        StringBuilder segment = new StringBuilder();
+        int length = Math.min(text.length(), maxLength);
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                segment.append(Character.toLowerCase(c));
+            } else if (segment.length() > 0) {
+                segments.add(segment.toString());
+                segment.setLength(0);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * 索引数据，重建时整体替换
+     */
+    private static final class Snapshot {
+
+        private final Map<Long, Course> courses = new HashMap<>();
+
+        /**
+         * 词项 -> 课程ID -> 加权词频
+         */
+        private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+
+        /**
+         * 课程ID -> 词项，用于更新时移除旧词项
+         */
+        private final Map<Long, Set<String>> courseTerms = new HashMap<>();
+
+        private void put(Course course) {
+            Map<String, Float> frequencies = new HashMap<>();
+            indexTerms(course.getName(), NAME_WEIGHT, frequencies);
+            indexTerms(course.getTags(), TAGS_WEIGHT, frequencies);
+            indexTerms(course.getDescription(), DESCRIPTION_WEIGHT, frequencies);
+            courses.put(course.getId(), course);
+            courseTerms.put(course.getId(), frequencies.keySet());
+            for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(course.getId(), entry.getValue());
+            }
+        }
+
+        private void remove(Long courseId) {
+            courses.remove(courseId);
+            Set<String> terms = courseTerms.remove(courseId);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                Map<Long, Float> posting = postings.get(term);
+                posting.remove(courseId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * 搜索结果
+     */
+    private static final class Hit {
+
+        /**
+         * 相关度降序，相同时按创建时间降序
+         */
+        private static final Comparator<Hit> ORDER = Comparator.comparingDouble((Hit hit) -> hit.score).reversed()
+                .thenComparing(hit -> hit.course.getCreateTime(), Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+                .thenComparing(hit -> hit.course.getId());
+
+        private final Course course;
+
+        private final double score;
+
+        private Hit(Course course, double score) {
+            this.course = course;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package com.fitlife.cache;
+
+import com.fitlife.dto.CourseRecommendationDTO;
+import com.fitlife.entity.Course;
+import com.fitlife.entity.CourseBooking;
+import com.fitlife.mapper.CourseBookingMapper;
+import com.fitlife.mapper.CourseMapper;
+import com.fitlife.util.LongIntHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 课程相似度索引（预约过该课程的会员还预约了）
+ * 每个会员预约过的课程构成一个集合，两门课程的共同预约会员数保存在以课程序号对为键的基本类型哈希表中，
+ * 相似度为 共同预约会员数 / sqrt(两门课程各自的预约会员数之积)（余弦相似度），
+ * 每门课程预先计算相似度最高的前N门课程，查询时直接读取。
+ * 全量重建流式读取全部有效预约，在独立的ForkJoin线程池中按会员分段并行统计共同预约后合并；
+ * 增量更新按预约ID读取新增预约，只累加新课程与该会员已预约课程的共同预约数。
+ * 增量更新不处理取消的预约和提交顺序晚于更大ID的预约，由每日全量重建修正。
+ */
+@Slf4j
+@Component
+public class CourseSimilarityIndex {
+
+    /**
+     * 单次查询的最大数量
+     */
+    private static final int MAX_LIMIT = 50;
+
+    /**
+     * 增量更新每批读取的预约数量
+     */
+    private static final int REFRESH_BATCH_SIZE = 5000;
+
+    /**
+     * 统计共同预约时每个并行任务处理的会员数
+     */
+    private static final int MEMBER_SPLIT_THRESHOLD = 1024;
+
+    /**
+     * 计算相似课程时每个并行任务处理的课程数
+     */
+    private static final int COURSE_SPLIT_THRESHOLD = 64;
+
+    @Autowired
+    private CourseBookingMapper courseBookingMapper;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${fitlife.course.recommend.top-n:20}")
+    private int topN;
+
+    @Value("${fitlife.course.recommend.min-co-bookings:2}")
+    private int minCoBookings;
+
+    @Value("${fitlife.course.recommend.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    /**
+     * 共同预约统计，只在持有本对象锁时访问
+     */
+    private Model model = new Model();
+
+    /**
+     * 已上架课程ID -> 相似课程（只读），每次计算后整体替换
+     */
+    private volatile Map<Long, List<CourseRecommendationDTO>> similar = Collections.emptyMap();
+
+    /**
+     * 是否已完成全量重建，完成前增量更新改为全量重建
+     */
+    private volatile boolean built;
+
+    /**
+     * 启动时在后台线程中全量重建，不阻塞应用启动，完成前查询返回空列表
+     */
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        Thread loader = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("课程相似度索引初始化失败，下次增量更新时重试", e);
+            }
+        }, "course-similarity-init");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 查询相似课程
+     * @param courseId 课程ID
+     * @param limit 查询数量
+     * @return 按相似度降序的已上架课程（只读），课程未上架或没有共同预约时返回空列表
+     */
+    public List<CourseRecommendationDTO> getSimilar(Long courseId, int limit) {
+        List<CourseRecommendationDTO> courses = similar.getOrDefault(courseId, Collections.<CourseRecommendationDTO>emptyList());
+        int size = Math.min(Math.min(Math.max(limit, 0), MAX_LIMIT), courses.size());
+        return courses.subList(0, size);
+    }
+
+    /**
+     * 全量重建：流式读取全部有效预约，并行统计共同预约
+     */
+    @Scheduled(cron = "${fitlife.course.recommend.rebuild-cron:0 30 3 * * ?}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Model rebuilt = new Model();
+        long[] bookings = new long[1];
+        transactionTemplate.execute(status -> {
+            try (Cursor<CourseBooking> cursor = courseBookingMapper.streamActiveBookings()) {
+                for (CourseBooking booking : cursor) {
+                    rebuilt.watermark = Math.max(rebuilt.watermark, booking.getId());
+                    if (booking.getMemberId() != null && booking.getCourseId() != null) {
+                        rebuilt.addMember(booking.getMemberId(), rebuilt.ordinal(booking.getCourseId()));
+                        bookings[0]++;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        long loaded = System.currentTimeMillis();
+
+        List<int[]> baskets = new ArrayList<>(rebuilt.baskets.values());
+        rebuilt.pairs = pool.invoke(new PairCountTask(baskets, 0, baskets.size()));
+        model = rebuilt;
+        publish();
+        built = true;
+        log.info("课程相似度索引重建完成: bookings={}, members={}, courses={}, pairs={}, loadMs={}, totalMs={}",
+                bookings[0], baskets.size(), rebuilt.size, rebuilt.pairs.size(), loaded - start, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 增量更新：计入上次更新之后新增的预约，并重新计算相似课程（同时同步课程上下架）
+     */
+    @Scheduled(fixedDelayString = "${fitlife.course.recommend.refresh-interval-ms:60000}",
+            initialDelayString = "${fitlife.course.recommend.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        if (!built) {
+            // 统计为空时按ID增量读取等同于逐批读取全部预约，直接全量重建
+            rebuild();
+            return;
+        }
+        int added = 0;
+        List<CourseBooking> bookings;
+        do {
+            bookings = courseBookingMapper.selectAfterId(model.watermark, REFRESH_BATCH_SIZE);
+            for (CourseBooking booking : bookings) {
+                model.watermark = Math.max(model.watermark, booking.getId());
+                boolean active = (booking.getStatus() == null || booking.getStatus() != 2)
+                        && (booking.getDeleted() == null || booking.getDeleted() == 0);
+                if (active && booking.getMemberId() != null && booking.getCourseId() != null
+                        && model.add(booking.getMemberId(), booking.getCourseId())) {
+                    added++;
+                }
+            }
+        } while (bookings.size() == REFRESH_BATCH_SIZE);
+        publish();
+        log.debug("课程相似度索引增量更新完成: added={}, pairs={}", added, model.pairs.size());
+    }
+
+    /**
+     * 按当前统计并行计算每门已上架课程的相似课程
+     */
+    private void publish() {
+        Map<Long, String> names = new HashMap<>();
+        for (Course course : courseMapper.selectPublished()) {
+            names.put(course.getId(), course.getName());
+        }
+        Graph graph = new Graph(model, names, minCoBookings);
+        pool.invoke(new TopNTask(graph, 0, model.size));
+
+        Map<Long, List<CourseRecommendationDTO>> result = new HashMap<>();
+        for (int course = 0; course < model.size; course++) {
+            if (graph.similar[course] != null) {
+                result.put(model.courseIds[course], graph.similar[course]);
+            }
+        }
+        similar = Collections.unmodifiableMap(result);
+    }
+
+    private static long pairKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    private static void countPairs(int[] basket, LongIntHashMap pairs) {
+        for (int i = 0; i < basket.length; i++) {
+            for (int j = i + 1; j < basket.length; j++) {
+                pairs.addTo(pairKey(basket[i], basket[j]), 1);
+            }
+        }
+    }
+
+    /**
+     * 共同预约统计，课程按首次出现顺序编号
+     */
+    private static final class Model {
+
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+
+        private long[] courseIds = new long[64];
+
+        /**
+         * 课程序号 -> 预约过该课程的会员数
+         */
+        private int[] memberCounts = new int[64];
+
+        private int size;
+
+        /**
+         * 会员ID -> 预约过的课程序号（不重复）
+         */
+        private final Map<Long, int[]> baskets = new HashMap<>();
+
+        /**
+         * 课程序号对 -> 共同预约会员数
+         */
+        private LongIntHashMap pairs = new LongIntHashMap();
+
+        /**
+         * 已计入的最大预约ID
+         */
+        private long watermark;
+
+        private int ordinal(Long courseId) {
+            Integer ordinal = ordinals.get(courseId);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            if (size == courseIds.length) {
+                courseIds = Arrays.copyOf(courseIds, size << 1);
+                memberCounts = Arrays.copyOf(memberCounts, size << 1);
+            }
+            courseIds[size] = courseId;
+            ordinals.put(courseId, size);
+            return size++;
+        }
+
+        /**
+         * 计入一次预约并累加共同预约数
+         * @return 是否为该会员首次预约该课程
+         */
+        private boolean add(Long memberId, Long courseId) {
+            int course = ordinal(courseId);
+            int[] basket = baskets.get(memberId);
+            if (basket != null) {
+                for (int other : basket) {
+                    if (other == course) {
+                        return false;
+                    }
+                }
+                for (int other : basket) {
+                    pairs.addTo(pairKey(other, course), 1);
+                }
+            }
+            return addMember(memberId, course);
+        }
+
+        /**
+         * 将课程加入会员的预约集合，不累加共同预约数
+         * @return 是否为该会员首次预约该课程
+         */
+        private boolean addMember(Long memberId, int course) {
+            int[] basket = baskets.get(memberId);
+            if (basket == null) {
+                basket = new int[]{course};
+            } else {
+                for (int other : basket) {
+                    if (other == course) {
+                        return false;
+                    }
+                }
+                basket = Arrays.copyOf(basket, basket.length + 1);
+                basket[basket.length - 1] = course;
+            }
+            baskets.put(memberId, basket);
+            memberCounts[course]++;
+            return true;
+        }
+    }
+
+    /**
+     * 按会员分段统计共同预约，子任务结果合并到较大的表中
+     */
+    private static final class PairCountTask extends RecursiveTask<LongIntHashMap> {
+
+        private final List<int[]> baskets;
+
+        private final int from;
+
+        private final int to;
+
+        private PairCountTask(List<int[]> baskets, int from, int to) {
+            this.baskets = baskets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LongIntHashMap compute() {
+            if (to - from <= MEMBER_SPLIT_THRESHOLD) {
+                LongIntHashMap pairs = new LongIntHashMap();
+                for (int i = from; i < to; i++) {
+                    countPairs(baskets.get(i), pairs);
+                }
+                return pairs;
+            }
+            int mid = (from + to) >>> 1;
+            PairCountTask left = new PairCountTask(baskets, from, mid);
+            left.fork();
+            LongIntHashMap right = new PairCountTask(baskets, mid, to).compute();
+            LongIntHashMap leftPairs = left.join();
+            if (leftPairs.size() < right.size()) {
+                right.addAll(leftPairs);
+                return right;
+            }
+            leftPairs.addAll(right);
+            return leftPairs;
+        }
+    }
+
+    /**
+     * 共同预约关系的邻接表，只保留共同预约数达到下限的课程对
+     */
+    private static final class Graph {
+
+        private final long[] courseIds;
+
+        private final int[] memberCounts;
+
+        private final Map<Long, String> names;
+
+        private final int[][] neighbours;
+
+        private final int[][] coCounts;
+
+        private final List<CourseRecommendationDTO>[] similar;
+
+        @SuppressWarnings("unchecked")
+        private Graph(Model model, Map<Long, String> names, int minCoBookings) {
+            int size = model.size;
+            this.courseIds = model.courseIds;
+            this.memberCounts = model.memberCounts;
+            this.names = names;
+            int[] degrees = new int[size];
+            model.pairs.forEach((key, count) -> {
+                if (count >= minCoBookings) {
+                    degrees[(int) (key >>> 32)]++;
+                    degrees[(int) key]++;
+                }
+            });
+            neighbours = new int[size][];
+            coCounts = new int[size][];
+            for (int i = 0; i < size; i++) {
+                neighbours[i] = new int[degrees[i]];
+                coCounts[i] = new int[degrees[i]];
+            }
+            int[] filled = new int[size];
+            model.pairs.forEach((key, count) -> {
+                if (count >= minCoBookings) {
+                    link((int) (key >>> 32), (int) key, count, filled);
+                    link((int) key, (int) (key >>> 32), count, filled);
+                }
+            });
+            similar = new List[size];
+        }
+
+        private void link(int course, int other, int count, int[] filled) {
+            neighbours[course][filled[course]] = other;
+            coCounts[course][filled[course]] = count;
+            filled[course]++;
+        }
+    }
+
+    /**
+     * 按课程分段计算相似度最高的前N门已上架课程
+     */
+    private final class TopNTask extends RecursiveAction {
+
+        private final Graph graph;
+
+        private final int from;
+
+        private final int to;
+
+        private TopNTask(Graph graph, int from, int to) {
+            this.graph = graph;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= COURSE_SPLIT_THRESHOLD) {
+                for (int course = from; course < to; course++) {
+                    if (graph.names.containsKey(graph.courseIds[course])) {
+                        graph.similar[course] = topN(course);
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TopNTask(graph, from, mid), new TopNTask(graph, mid, to));
+        }
+
+        private List<CourseRecommendationDTO> topN(int course) {
+            int[] neighbours = graph.neighbours[course];
+            int[] coCounts = graph.coCounts[course];
+            List<CourseRecommendationDTO> candidates = new ArrayList<>(neighbours.length);
+            for (int i = 0; i < neighbours.length; i++) {
+                Long otherId = graph.courseIds[neighbours[i]];
+                String name = graph.names.get(otherId);
+                if (name == null) {
+                    continue;
+                }
+                CourseRecommendationDTO dto = new CourseRecommendationDTO();
+                dto.setCourseId(otherId);
+                dto.setCourseName(name);
+                dto.setScore(coCounts[i] / Math.sqrt((double) graph.memberCounts[course] * graph.memberCounts[neighbours[i]]));
+                dto.setCoBookedMembers(coCounts[i]);
+                candidates.add(dto);
+            }
+            // 相似度降序，相同时共同预约数多的在前
+            candidates.sort((a, b) -> {
+                int compare = Double.compare(b.getScore(), a.getScore());
+                if (compare == 0) {
+                    compare = Integer.compare(b.getCoBookedMembers(), a.getCoBookedMembers());
+                }
+                return compare != 0 ? compare : Long.compare(a.getCourseId(), b.getCourseId());
+            });
+            return Collections.unmodifiableList(new ArrayList<>(candidates.subList(0, Math.min(topN, candidates.size()))));
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.fitlife.cache;
+
+import com.fitlife.dto.CourseDailyBookingDTO;
+import com.fitlife.entity.Course;
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.mapper.CourseBookingMapper;
+import com.fitlife.mapper.CourseMapper;
+import com.fitlife.mapper.CourseScheduleMapper;
+import com.fitlife.task.CourseBookedCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 热门课程排行
+ * 已上架课程按分数有序保存（分数降序、ID升序），查询前K名只需顺序读取K个元素。
+ * 热门排行的分数为课程已预约人数；趋势排行按预约时间衰减（前向衰减：预约计入 2^((预约时间-基准时间)/半衰期)，
+ * 所有课程按同一基准时间计分，排序与当前时刻衰减后的分数一致，无需随时间更新）。
+ * 预约人数变化时增量更新，定时与数据库对账并重置基准时间。
+ */
+@Slf4j
+@Component
+public class HotCourseRanking {
+
+    /**
+     * 单次查询的最大数量
+     */
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private CourseBookingMapper courseBookingMapper;
+
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    @Autowired
+    private ScheduleIntervalIndex scheduleIntervalIndex;
+
+    @Autowired
+    private CourseBookedCounter courseBookedCounter;
+
+    @Value("${fitlife.course.ranking.trending-half-life-hours:72}")
+    private double halfLifeHours;
+
+    @Value("${fitlife.course.ranking.trending-window-days:14}")
+    private int trendingWindowDays;
+
+    /**
+     * 已上架课程，排行返回这些对象的副本
+     */
+    private Map<Long, Course> courses = new HashMap<>();
+
+    private Ranking hot = new Ranking();
+
+    private Ranking trending = new Ranking();
+
+    /**
+     * 趋势分数的基准时间（毫秒）
+     */
+    private long landmarkMillis = System.currentTimeMillis();
+
+    @PostConstruct
+    public void init() {
+        reconcile();
+    }
+
+    /**
+     * 查询排行前列的课程
+     * @param limit 查询数量
+     * @param trendingRanking 是否按时间衰减的趋势排行
+     * @return 课程列表
+     */
+    public synchronized List<Course> top(int limit, boolean trendingRanking) {
+        List<Course> result = new ArrayList<>(Math.min(Math.max(limit, 0), MAX_LIMIT));
+        for (Long courseId : (trendingRanking ? trending : hot).top(Math.min(limit, MAX_LIMIT))) {
+            Course course = new Course();
+            BeanUtils.copyProperties(courses.get(courseId), course);
+            result.add(course);
+        }
+        return result;
+    }
+
+    /**
+     * 课程新增、修改、上下架后更新排行
+     * @param course 课程
+     */
+    public synchronized void onCourseChanged(Course course) {
+        Long courseId = course.getId();
+        boolean published = course.getStatus() != null && course.getStatus() == 1
+                && (course.getDeleted() == null || course.getDeleted() == 0);
+        if (!published) {
+            courses.remove(courseId);
+            hot.remove(courseId);
+            trending.remove(courseId);
+            return;
+        }
+        Course snapshot = new Course();
+        BeanUtils.copyProperties(course, snapshot);
+        // 数据库中的已预约人数不含尚未写入的变化量
+        snapshot.setBookedPeople((int) (bookedPeople(course) + courseBookedCounter.getPending(courseId)));
+        courses.put(courseId, snapshot);
+        hot.set(courseId, bookedPeople(snapshot));
+        if (!trending.contains(courseId)) {
+            trending.set(courseId, 0);
+        }
+    }
+
+    /**
+     * 课程已预约人数变化
+     * @param courseId 课程ID
+     * @param delta 变化量
+     */
+    public synchronized void onCourseBooked(Long courseId, int delta) {
+        Course course = courses.get(courseId);
+        if (course == null) {
+            return;
+        }
+        course.setBookedPeople(bookedPeople(course) + delta);
+        hot.set(courseId, course.getBookedPeople());
+        trending.add(courseId, delta * weight(System.currentTimeMillis()));
+    }
+
+    /**
+     * 课程时间安排预约人数变化后计入热门和趋势排行
+     * @param event 课程时间安排变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(CourseScheduleChangedEvent event) {
+        if (event.getBookedDelta() == null) {
+            return;
+        }
+        CourseSchedule schedule = scheduleIntervalIndex.findById(event.getScheduleId());
+        if (schedule == null) {
+            schedule = courseScheduleMapper.selectById(event.getScheduleId());
+        }
+        if (schedule == null) {
+            return;
+        }
+        onCourseBooked(schedule.getCourseId(), event.getBookedDelta());
+    }
+
+    /**
+     * 与数据库对账：重新加载已上架课程和近期预约，重置趋势分数的基准时间
+     * 对账期间的增量更新可能被覆盖或重复计入，误差在下次对账时修正
+     */
+    @Scheduled(fixedDelayString = "${fitlife.course.ranking.reconcile-interval-ms:300000}",
+            initialDelayString = "${fitlife.course.ranking.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long landmark = System.currentTimeMillis();
+        Map<Long, Course> published = new HashMap<>();
+        Ranking rebuiltHot = new Ranking();
+        Ranking rebuiltTrending = new Ranking();
+        for (Course course : courseMapper.selectPublished()) {
+            course.setBookedPeople((int) (bookedPeople(course) + courseBookedCounter.getPending(course.getId())));
+            published.put(course.getId(), course);
+            rebuiltHot.set(course.getId(), bookedPeople(course));
+            rebuiltTrending.set(course.getId(), 0);
+        }
+        LocalDateTime since = LocalDateTime.now().minusDays(trendingWindowDays);
+        for (CourseDailyBookingDTO daily : courseBookingMapper.countDailyBookingsSince(since)) {
+            // 按当天中午计算衰减
+            long bookingMillis = daily.getBookingDate().atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            rebuiltTrending.add(daily.getCourseId(), daily.getBookingCount() * weight(bookingMillis, landmark));
+        }
+        synchronized (this) {
+            courses = published;
+            hot = rebuiltHot;
+            trending = rebuiltTrending;
+            landmarkMillis = landmark;
+        }
+        log.debug("热门课程排行对账完成: courses={}", published.size());
+    }
+
+    private double weight(long timeMillis) {
+        return weight(timeMillis, landmarkMillis);
+    }
+
+    private double weight(long timeMillis, long landmark) {
+        double halfLifeMillis = Duration.ofMinutes((long) (halfLifeHours * 60)).toMillis();
+        return Math.pow(2, (timeMillis - landmark) / halfLifeMillis);
+    }
+
+    private static int bookedPeople(Course course) {
+        return course.getBookedPeople() == null ? 0 : course.getBookedPeople();
+    }
+
+    /**
+     * 按分数排序的课程集合
+     */
+    private static final class Ranking {
+
+        private static final Comparator<Node> ORDER =
+                Comparator.comparingDouble((Node node) -> node.score).reversed().thenComparingLong(node -> node.courseId);
+
+        private final Map<Long, Node> nodes = new HashMap<>();
+
+        private final TreeSet<Node> order = new TreeSet<>(ORDER);
+
+        private boolean contains(Long courseId) {
+            return nodes.containsKey(courseId);
+        }
+
+        private void set(Long courseId, double score) {
+            remove(courseId);
+            Node node = new Node(courseId, score);
+            nodes.put(courseId, node);
+            order.add(node);
+        }
+
+        /**
+         * 增加分数，不在排行中的课程忽略
+         */
+        private void add(Long courseId, double delta) {
+            Node node = nodes.get(courseId);
+            if (node != null) {
+                set(courseId, node.score + delta);
+            }
+        }
+
+        private void remove(Long courseId) {
+            Node node = nodes.remove(courseId);
+            if (node != null) {
+                order.remove(node);
+            }
+        }
+
+        private List<Long> top(int limit) {
+            List<Long> courseIds = new ArrayList<>(Math.max(limit, 0));
+            Iterator<Node> iterator = order.iterator();
+            while (courseIds.size() < limit && iterator.hasNext()) {
+                courseIds.add(iterator.next().courseId);
+            }
+            return courseIds;
+        }
+    }
+
+    private static final class Node {
+
+        private final long courseId;
+
+        private final double score;
+
+        private Node(long courseId, double score) {
+            this.courseId = courseId;
+            this.score = score;
+        }
+    }
+}
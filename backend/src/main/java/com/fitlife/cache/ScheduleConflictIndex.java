@@ -0,0 +1,510 @@
+package com.fitlife.cache;
+
+import com.fitlife.dto.ScheduleConflictDTO;
+import com.fitlife.entity.Course;
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.event.CourseSchedulesChangedEvent;
+import com.fitlife.mapper.CourseMapper;
+import com.fitlife.mapper.CourseScheduleMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 课程时间安排冲突索引
+ * 按上课地点和教练分别保存未取消课程的时间区间（按上课时间排序），
+ * 检查时只扫描上课时间落在 [开始时间 - 最长课程时长, 结束时间) 内的区间，与总课程数无关。
+ * 只保存上课时间不早于保留期起点的课程，变更后通过事件增量更新，并定时全量重建。
+ * 写入前通过reserve检查并预留时间区间，写入提交后再释放，检查与写入之间其他请求不会通过检查写入冲突的课程。
+ */
+@Slf4j
+@Component
+public class ScheduleConflictIndex {
+
+    public static final String TYPE_LOCATION = "LOCATION";
+
+    public static final String TYPE_COACH = "COACH";
+
+    /**
+     * 单次检查最多返回的冲突数量
+     */
+    private static final int MAX_CONFLICTS = 100;
+
+    /**
+     * 批量重新加载时每次查询的最大ID数量
+     */
+    private static final int RELOAD_BATCH_SIZE = 500;
+
+    private static final Comparator<Interval> INTERVAL_ORDER =
+            Comparator.comparing((Interval interval) -> interval.startTime).thenComparingLong(interval -> interval.id);
+
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Value("${fitlife.schedule.conflict.retention-days:1}")
+    private int retentionDays;
+
+    private volatile Snapshot snapshot = new Snapshot(LocalDateTime.MIN, new HashMap<>());
+
+    /**
+     * 索引数据不是线程安全的，检查、增量更新和替换快照都需持有
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final SnapshotRebuilder<Long> rebuilder = new SnapshotRebuilder<>(lock);
+
+    /**
+     * 已通过检查、尚未写入的时间区间，不随重建替换
+     */
+    private final Snapshot reserved = new Snapshot(LocalDateTime.MIN, new HashMap<>());
+
+    /**
+     * 预留区间的ID，与课程时间安排ID和检查中的临时ID都不重复
+     */
+    private long nextReservedId = Long.MIN_VALUE + 1;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 检查课程时间安排与已有课程、以及彼此之间的上课地点和教练冲突
+     * 已有ID的课程时间安排视为更新，不与自身比较
+     * @param schedules 待写入的课程时间安排
+     * @return 冲突列表（itemIndex为列表中的位置），没有冲突时为空
+     */
+    public List<ScheduleConflictDTO> findConflicts(List<CourseSchedule> schedules) {
+        Map<Long, Long> coaches = loadMissingCoaches(schedules);
+        lock.lock();
+        try {
+            return checkCandidates(candidates(coaches, schedules));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 检查冲突，没有冲突时预留这些时间区间
+     * 预留的区间在其他请求检查时视为已有课程，调用方在写入并提交（索引已随变更事件更新）后关闭预留；有冲突时不预留
+     * @param schedules 待写入的课程时间安排
+     * @return 预留，冲突列表不为空时未预留
+     */
+    public Reservation reserve(List<CourseSchedule> schedules) {
+        Map<Long, Long> coaches = loadMissingCoaches(schedules);
+        lock.lock();
+        try {
+            List<Interval> candidates = candidates(coaches, schedules);
+            List<ScheduleConflictDTO> conflicts = checkCandidates(candidates);
+            List<Long> reservedIds = new ArrayList<>();
+            if (conflicts.isEmpty()) {
+                for (Interval candidate : candidates) {
+                    Interval interval = new Interval(nextReservedId++, candidate.location, candidate.coachId,
+                            candidate.startTime, candidate.endTime);
+                    reserved.add(interval);
+                    reservedIds.add(interval.id);
+                }
+            }
+            return new Reservation(conflicts, reservedIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 生成待检查的时间区间（调用方需持有锁）
+     */
+    private List<Interval> candidates(Map<Long, Long> coaches, List<CourseSchedule> schedules) {
+        Snapshot current = snapshot;
+        current.courseCoaches.putAll(coaches);
+        List<Interval> candidates = new ArrayList<>(schedules.size());
+        for (int i = 0; i < schedules.size(); i++) {
+            CourseSchedule schedule = schedules.get(i);
+            Interval candidate = new Interval(schedule.getId() == null ? -1 - i : schedule.getId(), schedule.getLocation(),
+                    current.courseCoaches.get(schedule.getCourseId()), schedule.getStartTime(), schedule.getEndTime());
+            candidate.itemIndex = i;
+            candidates.add(candidate);
+        }
+        return candidates;
+    }
+
+    private List<ScheduleConflictDTO> checkCandidates(List<Interval> candidates) {
+        Snapshot current = snapshot;
+        List<ScheduleConflictDTO> conflicts = new ArrayList<>();
+        // 与已有课程和其他请求预留的区间比较
+        for (Interval candidate : candidates) {
+            if (candidate.location != null) {
+                collect(conflicts, TYPE_LOCATION, candidate, current.byLocation.get(candidate.location));
+                collect(conflicts, TYPE_LOCATION, candidate, reserved.byLocation.get(candidate.location));
+            }
+            if (candidate.coachId != null) {
+                collect(conflicts, TYPE_COACH, candidate, current.byCoach.get(candidate.coachId));
+                collect(conflicts, TYPE_COACH, candidate, reserved.byCoach.get(candidate.coachId));
+            }
+        }
+        // 同一请求内比较：按上课时间排序后扫描，记录已扫描区间中下课时间最晚的一个
+        sweep(conflicts, TYPE_LOCATION, candidates, interval -> interval.location);
+        sweep(conflicts, TYPE_COACH, candidates, interval -> interval.coachId);
+        return conflicts.size() > MAX_CONFLICTS ? new ArrayList<>(conflicts.subList(0, MAX_CONFLICTS)) : conflicts;
+    }
+
+    /**
+     * 事务提交后增量更新索引
+     * @param event 课程时间安排变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(CourseScheduleChangedEvent event) {
+        if (event.getBookedDelta() != null) {
+            return;
+        }
+        CourseSchedule schedule = event.getCreated() != null
+                ? event.getCreated() : courseScheduleMapper.selectById(event.getScheduleId());
+        update(event.getScheduleId(), schedule, loadMissingCoaches(Collections.singletonList(schedule)));
+    }
+
+    /**
+     * 批量变更后按ID分批重新加载
+     * @param event 课程时间安排批量变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchedulesChanged(CourseSchedulesChangedEvent event) {
+        List<Long> ids = new ArrayList<>(event.getScheduleIds());
+        for (int i = 0; i < ids.size(); i += RELOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(i, Math.min(i + RELOAD_BATCH_SIZE, ids.size()));
+            Map<Long, CourseSchedule> loaded = new HashMap<>();
+            for (CourseSchedule schedule : courseScheduleMapper.selectBatchIds(batch)) {
+                loaded.put(schedule.getId(), schedule);
+            }
+            Map<Long, Long> coaches = loadMissingCoaches(loaded.values());
+            for (Long scheduleId : batch) {
+                update(scheduleId, loaded.get(scheduleId), coaches);
+            }
+        }
+    }
+
+    /**
+     * 全量重建索引，同时刷新课程与教练的对应关系
+     */
+    @Scheduled(fixedDelayString = "${fitlife.schedule.conflict.rebuild-interval-ms:60000}")
+    public void rebuild() {
+        LocalDateTime lowerBound = LocalDateTime.now().minusDays(retentionDays);
+        rebuilder.rebuild(() -> {
+            Snapshot rebuilt = new Snapshot(lowerBound, loadCourseCoaches());
+            for (CourseSchedule schedule : courseScheduleMapper.selectStartingFrom(lowerBound)) {
+                rebuilt.put(schedule);
+            }
+            return rebuilt;
+        }, (rebuilt, scheduleId) -> {
+            // 重建期间有变更的课程时间安排以当前索引为准
+            rebuilt.remove(scheduleId);
+            Interval interval = snapshot.byId.get(scheduleId);
+            if (interval != null && !interval.startTime.isBefore(lowerBound)) {
+                rebuilt.add(interval);
+            }
+        }, rebuilt -> {
+            snapshot = rebuilt;
+            log.debug("课程冲突索引重建完成: size={}, lowerBound={}", rebuilt.byId.size(), lowerBound);
+        });
+    }
+
+    private void update(Long scheduleId, CourseSchedule schedule, Map<Long, Long> coaches) {
+        lock.lock();
+        try {
+            Snapshot current = snapshot;
+            current.courseCoaches.putAll(coaches);
+            current.remove(scheduleId);
+            if (schedule != null) {
+                current.put(schedule);
+            }
+            rebuilder.changed(scheduleId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 查询不在缓存中的课程（新课程）的教练，只查询这些课程，在锁外访问数据库
+     * @return 课程ID -> 教练ID，没有教练或课程不存在时为null
+     */
+    private Map<Long, Long> loadMissingCoaches(Collection<CourseSchedule> schedules) {
+        Set<Long> missing = new HashSet<>();
+        lock.lock();
+        try {
+            Map<Long, Long> courseCoaches = snapshot.courseCoaches;
+            for (CourseSchedule schedule : schedules) {
+                if (schedule != null && schedule.getCourseId() != null && !courseCoaches.containsKey(schedule.getCourseId())) {
+                    missing.add(schedule.getCourseId());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        Map<Long, Long> coaches = new HashMap<>();
+        if (missing.isEmpty()) {
+            return coaches;
+        }
+        for (Long courseId : missing) {
+            coaches.put(courseId, null);
+        }
+        for (Course course : courseMapper.selectCoachIdsByIds(missing)) {
+            coaches.put(course.getId(), course.getCoachId());
+        }
+        return coaches;
+    }
+
+    private Map<Long, Long> loadCourseCoaches() {
+        Map<Long, Long> courseCoaches = new HashMap<>();
+        for (Course course : courseMapper.selectCoachIds()) {
+            courseCoaches.put(course.getId(), course.getCoachId());
+        }
+        return courseCoaches;
+    }
+
+    private static void collect(List<ScheduleConflictDTO> conflicts, String type, Interval candidate, Bucket bucket) {
+        if (bucket == null) {
+            return;
+        }
+        LocalDateTime from = candidate.startTime.minus(bucket.maxDuration);
+        for (Interval existing : bucket.intervals.subSet(Interval.probe(from), true, Interval.probe(candidate.endTime), false)) {
+            if (existing.endTime.isAfter(candidate.startTime) && existing.id != candidate.id) {
+                conflicts.add(toConflict(type, candidate, existing));
+            }
+        }
+    }
+
+    private static void sweep(List<ScheduleConflictDTO> conflicts, String type, List<Interval> candidates,
+                              Function<Interval, Object> keyOf) {
+        Map<Object, List<Interval>> groups = new HashMap<>();
+        for (Interval candidate : candidates) {
+            Object key = keyOf.apply(candidate);
+            if (key != null) {
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(candidate);
+            }
+        }
+        for (List<Interval> group : groups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            group.sort(INTERVAL_ORDER);
+            Interval latest = group.get(0);
+            for (int i = 1; i < group.size(); i++) {
+                Interval candidate = group.get(i);
+                if (candidate.startTime.isBefore(latest.endTime)) {
+                    conflicts.add(toConflict(type, candidate, latest));
+                }
+                if (candidate.endTime.isAfter(latest.endTime)) {
+                    latest = candidate;
+                }
+            }
+        }
+    }
+
+    private static ScheduleConflictDTO toConflict(String type, Interval candidate, Interval other) {
+        ScheduleConflictDTO conflict = new ScheduleConflictDTO();
+        conflict.setType(type);
+        conflict.setItemIndex(candidate.itemIndex);
+        conflict.setLocation(candidate.location);
+        conflict.setCoachId(candidate.coachId);
+        conflict.setStartTime(candidate.startTime);
+        conflict.setEndTime(candidate.endTime);
+        if (other.itemIndex != null) {
+            conflict.setConflictItemIndex(other.itemIndex);
+        } else if (other.id > 0) {
+            conflict.setConflictScheduleId(other.id);
+        }
+        conflict.setConflictStartTime(other.startTime);
+        conflict.setConflictEndTime(other.endTime);
+        return conflict;
+    }
+
+    /**
+     * 冲突检查的预留，关闭时释放预留的时间区间
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final List<ScheduleConflictDTO> conflicts;
+
+        private final List<Long> reservedIds;
+
+        private Reservation(List<ScheduleConflictDTO> conflicts, List<Long> reservedIds) {
+            this.conflicts = conflicts;
+            this.reservedIds = reservedIds;
+        }
+
+        /**
+         * 冲突列表（itemIndex为列表中的位置），为空时已预留
+         * @return 冲突列表
+         */
+        public List<ScheduleConflictDTO> getConflicts() {
+            return conflicts;
+        }
+
+        @Override
+        public void close() {
+            if (reservedIds.isEmpty()) {
+                return;
+            }
+            lock.lock();
+            try {
+                for (Long id : reservedIds) {
+                    reserved.remove(id);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 索引数据，重建时整体替换
+     */
+    private static final class Snapshot {
+
+        /**
+         * 上课时间早于该时间的课程不参与冲突检测
+         */
+        private final LocalDateTime lowerBound;
+
+        /**
+         * 课程ID -> 教练ID
+         */
+        private final Map<Long, Long> courseCoaches;
+
+        private final Map<Long, Interval> byId = new HashMap<>();
+
+        private final Map<String, Bucket> byLocation = new HashMap<>();
+
+        private final Map<Long, Bucket> byCoach = new HashMap<>();
+
+        private Snapshot(LocalDateTime lowerBound, Map<Long, Long> courseCoaches) {
+            this.lowerBound = lowerBound;
+            this.courseCoaches = courseCoaches;
+        }
+
+        private void put(CourseSchedule schedule) {
+            boolean active = (schedule.getDeleted() == null || schedule.getDeleted() == 0)
+                    && !Objects.equals(schedule.getStatus(), 3)
+                    && schedule.getStartTime() != null && schedule.getEndTime() != null
+                    && !schedule.getStartTime().isBefore(lowerBound);
+            if (!active) {
+                return;
+            }
+            add(new Interval(schedule.getId(), schedule.getLocation(),
+                    courseCoaches.get(schedule.getCourseId()), schedule.getStartTime(), schedule.getEndTime()));
+        }
+
+        private void add(Interval interval) {
+            byId.put(interval.id, interval);
+            if (interval.location != null) {
+                byLocation.computeIfAbsent(interval.location, k -> new Bucket()).add(interval);
+            }
+            if (interval.coachId != null) {
+                byCoach.computeIfAbsent(interval.coachId, k -> new Bucket()).add(interval);
+            }
+        }
+
+        private void remove(Long scheduleId) {
+            Interval interval = byId.remove(scheduleId);
+            if (interval == null) {
+                return;
+            }
+            // 分组为空时删除，不保留其最长时长（预留的区间不会重建）
+            if (interval.location != null) {
+                byLocation.computeIfPresent(interval.location, (k, bucket) -> bucket.remove(interval) ? null : bucket);
+            }
+            if (interval.coachId != null) {
+                byCoach.computeIfPresent(interval.coachId, (k, bucket) -> bucket.remove(interval) ? null : bucket);
+            }
+        }
+    }
+
+    /**
+     * 同一上课地点或教练的时间区间
+     */
+    private static final class Bucket {
+
+        private final TreeSet<Interval> intervals = new TreeSet<>(INTERVAL_ORDER);
+
+        /**
+         * 区间的最长时长，只增不减，重建或分组清空时重新计算
+         */
+        private Duration maxDuration = Duration.ZERO;
+
+        private void add(Interval interval) {
+            intervals.add(interval);
+            Duration duration = Duration.between(interval.startTime, interval.endTime);
+            if (duration.compareTo(maxDuration) > 0) {
+                maxDuration = duration;
+            }
+        }
+
+        /**
+         * 移除区间
+         * @return 移除后是否为空
+         */
+        private boolean remove(Interval interval) {
+            intervals.remove(interval);
+            return intervals.isEmpty();
+        }
+    }
+
+    /**
+     * 课程时间区间
+     */
+    private static final class Interval {
+
+        private final long id;
+
+        private final String location;
+
+        private final Long coachId;
+
+        private final LocalDateTime startTime;
+
+        private final LocalDateTime endTime;
+
+        /**
+         * 待检查课程在请求中的位置，已有课程为空
+         */
+        private Integer itemIndex;
+
+        private Interval(long id, String location, Long coachId, LocalDateTime startTime, LocalDateTime endTime) {
+            this.id = id;
+            this.location = location;
+            this.coachId = coachId;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        /**
+         * 范围查询的边界，排在同一上课时间的所有区间之前
+         */
+        private static Interval probe(LocalDateTime startTime) {
+            return new Interval(Long.MIN_VALUE, null, null, startTime, startTime);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.fitlife.cache;
+
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.event.CourseSchedulesChangedEvent;
+import com.fitlife.mapper.CourseScheduleMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 课程时间安排时间索引
+ * 启动时加载保留期起点之后的未删除课程时间安排，按上课时间有序存放在跳表中，
+ * 时间范围查询和即将开始课程查询直接在内存中完成。课程时间安排变更后通过事件增量更新，
+ * 并定时全量重建以修正偏差、移出过期数据。
+ * 索引中的对象视为只读，变更时整体替换，不在原对象上修改。
+ */
+@Slf4j
+@Component
+public class ScheduleIntervalIndex {
+
+    /**
+     * 批量重新加载时每次查询的最大ID数量
+     */
+    private static final int RELOAD_BATCH_SIZE = 500;
+
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    @Value("${fitlife.schedule.index.retention-days:7}")
+    private int retentionDays;
+
+    private volatile Snapshot snapshot = new Snapshot(LocalDateTime.MAX);
+
+    /**
+     * 增量更新和替换快照的写锁，查询不加锁
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final SnapshotRebuilder<Long> rebuilder = new SnapshotRebuilder<>(lock);
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 查询时间范围内的课程时间安排（上课时间不早于开始时间，下课时间不晚于结束时间）
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 按上课时间排序的列表，开始时间早于索引覆盖范围时返回null
+     */
+    public List<CourseSchedule> findByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        Snapshot current = snapshot;
+        if (startTime.isBefore(current.lowerBound)) {
+            return null;
+        }
+        if (endTime.isBefore(startTime)) {
+            return Collections.emptyList();
+        }
+        List<CourseSchedule> result = new ArrayList<>();
+        for (CourseSchedule schedule : current.byStartTime.subMap(
+                new Key(startTime, Long.MIN_VALUE), true, new Key(endTime, Long.MAX_VALUE), true).values()) {
+            if (!schedule.getEndTime().isAfter(endTime)) {
+                result.add(schedule);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查询即将开始的课程时间安排
+     * @param currentTime 当前时间
+     * @param limit 查询数量
+     * @return 按上课时间排序的列表，索引未覆盖当前时间时返回null
+     */
+    public List<CourseSchedule> findUpcoming(LocalDateTime currentTime, int limit) {
+        Snapshot current = snapshot;
+        if (currentTime.isBefore(current.lowerBound)) {
+            return null;
+        }
+        List<CourseSchedule> result = new ArrayList<>(Math.min(limit, 64));
+        for (CourseSchedule schedule : current.byStartTime.tailMap(new Key(currentTime, Long.MAX_VALUE), false).values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (schedule.getStatus() != null && schedule.getStatus() == 0) {
+                result.add(schedule);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按ID查询索引中的课程时间安排
+     * @param scheduleId 课程时间安排ID
+     * @return 课程时间安排（只读），不在索引覆盖范围内时返回null
+     */
+    public CourseSchedule findById(Long scheduleId) {
+        return snapshot.byId.get(scheduleId);
+    }
+
+    /**
+     * 事务提交后增量更新索引，先于依赖索引的其他监听器执行
+     * @param event 课程时间安排变更事件
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(CourseScheduleChangedEvent event) {
+        Long scheduleId = event.getScheduleId();
+        if (event.getBookedDelta() != null) {
+            adjustBookedPeople(scheduleId, event.getBookedDelta());
+        } else if (event.getCreated() != null) {
+            add(event.getCreated());
+        } else {
+            reload(Collections.singletonList(scheduleId));
+        }
+    }
+
+    /**
+     * 批量变更后按ID分批重新加载
+     * @param event 课程时间安排批量变更事件
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchedulesChanged(CourseSchedulesChangedEvent event) {
+        reload(event.getScheduleIds());
+    }
+
+    /**
+     * 全量重建索引
+     */
+    @Scheduled(fixedDelayString = "${fitlife.schedule.index.rebuild-interval-ms:60000}")
+    public void rebuild() {
+        LocalDateTime lowerBound = LocalDateTime.now().minusDays(retentionDays);
+        rebuilder.rebuild(() -> {
+            Snapshot rebuilt = new Snapshot(lowerBound);
+            for (CourseSchedule schedule : courseScheduleMapper.selectStartingFrom(lowerBound)) {
+                rebuilt.put(schedule);
+            }
+            return rebuilt;
+        }, (rebuilt, scheduleId) -> {
+            // 重建期间有变更的课程时间安排以当前索引为准
+            rebuilt.remove(scheduleId);
+            CourseSchedule schedule = snapshot.byId.get(scheduleId);
+            if (schedule != null && !schedule.getStartTime().isBefore(lowerBound)) {
+                rebuilt.put(schedule);
+            }
+        }, rebuilt -> {
+            snapshot = rebuilt;
+            log.debug("课程时间索引重建完成: size={}, lowerBound={}", rebuilt.byId.size(), lowerBound);
+        });
+    }
+
+    private void reload(Collection<Long> scheduleIds) {
+        List<Long> ids = new ArrayList<>(scheduleIds);
+        for (int i = 0; i < ids.size(); i += RELOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(i, Math.min(i + RELOAD_BATCH_SIZE, ids.size()));
+            lock.lock();
+            try {
+                Map<Long, CourseSchedule> loaded = new HashMap<>();
+                for (CourseSchedule schedule : courseScheduleMapper.selectBatchIds(batch)) {
+                    loaded.put(schedule.getId(), schedule);
+                }
+                Snapshot current = snapshot;
+                for (Long scheduleId : batch) {
+                    // 查询不到表示已删除
+                    CourseSchedule schedule = loaded.get(scheduleId);
+                    current.remove(scheduleId);
+                    if (schedule != null && (schedule.getDeleted() == null || schedule.getDeleted() == 0)
+                            && !schedule.getStartTime().isBefore(current.lowerBound)) {
+                        current.put(schedule);
+                    }
+                    rebuilder.changed(scheduleId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void add(CourseSchedule schedule) {
+        lock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (!schedule.getStartTime().isBefore(current.lowerBound)) {
+                current.put(schedule);
+                rebuilder.changed(schedule.getId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjustBookedPeople(Long scheduleId, int delta) {
+        lock.lock();
+        try {
+            Snapshot current = snapshot;
+            CourseSchedule existing = current.byId.get(scheduleId);
+            if (existing == null) {
+                return;
+            }
+            CourseSchedule updated = new CourseSchedule();
+            BeanUtils.copyProperties(existing, updated);
+            updated.setBookedPeople((existing.getBookedPeople() == null ? 0 : existing.getBookedPeople()) + delta);
+            current.put(updated);
+            rebuilder.changed(scheduleId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 索引数据，重建时整体替换
+     */
+    private static final class Snapshot {
+
+        /**
+         * 覆盖范围起点，早于该时间的查询需要访问数据库
+         */
+        private final LocalDateTime lowerBound;
+
+        private final ConcurrentSkipListMap<Key, CourseSchedule> byStartTime = new ConcurrentSkipListMap<>();
+
+        private final ConcurrentHashMap<Long, CourseSchedule> byId = new ConcurrentHashMap<>();
+
+        private Snapshot(LocalDateTime lowerBound) {
+            this.lowerBound = lowerBound;
+        }
+
+        private void put(CourseSchedule schedule) {
+            CourseSchedule previous = byId.put(schedule.getId(), schedule);
+            if (previous != null && !previous.getStartTime().equals(schedule.getStartTime())) {
+                byStartTime.remove(new Key(previous.getStartTime(), previous.getId()));
+            }
+            byStartTime.put(new Key(schedule.getStartTime(), schedule.getId()), schedule);
+        }
+
+        private void remove(Long scheduleId) {
+            CourseSchedule previous = byId.remove(scheduleId);
+            if (previous != null) {
+                byStartTime.remove(new Key(previous.getStartTime(), previous.getId()));
+            }
+        }
+    }
+
+    /**
+     * 跳表排序键：上课时间，相同时按ID排序
+     */
+    private static final class Key implements Comparable<Key> {
+
+        private final LocalDateTime startTime;
+
+        private final long id;
+
+        private Key(LocalDateTime startTime, long id) {
+            this.startTime = startTime;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = startTime.compareTo(other.startTime);
+            return result != 0 ? result : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return startTime.hashCode() * 31 + Long.hashCode(id);
+        }
+    }
+}
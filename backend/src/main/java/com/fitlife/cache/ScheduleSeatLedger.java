@@ -0,0 +1,231 @@
+package com.fitlife.cache;
+
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.mapper.CourseScheduleMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 课程名额内存账本
+ * 按课程时间安排ID维护已预约人数和最大人数，预约前先在内存中预占名额，
+ * 人数已满的请求无需访问数据库即可拒绝。数据库的条件更新仍是最终校验。
+ * 账本按数据库校准时，如果读取数据库之后本节点又归还过名额，数据库的值可能已过期，只用于调低已预约人数，
+ * 避免覆盖归还；其他节点取消预约释放的名额，在账本显示已满时按间隔重新读取数据库获得，不必等待定时对账。
+ */
+@Slf4j
+@Component
+public class ScheduleSeatLedger {
+
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    /**
+     * 账本显示已满时，重新读取数据库的最小间隔
+     */
+    @Value("${fitlife.booking.seat-ledger.full-recheck-ms:1000}")
+    private long fullRecheckMs;
+
+    private final ConcurrentHashMap<Long, Seats> ledger = new ConcurrentHashMap<>();
+
+    /**
+     * 预占一个名额
+     * @param scheduleId 课程时间安排ID
+     * @return 是否预占成功，课程时间安排不存在时返回true交由数据库校验
+     */
+    public boolean tryReserve(Long scheduleId) {
+        Seats seats = getOrLoad(scheduleId);
+        if (seats == null || seats.tryAcquire()) {
+            return true;
+        }
+        // 账本显示已满，按间隔以数据库为准校准一次（其他节点可能已取消预约），同一课程同时只有一个请求读取
+        if (!seats.startRecheck(fullRecheckMs)) {
+            return false;
+        }
+        long releases = seats.releases.get();
+        CourseSchedule schedule = courseScheduleMapper.selectById(scheduleId);
+        if (!isLedgerable(schedule)) {
+            ledger.remove(scheduleId);
+            return true;
+        }
+        seats.sync(schedule.getBookedPeople(), schedule.getMaxPeople(), releases);
+        return seats.tryAcquire();
+    }
+
+    /**
+     * 归还一个名额（预约失败或取消预约时调用）
+     * @param scheduleId 课程时间安排ID
+     */
+    public void release(Long scheduleId) {
+        Seats seats = ledger.get(scheduleId);
+        if (seats != null) {
+            seats.release();
+        }
+    }
+
+    /**
+     * 更新最大预约人数
+     * @param scheduleId 课程时间安排ID
+     * @param maxPeople 最大预约人数
+     */
+    public void updateCapacity(Long scheduleId, Integer maxPeople) {
+        Seats seats = ledger.get(scheduleId);
+        if (seats == null) {
+            return;
+        }
+        if (maxPeople == null) {
+            ledger.remove(scheduleId);
+        } else {
+            seats.max = maxPeople;
+        }
+    }
+
+    /**
+     * 移除课程时间安排，下次访问时重新从数据库加载
+     * @param scheduleId 课程时间安排ID
+     */
+    public void evict(Long scheduleId) {
+        ledger.remove(scheduleId);
+    }
+
+    /**
+     * 与数据库对账，修正多节点或异常情况下的偏差，并清理已开始的课程
+     */
+    @Scheduled(fixedDelayString = "${fitlife.booking.seat-ledger.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        if (ledger.isEmpty()) {
+            return;
+        }
+        List<Long> scheduleIds = new ArrayList<>(ledger.keySet());
+        // 读取数据库之前记录各课程的归还次数，用于判断数据库的值是否已过期
+        Map<Long, Long> releases = new HashMap<>();
+        for (Long scheduleId : scheduleIds) {
+            Seats seats = ledger.get(scheduleId);
+            if (seats != null) {
+                releases.put(scheduleId, seats.releases.get());
+            }
+        }
+        Map<Long, CourseSchedule> scheduleMap = new HashMap<>();
+        for (CourseSchedule schedule : courseScheduleMapper.selectBatchIds(scheduleIds)) {
+            scheduleMap.put(schedule.getId(), schedule);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Long scheduleId : scheduleIds) {
+            CourseSchedule schedule = scheduleMap.get(scheduleId);
+            if (!isLedgerable(schedule) || schedule.getStartTime().isBefore(now)) {
+                ledger.remove(scheduleId);
+                continue;
+            }
+            Seats seats = ledger.get(scheduleId);
+            Long before = releases.get(scheduleId);
+            if (seats != null && before != null) {
+                seats.sync(schedule.getBookedPeople(), schedule.getMaxPeople(), before);
+            }
+        }
+        log.debug("课程名额账本对账完成，当前记录数: {}", ledger.size());
+    }
+
+    private Seats getOrLoad(Long scheduleId) {
+        Seats seats = ledger.get(scheduleId);
+        if (seats != null) {
+            return seats;
+        }
+        return ledger.computeIfAbsent(scheduleId, id -> {
+            CourseSchedule schedule = courseScheduleMapper.selectById(id);
+            if (!isLedgerable(schedule)) {
+                return null;
+            }
+            return new Seats(schedule.getBookedPeople(), schedule.getMaxPeople());
+        });
+    }
+
+    private boolean isLedgerable(CourseSchedule schedule) {
+        return schedule != null && schedule.getDeleted() != null && schedule.getDeleted() == 0
+                && schedule.getMaxPeople() != null && schedule.getBookedPeople() != null
+                && schedule.getStartTime() != null;
+    }
+
+    /**
+     * 单个课程时间安排的名额计数
+     */
+    private static final class Seats {
+
+        private final AtomicInteger booked;
+
+        private volatile int max;
+
+        /**
+         * 归还次数，在修改已预约人数之前增加
+         */
+        private final AtomicLong releases = new AtomicLong();
+
+        /**
+         * 上次已满时重新读取数据库的时间
+         */
+        private final AtomicLong lastRecheck = new AtomicLong();
+
+        private Seats(int booked, int max) {
+            this.booked = new AtomicInteger(booked);
+            this.max = max;
+        }
+
+        private boolean tryAcquire() {
+            for (;;) {
+                int current = booked.get();
+                if (current >= max) {
+                    return false;
+                }
+                if (booked.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            releases.incrementAndGet();
+            for (;;) {
+                int current = booked.get();
+                if (current <= 0) {
+                    return;
+                }
+                if (booked.compareAndSet(current, current - 1)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean startRecheck(long intervalMs) {
+            long now = System.currentTimeMillis();
+            long last = lastRecheck.get();
+            return now - last >= intervalMs && lastRecheck.compareAndSet(last, now);
+        }
+
+        /**
+         * 按数据库校准
+         * @param dbBooked 数据库中的已预约人数
+         * @param dbMax 数据库中的最大预约人数
+         * @param releasesBefore 读取数据库之前的归还次数，之后有归还时数据库的值可能已过期，只允许调低
+         */
+        private void sync(int dbBooked, int dbMax, long releasesBefore) {
+            max = dbMax;
+            for (;;) {
+                int current = booked.get();
+                int target = releases.get() == releasesBefore ? dbBooked : Math.min(current, dbBooked);
+                if (booked.compareAndSet(current, target)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.fitlife.cache;
+
+import com.fitlife.entity.CourseWaitlist;
+import com.fitlife.mapper.CourseWaitlistMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 课程候补队列内存索引
+ * 按课程时间安排维护有序的候补队列，查询候补位置和人数无需扫描数据库；转正以数据库为准，不读取本索引。
+ * 排序方式：fifo-按加入顺序，priority-会员等级高者优先，同等级按加入顺序。
+ * 定时从数据库重新加载，纳入其他节点的变化并清理已开课的课程时间安排；
+ * 加载期间本节点的变化先记录，替换后重新应用，不会被加载结果覆盖
+ */
+@Slf4j
+@Component
+public class ScheduleWaitlist {
+
+    @Autowired
+    private CourseWaitlistMapper courseWaitlistMapper;
+
+    @Value("${fitlife.booking.waitlist.mode:fifo}")
+    private String mode;
+
+    private volatile ConcurrentHashMap<Long, WaitQueue> queues = new ConcurrentHashMap<>();
+
+    private Comparator<CourseWaitlist> comparator;
+
+    /**
+     * 重新加载期间本节点的变化，不在加载时为null，访问时持有本对象锁
+     */
+    private List<Change> changes;
+
+    @PostConstruct
+    public void init() {
+        Comparator<CourseWaitlist> byId = Comparator.comparing(CourseWaitlist::getId);
+        if ("priority".equalsIgnoreCase(mode)) {
+            comparator = Comparator.comparing((CourseWaitlist w) -> w.getPriority() == null ? 0 : w.getPriority())
+                    .reversed().thenComparing(byId);
+        } else {
+            comparator = byId;
+        }
+        reload();
+    }
+
+    /**
+     * 是否按会员等级优先转正
+     * @return 是否会员等级优先
+     */
+    public boolean isPriorityMode() {
+        return "priority".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * 从数据库重新加载尚未开课的候补记录
+     */
+    @Scheduled(fixedDelayString = "${fitlife.booking.waitlist.reload-interval-ms:60000}",
+            initialDelayString = "${fitlife.booking.waitlist.reload-interval-ms:60000}")
+    public void reload() {
+        synchronized (this) {
+            changes = new ArrayList<>();
+        }
+        ConcurrentHashMap<Long, WaitQueue> loaded = new ConcurrentHashMap<>();
+        List<CourseWaitlist> waiting;
+        try {
+            waiting = courseWaitlistMapper.selectWaitingBefore(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changes = null;
+            }
+            throw e;
+        }
+        for (CourseWaitlist waitlist : waiting) {
+            queueOf(loaded, waitlist.getScheduleId()).add(waitlist);
+        }
+        synchronized (this) {
+            for (Change change : changes) {
+                change.apply(loaded);
+            }
+            changes = null;
+            queues = loaded;
+        }
+        log.info("课程候补队列加载完成: mode={}, size={}, schedules={}", mode, waiting.size(), loaded.size());
+    }
+
+    /**
+     * 加入候补队列
+     * @param waitlist 候补记录
+     */
+    public synchronized void add(CourseWaitlist waitlist) {
+        Change change = map -> queueOf(map, waitlist.getScheduleId()).add(waitlist);
+        change.apply(queues);
+        if (changes != null) {
+            changes.add(change);
+        }
+    }
+
+    /**
+     * 移出候补队列
+     * @param scheduleId 课程时间安排ID
+     * @param memberId 会员ID
+     */
+    public synchronized void remove(Long scheduleId, Long memberId) {
+        Change change = map -> {
+            WaitQueue queue = map.get(scheduleId);
+            if (queue != null) {
+                queue.remove(memberId);
+            }
+        };
+        change.apply(queues);
+        if (changes != null) {
+            changes.add(change);
+        }
+    }
+
+    /**
+     * 查询候补位置
+     * @param scheduleId 课程时间安排ID
+     * @param memberId 会员ID
+     * @return 候补位置（从1开始），不在队列中时返回0
+     */
+    public int position(Long scheduleId, Long memberId) {
+        WaitQueue queue = queues.get(scheduleId);
+        return queue == null ? 0 : queue.position(memberId);
+    }
+
+    /**
+     * 查询候补人数
+     * @param scheduleId 课程时间安排ID
+     * @return 候补人数
+     */
+    public int size(Long scheduleId) {
+        WaitQueue queue = queues.get(scheduleId);
+        return queue == null ? 0 : queue.size();
+    }
+
+    private WaitQueue queueOf(Map<Long, WaitQueue> map, Long scheduleId) {
+        return map.computeIfAbsent(scheduleId, k -> new WaitQueue(comparator));
+    }
+
+    /**
+     * 本节点对候补队列的一次变化
+     */
+    @FunctionalInterface
+    private interface Change {
+
+        void apply(Map<Long, WaitQueue> map);
+    }
+
+    /**
+     * 单个课程时间安排的候补队列
+     */
+    private static final class WaitQueue {
+
+        private final TreeSet<CourseWaitlist> ordered;
+
+        private final Map<Long, CourseWaitlist> byMember = new HashMap<>();
+
+        private WaitQueue(Comparator<CourseWaitlist> comparator) {
+            this.ordered = new TreeSet<>(comparator);
+        }
+
+        private synchronized void add(CourseWaitlist waitlist) {
+            CourseWaitlist previous = byMember.put(waitlist.getMemberId(), waitlist);
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+            ordered.add(waitlist);
+        }
+
+        private synchronized void remove(Long memberId) {
+            CourseWaitlist waitlist = byMember.remove(memberId);
+            if (waitlist != null) {
+                ordered.remove(waitlist);
+            }
+        }
+
+        private synchronized int position(Long memberId) {
+            CourseWaitlist waitlist = byMember.get(memberId);
+            return waitlist == null ? 0 : ordered.headSet(waitlist).size() + 1;
+        }
+
+        private synchronized int size() {
+            return ordered.size();
+        }
+    }
+}
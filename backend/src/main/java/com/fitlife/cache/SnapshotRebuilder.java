@@ -0,0 +1,78 @@
+package com.fitlife.cache;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 内存索引的全量重建
+ * 从数据库加载新快照在锁外进行，期间的增量更新只作用在当前快照上并记录更新的键；
+ * 加载完成后持锁把这些键以当前快照中的数据为准合并到新快照，再替换当前快照。
+ * 重建不会覆盖加载期间的更新，也不会因为持续有增量更新而一直无法完成。
+ * @param <K> 索引数据的键
+ */
+public final class SnapshotRebuilder<K> {
+
+    /**
+     * 索引的写锁，增量更新和替换快照都需持有
+     */
+    private final Lock lock;
+
+    /**
+     * 进行中的重建各自记录的键，允许多次重建重叠（定时重建与手动重建）
+     */
+    private final List<Set<K>> active = new ArrayList<>(1);
+
+    public SnapshotRebuilder(Lock lock) {
+        this.lock = lock;
+    }
+
+    /**
+     * 记录增量更新的键（调用方需持有写锁），没有进行中的重建时不记录
+     * @param key 键
+     */
+    public void changed(K key) {
+        for (Set<K> changed : active) {
+            changed.add(key);
+        }
+    }
+
+    /**
+     * 全量重建
+     * @param loader 从数据库加载新快照（锁外执行）
+     * @param merge 把当前快照中某个键的数据合并到新快照（持锁执行，当前快照中没有时从新快照中移除）
+     * @param install 替换当前快照（持锁执行）
+     * @param <S> 快照类型
+     */
+    public <S> void rebuild(Supplier<S> loader, BiConsumer<S, K> merge, Consumer<S> install) {
+        Set<K> changed = new HashSet<>();
+        lock.lock();
+        try {
+            active.add(changed);
+        } finally {
+            lock.unlock();
+        }
+        S rebuilt = null;
+        try {
+            rebuilt = loader.get();
+        } finally {
+            lock.lock();
+            try {
+                active.removeIf(set -> set == changed);
+                if (rebuilt != null) {
+                    for (K key : changed) {
+                        merge.accept(rebuilt, key);
+                    }
+                    install.accept(rebuilt);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
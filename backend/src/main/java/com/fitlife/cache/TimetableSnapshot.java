@@ -0,0 +1,67 @@
+package com.fitlife.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitlife.dto.WeeklyTimetableDTO;
+import com.fitlife.entity.Result;
+import com.fitlife.exception.BusinessException;
+import org.springframework.util.DigestUtils;
+
+/**
+ * 周课表快照，构建后不再修改
+ * 同时保存序列化后的响应体和按课表内容计算的ETag，课表内容不变时ETag不变
+ */
+public final class TimetableSnapshot {
+
+    private final WeeklyTimetableDTO timetable;
+
+    private final byte[] body;
+
+    private final String etag;
+
+    private TimetableSnapshot(WeeklyTimetableDTO timetable, byte[] body, String etag) {
+        this.timetable = timetable;
+        this.body = body;
+        this.etag = etag;
+    }
+
+    /**
+     * 构建快照
+     * @param timetable 周课表
+     * @param objectMapper ObjectMapper
+     * @return 周课表快照
+     */
+    public static TimetableSnapshot of(WeeklyTimetableDTO timetable, ObjectMapper objectMapper) {
+        try {
+            byte[] content = objectMapper.writeValueAsBytes(timetable);
+            byte[] body = objectMapper.writeValueAsBytes(Result.success(timetable));
+            return new TimetableSnapshot(timetable, body, "\"" + DigestUtils.md5DigestAsHex(content) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("课表序列化失败", e);
+        }
+    }
+
+    /**
+     * 周课表（只读）
+     * @return 周课表
+     */
+    public WeeklyTimetableDTO getTimetable() {
+        return timetable;
+    }
+
+    /**
+     * 序列化后的响应体（Result格式，只读）
+     * @return 响应体
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * 课表内容的ETag（带引号）
+     * @return ETag
+     */
+    public String getEtag() {
+        return etag;
+    }
+}
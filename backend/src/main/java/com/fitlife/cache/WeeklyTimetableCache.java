@@ -0,0 +1,241 @@
+package com.fitlife.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitlife.dto.WeeklyTimetableDTO;
+import com.fitlife.entity.Course;
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.event.CourseSchedulesChangedEvent;
+import com.fitlife.mapper.CourseMapper;
+import com.fitlife.mapper.CourseScheduleMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 周课表缓存
+ * 按周一次构建该周所有上课地点的课表快照，课程时间安排变更后只移除受影响的周，下次访问时重建；
+ * 预约人数变化只重建该课程所在上课地点的课表，不移除整周。
+ * 仅缓存当前周前后一定范围内的周，其他周每次按需构建。
+ */
+@Slf4j
+@Component
+public class WeeklyTimetableCache {
+
+    @Autowired
+    private ScheduleIntervalIndex scheduleIntervalIndex;
+
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${fitlife.schedule.timetable.past-weeks:4}")
+    private int pastWeeks;
+
+    @Value("${fitlife.schedule.timetable.future-weeks:12}")
+    private int futureWeeks;
+
+    /**
+     * 周一日期 -> 上课地点 -> 课表快照
+     */
+    private final ConcurrentHashMap<LocalDate, Map<String, TimetableSnapshot>> weeks = new ConcurrentHashMap<>();
+
+    /**
+     * 已缓存的课程时间安排所在的周，用于变更时定位需要移除的周
+     */
+    private final ConcurrentHashMap<Long, LocalDate> scheduleWeeks = new ConcurrentHashMap<>();
+
+    /**
+     * 获取周课表
+     * @param location 上课地点
+     * @param date 所在周的任意日期
+     * @return 周课表快照
+     */
+    public TimetableSnapshot get(String location, LocalDate date) {
+        LocalDate weekStart = weekOf(date);
+        Map<String, TimetableSnapshot> week = isCacheable(weekStart)
+                ? weeks.computeIfAbsent(weekStart, this::buildWeek)
+                : buildWeek(weekStart);
+        TimetableSnapshot snapshot = week.get(location);
+        // 没有课程的地点不缓存，避免任意地点参数占用内存
+        return snapshot != null ? snapshot : build(location, weekStart, Collections.<CourseSchedule>emptyList(), Collections.<Long, String>emptyMap());
+    }
+
+    /**
+     * 事务提交后移除受影响的周，在时间索引更新之后执行
+     * @param event 课程时间安排变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(CourseScheduleChangedEvent event) {
+        // 人数变化不会改变所在的周和上课地点，只重建该地点的课表
+        if (event.getBookedDelta() != null) {
+            LocalDate weekStart = scheduleWeeks.get(event.getScheduleId());
+            if (weekStart != null) {
+                weeks.computeIfPresent(weekStart, (k, week) -> rebuildLocation(week, weekStart, event.getScheduleId()));
+            }
+            return;
+        }
+        LocalDate previous = scheduleWeeks.remove(event.getScheduleId());
+        if (previous != null) {
+            weeks.remove(previous);
+        }
+        // 变更可能移动到新的周
+        if (event.getCreated() != null) {
+            weeks.remove(weekOf(event.getCreated().getStartTime().toLocalDate()));
+        } else {
+            CourseSchedule schedule = courseScheduleMapper.selectById(event.getScheduleId());
+            if (schedule != null && schedule.getStartTime() != null) {
+                weeks.remove(weekOf(schedule.getStartTime().toLocalDate()));
+            }
+        }
+    }
+
+    /**
+     * 批量变更（状态切换，不改变所在的周）后移除涉及的周
+     * @param event 课程时间安排批量变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchedulesChanged(CourseSchedulesChangedEvent event) {
+        for (Long scheduleId : event.getScheduleIds()) {
+            LocalDate weekStart = scheduleWeeks.remove(scheduleId);
+            if (weekStart != null) {
+                weeks.remove(weekStart);
+            }
+        }
+    }
+
+    /**
+     * 清理超出缓存范围的周
+     */
+    @Scheduled(cron = "${fitlife.schedule.timetable.cleanup-cron:0 5 0 * * ?}")
+    public void cleanup() {
+        weeks.keySet().removeIf(weekStart -> !isCacheable(weekStart));
+        scheduleWeeks.values().removeIf(weekStart -> !isCacheable(weekStart));
+    }
+
+    private Map<String, TimetableSnapshot> buildWeek(LocalDate weekStart) {
+        LocalDateTime from = weekStart.atStartOfDay();
+        LocalDateTime to = from.plusDays(7);
+        List<CourseSchedule> schedules = scheduleIntervalIndex.findByTimeRange(from, to);
+        if (schedules == null) {
+            schedules = courseScheduleMapper.selectByTimeRange(from, to);
+        }
+
+        // 按上课地点分组，列表已按上课时间排序
+        Map<String, List<CourseSchedule>> byLocation = new LinkedHashMap<>();
+        Set<Long> courseIds = new HashSet<>();
+        for (CourseSchedule schedule : schedules) {
+            if (schedule.getLocation() == null) {
+                continue;
+            }
+            byLocation.computeIfAbsent(schedule.getLocation(), k -> new ArrayList<>()).add(schedule);
+            courseIds.add(schedule.getCourseId());
+        }
+        Map<Long, String> courseNames = new HashMap<>();
+        if (!courseIds.isEmpty()) {
+            for (Course course : courseMapper.selectNamesByIds(courseIds)) {
+                courseNames.put(course.getId(), course.getName());
+            }
+        }
+
+        Map<String, TimetableSnapshot> week = new HashMap<>();
+        for (Map.Entry<String, List<CourseSchedule>> entry : byLocation.entrySet()) {
+            week.put(entry.getKey(), build(entry.getKey(), weekStart, entry.getValue(), courseNames));
+            if (isCacheable(weekStart)) {
+                for (CourseSchedule schedule : entry.getValue()) {
+                    scheduleWeeks.put(schedule.getId(), weekStart);
+                }
+            }
+        }
+        log.debug("周课表构建完成: weekStart={}, locations={}, schedules={}", weekStart, week.size(), schedules.size());
+        return Collections.unmodifiableMap(week);
+    }
+
+    /**
+     * 从时间索引重新构建课程时间安排所在上课地点的课表，其他地点沿用原快照
+     * @return 新的周课表，索引未覆盖该周或原快照中没有该地点时返回null（移除整周，下次访问时重建）
+     */
+    private Map<String, TimetableSnapshot> rebuildLocation(Map<String, TimetableSnapshot> week, LocalDate weekStart, Long scheduleId) {
+        CourseSchedule changed = scheduleIntervalIndex.findById(scheduleId);
+        TimetableSnapshot previous = changed == null || changed.getLocation() == null ? null : week.get(changed.getLocation());
+        LocalDateTime from = weekStart.atStartOfDay();
+        List<CourseSchedule> schedules = previous == null ? null : scheduleIntervalIndex.findByTimeRange(from, from.plusDays(7));
+        if (schedules == null) {
+            return null;
+        }
+        List<CourseSchedule> atLocation = new ArrayList<>();
+        for (CourseSchedule schedule : schedules) {
+            if (changed.getLocation().equals(schedule.getLocation())) {
+                atLocation.add(schedule);
+            }
+        }
+        // 人数变化不改变课程，课程名称沿用原快照
+        Map<Long, String> courseNames = new HashMap<>();
+        for (WeeklyTimetableDTO.Day day : previous.getTimetable().getDays()) {
+            for (WeeklyTimetableDTO.Item item : day.getItems()) {
+                courseNames.put(item.getCourseId(), item.getCourseName());
+            }
+        }
+        Map<String, TimetableSnapshot> updated = new HashMap<>(week);
+        updated.put(changed.getLocation(), build(changed.getLocation(), weekStart, atLocation, courseNames));
+        return Collections.unmodifiableMap(updated);
+    }
+
+    private TimetableSnapshot build(String location, LocalDate weekStart, List<CourseSchedule> schedules, Map<Long, String> courseNames) {
+        List<WeeklyTimetableDTO.Day> days = new ArrayList<>(7);
+        for (int i = 0; i < 7; i++) {
+            WeeklyTimetableDTO.Day day = new WeeklyTimetableDTO.Day();
+            day.setDate(weekStart.plusDays(i));
+            day.setItems(new ArrayList<>());
+            days.add(day);
+        }
+        for (CourseSchedule schedule : schedules) {
+            WeeklyTimetableDTO.Item item = new WeeklyTimetableDTO.Item();
+            item.setScheduleId(schedule.getId());
+            item.setCourseId(schedule.getCourseId());
+            item.setCourseName(courseNames.get(schedule.getCourseId()));
+            item.setStartTime(schedule.getStartTime());
+            item.setEndTime(schedule.getEndTime());
+            item.setMaxPeople(schedule.getMaxPeople());
+            item.setBookedPeople(schedule.getBookedPeople());
+            item.setStatus(schedule.getStatus());
+            days.get(schedule.getStartTime().getDayOfWeek().getValue() - 1).getItems().add(item);
+        }
+        WeeklyTimetableDTO timetable = new WeeklyTimetableDTO();
+        timetable.setLocation(location);
+        timetable.setWeekStart(weekStart);
+        timetable.setDays(days);
+        return TimetableSnapshot.of(timetable, objectMapper);
+    }
+
+    private boolean isCacheable(LocalDate weekStart) {
+        LocalDate currentWeek = weekOf(LocalDate.now());
+        return !weekStart.isBefore(currentWeek.minusWeeks(pastWeeks)) && !weekStart.isAfter(currentWeek.plusWeeks(futureWeeks));
+    }
+
+    private static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,20 @@
+package com.fitlife.config;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.boot.sql.init.dependency.AbstractBeansOfTypeDependsOnDatabaseInitializationDetector;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * MyBatis依赖数据库初始化脚本
+ * Spring Boot只让JdbcTemplate、JPA等在spring.sql.init脚本执行后创建，内存索引启动时通过Mapper查询数据库，
+ * 让SqlSessionFactory依赖初始化脚本，避免开发环境（H2）建表前查询。通过META-INF/spring.factories注册
+ */
+public class MybatisDatabaseInitializationDetector extends AbstractBeansOfTypeDependsOnDatabaseInitializationDetector {
+
+    @Override
+    protected Set<Class<?>> getDependsOnDatabaseInitializationBeanTypes() {
+        return Collections.<Class<?>>singleton(SqlSessionFactory.class);
+    }
+}
@@ -0,0 +1,45 @@
+package com.fitlife.config;
+
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * Redisson配置类
+ * 自动配置已在启动类中排除，仅在开启秒杀预约模式或使用Redisson课程锁时创建客户端，连接信息复用spring.redis配置
+ */
+@Configuration
+@ConditionalOnExpression("${fitlife.booking.flash.enabled:false} or '${fitlife.booking.lock.type:local}' == 'redisson'")
+public class RedissonConfig {
+
+    @Value("${spring.redis.host:localhost}")
+    private String host;
+
+    @Value("${spring.redis.port:6379}")
+    private int port;
+
+    @Value("${spring.redis.database:0}")
+    private int database;
+
+    @Value("${spring.redis.timeout:3000}")
+    private int timeout;
+
+    @Value("${spring.redis.password:}")
+    private String password;
+
+    @Bean(destroyMethod = "shutdown")
+    public RedissonClient redissonClient() {
+        Config config = new Config();
+        config.useSingleServer()
+                .setAddress("redis://" + host + ":" + port)
+                .setDatabase(database)
+                .setTimeout(timeout)
+                .setPassword(StringUtils.hasText(password) ? password : null);
+        return Redisson.create(config);
+    }
+}
@@ -1,32 +1,51 @@
 package com.fitlife.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fitlife.entity.CourseBooking;
 import com.fitlife.entity.PageResult;
 import com.fitlife.entity.Result;
+import com.fitlife.dto.CourseBatchBookingDTO;
 import com.fitlife.dto.CourseBookingDTO;
 import com.fitlife.dto.CourseBookingQueryDTO;
+import com.fitlife.dto.CourseBookingResultDTO;
 import com.fitlife.service.CourseBookingService;
+import com.fitlife.service.CourseWaitlistService;
+import com.fitlife.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
  * 课程预约控制器
+ * 写操作支持Idempotency-Key请求头，携带相同幂等键的重试请求直接返回首次请求的结果
  */
 @Tag(name = "课程预约管理", description = "课程预约相关接口")
 @RestController
 @RequestMapping("/course-booking")
 public class CourseBookingController {
 
+    /**
+     * 幂等键请求头
+     */
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     @Autowired
     private CourseBookingService courseBookingService;
 
+    @Autowired
+    private CourseWaitlistService courseWaitlistService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @Operation(summary = "分页查询课程预约列表", description = "根据条件分页查询课程预约列表")
     @Parameters({
             @Parameter(name = "pageNum", description = "页码", example = "1"),
@@ -53,25 +72,38 @@ public class CourseBookingController {
 
     @Operation(summary = "预约课程", description = "预约课程")
     @PostMapping("/book")
-    public Result<CourseBooking> bookCourse(@RequestBody CourseBookingDTO bookingDTO) {
-        CourseBooking booking = courseBookingService.bookCourse(bookingDTO);
-        return Result.success(booking);
+    public Result<CourseBooking> bookCourse(
+            @Parameter(description = "幂等键，重试时携带相同的值") @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestBody CourseBookingDTO bookingDTO) {
+        return idempotencyService.execute(idempotencyKey, "book:" + bookingDTO.getMemberId() + ":" + bookingDTO.getScheduleId(),
+                CourseBooking.class, () -> courseBookingService.bookCourse(bookingDTO));
+    }
+
+    @Operation(summary = "批量预约课程", description = "一次预约多节课程或团购多人预约，返回每项的预约结果；allOrNothing为true时任一失败则全部不预约")
+    @PostMapping("/batch")
+    public Result<List<CourseBookingResultDTO>> batchBookCourses(
+            @Parameter(description = "幂等键，重试时携带相同的值") @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestBody CourseBatchBookingDTO batchBookingDTO) {
+        return idempotencyService.execute(idempotencyKey, batchOperation(batchBookingDTO), new TypeReference<List<CourseBookingResultDTO>>() {
+        }, () -> courseBookingService.batchBookCourses(batchBookingDTO));
     }
 
     @Operation(summary = "取消预约", description = "取消课程预约")
     @PutMapping("/{bookingId}/cancel")
     public Result<Boolean> cancelBooking(
+            @Parameter(description = "幂等键，重试时携带相同的值") @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @Parameter(description = "预约ID") @PathVariable Long bookingId) {
-        boolean result = courseBookingService.cancelBooking(bookingId);
-        return Result.success(result);
+        return idempotencyService.execute(idempotencyKey, "cancel:" + bookingId,
+                Boolean.class, () -> courseBookingService.cancelBooking(bookingId));
     }
 
     @Operation(summary = "完成预约", description = "完成课程预约")
     @PutMapping("/{bookingId}/complete")
     public Result<Boolean> completeBooking(
+            @Parameter(description = "幂等键，重试时携带相同的值") @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @Parameter(description = "预约ID") @PathVariable Long bookingId) {
-        boolean result = courseBookingService.completeBooking(bookingId);
-        return Result.success(result);
+        return idempotencyService.execute(idempotencyKey, "complete:" + bookingId,
+                Boolean.class, () -> courseBookingService.completeBooking(bookingId));
     }
 
     @Operation(summary = "根据会员查询预约", description = "根据会员ID查询课程预约列表")
@@ -89,9 +121,64 @@ public class CourseBookingController {
     })
     @PutMapping("/{bookingId}/pay")
     public Result<Boolean> payBooking(
+            @Parameter(description = "幂等键，重试时携带相同的值") @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @PathVariable Long bookingId,
             @RequestParam BigDecimal amount) {
-        boolean result = courseBookingService.payBooking(bookingId, amount);
+        return idempotencyService.execute(idempotencyKey, "pay:" + bookingId + ":" + amount.toPlainString(),
+                Boolean.class, () -> courseBookingService.payBooking(bookingId, amount));
+    }
+
+    @Operation(summary = "加入候补", description = "课程人数已满时加入候补队列，有会员取消时自动转正，返回候补位置")
+    @PostMapping("/waitlist")
+    public Result<Integer> joinWaitlist(
+            @Parameter(description = "幂等键，重试时携带相同的值") @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestBody CourseBookingDTO bookingDTO) {
+        return idempotencyService.execute(idempotencyKey, "waitlist:" + bookingDTO.getMemberId() + ":" + bookingDTO.getScheduleId(),
+                Integer.class, () -> courseWaitlistService.joinWaitlist(bookingDTO));
+    }
+
+    @Operation(summary = "退出候补", description = "退出课程候补队列")
+    @Parameters({
+            @Parameter(name = "memberId", description = "会员ID"),
+            @Parameter(name = "scheduleId", description = "课程时间安排ID")
+    })
+    @DeleteMapping("/waitlist")
+    public Result<Boolean> leaveWaitlist(
+            @RequestParam Long memberId,
+            @RequestParam Long scheduleId) {
+        boolean result = courseWaitlistService.leaveWaitlist(memberId, scheduleId);
         return Result.success(result);
     }
+
+    @Operation(summary = "查询候补位置", description = "查询会员在课程候补队列中的位置，0表示不在队列中")
+    @Parameters({
+            @Parameter(name = "memberId", description = "会员ID"),
+            @Parameter(name = "scheduleId", description = "课程时间安排ID")
+    })
+    @GetMapping("/waitlist/position")
+    public Result<Integer> getWaitlistPosition(
+            @RequestParam Long memberId,
+            @RequestParam Long scheduleId) {
+        int position = courseWaitlistService.getWaitlistPosition(memberId, scheduleId);
+        return Result.success(position);
+    }
+
+    /**
+     * 批量预约的请求操作标识：发起会员（第一项的会员）+ 请求内容摘要，
+     * 同一幂等键携带不同的批量请求时不会重放其他请求的结果
+     */
+    private static String batchOperation(CourseBatchBookingDTO batchBookingDTO) {
+        List<CourseBookingDTO> items = batchBookingDTO.getItems();
+        StringBuilder content = new StringBuilder();
+        content.append(batchBookingDTO.getActivityId()).append('|').append(batchBookingDTO.getAllOrNothing());
+        if (items != null) {
+            for (CourseBookingDTO item : items) {
+                content.append('|').append(item.getMemberId()).append(',').append(item.getCourseId())
+                        .append(',').append(item.getScheduleId())
+                        .append(',').append(item.getAmount() == null ? null : item.getAmount().toPlainString());
+            }
+        }
+        Long memberId = items == null || items.isEmpty() ? null : items.get(0).getMemberId();
+        return "batch-book:" + memberId + ":" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,64 @@
+package com.fitlife.controller;
+
+import com.fitlife.cache.CategoryTreeSnapshot;
+import com.fitlife.dto.CourseCategoryDTO;
+import com.fitlife.entity.CourseCategory;
+import com.fitlife.entity.Result;
+import com.fitlife.service.CourseCategoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * 课程分类控制器
+ */
+@Tag(name = "课程分类管理", description = "课程分类相关接口")
+@RestController
+@RequestMapping("/course-category")
+public class CourseCategoryController {
+
+    @Autowired
+    private CourseCategoryService courseCategoryService;
+
+    @Operation(summary = "获取分类树", description = "获取全部启用的课程分类（树形结构），支持If-None-Match协商缓存，未变化时返回304")
+    @GetMapping("/tree")
+    public ResponseEntity<byte[]> getCategoryTree(WebRequest webRequest) {
+        CategoryTreeSnapshot snapshot = courseCategoryService.getCategoryTree();
+        if (webRequest.checkNotModified(snapshot.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getBody());
+    }
+
+    @Operation(summary = "创建分类", description = "创建新的课程分类")
+    @PostMapping
+    public Result<CourseCategory> createCategory(@RequestBody CourseCategoryDTO categoryDTO) {
+        CourseCategory category = courseCategoryService.createCategory(categoryDTO);
+        return Result.success(category);
+    }
+
+    @Operation(summary = "更新分类", description = "更新课程分类信息")
+    @PutMapping("/{categoryId}")
+    public Result<CourseCategory> updateCategory(
+            @Parameter(description = "分类ID") @PathVariable Long categoryId,
+            @RequestBody CourseCategoryDTO categoryDTO) {
+        CourseCategory category = courseCategoryService.updateCategory(categoryId, categoryDTO);
+        return Result.success(category);
+    }
+
+    @Operation(summary = "删除分类", description = "删除课程分类，存在子分类或课程时不允许删除")
+    @DeleteMapping("/{categoryId}")
+    public Result<Boolean> deleteCategory(
+            @Parameter(description = "分类ID") @PathVariable Long categoryId) {
+        boolean result = courseCategoryService.deleteCategory(categoryId);
+        return Result.success(result);
+    }
+}
@@ -1,18 +1,26 @@
 package com.fitlife.controller;
 
 import com.fitlife.entity.Course;
-import com.fitlife.entity.PageResult;
 import com.fitlife.entity.Result;
 import com.fitlife.dto.CourseDTO;
+import com.fitlife.dto.CoursePageResultDTO;
 import com.fitlife.dto.CourseQueryDTO;
+import com.fitlife.dto.CourseRecommendationDTO;
+import com.fitlife.dto.ImportTaskDTO;
 import com.fitlife.service.CourseService;
+import com.fitlife.util.CsvTransferUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -26,20 +34,22 @@ public class CourseController {
     @Autowired
     private CourseService courseService;
 
-    @Operation(summary = "分页查询课程列表", description = "根据条件分页查询课程列表")
+    @Operation(summary = "分页查询课程列表", description = "根据条件分页查询课程列表，并返回各筛选项的课程数量")
     @Parameters({
             @Parameter(name = "pageNum", description = "页码", example = "1"),
             @Parameter(name = "pageSize", description = "每页数量", example = "10"),
             @Parameter(name = "name", description = "课程名称"),
+            @Parameter(name = "keyword", description = "搜索关键词（匹配名称、描述和标签，按相关度排序）"),
             @Parameter(name = "categoryId", description = "分类ID"),
+            @Parameter(name = "includeChildren", description = "按分类查询时是否包含子分类"),
             @Parameter(name = "coachId", description = "教练ID"),
             @Parameter(name = "status", description = "课程状态：0-未上架，1-已上架，2-已下架"),
             @Parameter(name = "type", description = "课程类型：0-团课，1-私教"),
             @Parameter(name = "difficulty", description = "课程难度：0-初级，1-中级，2-高级")
     })
     @GetMapping("/list")
-    public Result<PageResult<Course>> listCourses(CourseQueryDTO queryDTO) {
-        PageResult<Course> pageResult = courseService.listCourses(queryDTO);
+    public Result<CoursePageResultDTO> listCourses(CourseQueryDTO queryDTO) {
+        CoursePageResultDTO pageResult = courseService.listCourses(queryDTO);
         return Result.success(pageResult);
     }
 
@@ -83,11 +93,12 @@ public class CourseController {
         return Result.success(result);
     }
 
-    @Operation(summary = "根据分类查询课程", description = "根据分类ID查询课程列表")
+    @Operation(summary = "根据分类查询课程", description = "根据分类ID查询课程列表，可包含所有子分类的课程")
     @GetMapping("/category/{categoryId}")
     public Result<List<Course>> getCoursesByCategoryId(
-            @Parameter(description = "分类ID") @PathVariable Long categoryId) {
-        List<Course> courses = courseService.getCoursesByCategoryId(categoryId);
+            @Parameter(description = "分类ID") @PathVariable Long categoryId,
+            @Parameter(description = "是否包含子分类") @RequestParam(defaultValue = "false") Boolean includeChildren) {
+        List<Course> courses = courseService.getCoursesByCategoryId(categoryId, includeChildren);
         return Result.success(courses);
     }
 
@@ -99,6 +110,23 @@ public class CourseController {
         return Result.success(courses);
     }
 
+    @Operation(summary = "获取趋势课程", description = "获取近期预约最多的课程列表，越早的预约权重越低")
+    @GetMapping("/trending")
+    public Result<List<Course>> getTrendingCourses(
+            @Parameter(description = "查询数量", example = "10") @RequestParam(defaultValue = "10") Integer limit) {
+        List<Course> courses = courseService.getTrendingCourses(limit);
+        return Result.success(courses);
+    }
+
+    @Operation(summary = "获取相似课程", description = "预约过该课程的会员还预约了哪些课程，按共同预约的相似度排序")
+    @GetMapping("/{courseId}/similar")
+    public Result<List<CourseRecommendationDTO>> getSimilarCourses(
+            @Parameter(description = "课程ID") @PathVariable Long courseId,
+            @Parameter(description = "查询数量", example = "10") @RequestParam(defaultValue = "10") Integer limit) {
+        List<CourseRecommendationDTO> courses = courseService.getSimilarCourses(courseId, limit);
+        return Result.success(courses);
+    }
+
     @Operation(summary = "根据教练查询课程", description = "根据教练ID查询课程列表")
     @GetMapping("/coach/{coachId}")
     public Result<List<Course>> getCoursesByCoachId(
@@ -106,4 +134,29 @@ public class CourseController {
         List<Course> courses = courseService.getCoursesByCoachId(coachId);
         return Result.success(courses);
     }
+
+    @Operation(summary = "导入课程", description = "上传CSV文件批量导入课程（UTF-8编码，第一行为列名，列与导出文件一致，name和price必填），"
+            + "后台逐批写入，返回任务ID用于查询进度；导入的课程为未上架状态")
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Result<ImportTaskDTO> importCourses(
+            @Parameter(description = "CSV文件") @RequestParam("file") MultipartFile file) {
+        ImportTaskDTO task = courseService.importCourses(file);
+        return Result.success(task);
+    }
+
+    @Operation(summary = "查询课程导入进度", description = "查询课程导入任务的进度和失败原因")
+    @GetMapping("/import/{taskId}")
+    public Result<ImportTaskDTO> getCourseImportTask(
+            @Parameter(description = "任务ID") @PathVariable String taskId) {
+        ImportTaskDTO task = courseService.getCourseImportTask(taskId);
+        return Result.success(task);
+    }
+
+    @Operation(summary = "导出课程", description = "导出所有未删除课程为CSV文件")
+    @GetMapping("/export")
+    public void exportCourses(HttpServletResponse response) throws IOException {
+        Writer writer = CsvTransferUtils.openResponseWriter(response, "courses.csv");
+        courseService.exportCourses(writer);
+        writer.flush();
+    }
 }
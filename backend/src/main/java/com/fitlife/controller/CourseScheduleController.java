@@ -1,19 +1,35 @@
 package com.fitlife.controller;
 
+import com.fitlife.cache.TimetableSnapshot;
 import com.fitlife.entity.CourseSchedule;
 import com.fitlife.entity.PageResult;
 import com.fitlife.entity.Result;
 import com.fitlife.dto.CourseScheduleDTO;
 import com.fitlife.dto.CourseScheduleQueryDTO;
+import com.fitlife.dto.ImportTaskDTO;
+import com.fitlife.dto.ScheduleConflictDTO;
+import com.fitlife.exception.BusinessException;
 import com.fitlife.service.CourseScheduleService;
+import com.fitlife.service.FlashBookingService;
+import com.fitlife.task.SeatAvailabilityBroadcaster;
+import com.fitlife.util.CsvTransferUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -28,6 +44,12 @@ public class CourseScheduleController {
     @Autowired
     private CourseScheduleService courseScheduleService;
 
+    @Autowired(required = false)
+    private FlashBookingService flashBookingService;
+
+    @Autowired
+    private SeatAvailabilityBroadcaster seatAvailabilityBroadcaster;
+
     @Operation(summary = "分页查询课程预约时间安排列表", description = "根据条件分页查询课程预约时间安排列表")
     @Parameters({
             @Parameter(name = "pageNum", description = "页码", example = "1"),
@@ -57,6 +79,20 @@ public class CourseScheduleController {
         return Result.success(schedule);
     }
 
+    @Operation(summary = "批量创建课程预约时间安排", description = "按重复规则（每周上课的星期、间隔周数、截止日期或次数、排除日期）批量创建课程预约时间安排")
+    @PostMapping("/batch")
+    public Result<List<CourseSchedule>> batchCreateCourseSchedules(@RequestBody List<CourseScheduleDTO> scheduleDTOs) {
+        List<CourseSchedule> schedules = courseScheduleService.batchCreateCourseSchedules(scheduleDTOs);
+        return Result.success(schedules);
+    }
+
+    @Operation(summary = "检查课程预约时间安排冲突", description = "检查上课地点和教练的时间冲突（含重复规则展开后的课程），不写入数据")
+    @PostMapping("/conflicts")
+    public Result<List<ScheduleConflictDTO>> checkScheduleConflicts(@RequestBody List<CourseScheduleDTO> scheduleDTOs) {
+        List<ScheduleConflictDTO> conflicts = courseScheduleService.checkScheduleConflicts(scheduleDTOs);
+        return Result.success(conflicts);
+    }
+
     @Operation(summary = "更新课程预约时间安排", description = "更新课程预约时间安排信息")
     @PutMapping("/{scheduleId}")
     public Result<CourseSchedule> updateCourseSchedule(
@@ -95,6 +131,31 @@ public class CourseScheduleController {
         return Result.success(schedules);
     }
 
+    @Operation(summary = "获取周课表", description = "获取上课地点一周的课表，支持If-None-Match协商缓存，未变化时返回304")
+    @GetMapping("/timetable")
+    public ResponseEntity<byte[]> getWeeklyTimetable(
+            @Parameter(description = "上课地点", required = true) @RequestParam String location,
+            @Parameter(description = "所在周的任意日期，默认本周", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate week,
+            WebRequest webRequest) {
+        TimetableSnapshot snapshot = courseScheduleService.getWeeklyTimetable(location, week);
+        if (webRequest.checkNotModified(snapshot.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getBody());
+    }
+
+    @Operation(summary = "订阅课程名额变化", description = "Server-Sent Events推送，订阅后先推送一次当前名额，"
+            + "之后已预约人数变化时推送seat事件（课程名额列表），同一课程每500毫秒最多推送一次")
+    @GetMapping(value = "/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatAvailability(
+            @Parameter(description = "课程时间安排ID列表，逗号分隔", required = true) @RequestParam List<Long> scheduleIds) {
+        return seatAvailabilityBroadcaster.subscribe(scheduleIds);
+    }
+
     @Operation(summary = "获取即将开始的课程", description = "获取即将开始的课程预约时间安排列表")
     @GetMapping("/upcoming")
     public Result<List<CourseSchedule>> getUpcomingCourses(
@@ -115,4 +176,61 @@ public class CourseScheduleController {
         boolean result = courseScheduleService.updateCourseScheduleStatus(scheduleId, status);
         return Result.success(result);
     }
+
+    @Operation(summary = "开启秒杀预约", description = "课程名额预加载到Redis，预约记录异步落库，返回剩余名额")
+    @PutMapping("/{scheduleId}/flash")
+    public Result<Integer> openFlashSale(
+            @Parameter(description = "课程预约时间安排ID") @PathVariable Long scheduleId) {
+        int stock = getFlashBookingService().openFlashSale(scheduleId);
+        return Result.success(stock);
+    }
+
+    @Operation(summary = "关闭秒杀预约", description = "关闭秒杀预约并将已扣减的名额全部落库")
+    @DeleteMapping("/{scheduleId}/flash")
+    public Result<Boolean> closeFlashSale(
+            @Parameter(description = "课程预约时间安排ID") @PathVariable Long scheduleId) {
+        getFlashBookingService().closeFlashSale(scheduleId);
+        return Result.success(true);
+    }
+
+    @Operation(summary = "导入课程预约时间安排", description = "上传CSV文件批量导入课程预约时间安排（UTF-8编码，第一行为列名，列与导出文件一致，"
+            + "course_id、start_time、end_time、max_people必填），后台逐批写入，与已有课程或文件中其他行时间冲突的行跳过，返回任务ID用于查询进度")
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Result<ImportTaskDTO> importCourseSchedules(
+            @Parameter(description = "CSV文件") @RequestParam("file") MultipartFile file) {
+        ImportTaskDTO task = courseScheduleService.importCourseSchedules(file);
+        return Result.success(task);
+    }
+
+    @Operation(summary = "查询课程预约时间安排导入进度", description = "查询课程预约时间安排导入任务的进度和失败原因")
+    @GetMapping("/import/{taskId}")
+    public Result<ImportTaskDTO> getCourseScheduleImportTask(
+            @Parameter(description = "任务ID") @PathVariable String taskId) {
+        ImportTaskDTO task = courseScheduleService.getCourseScheduleImportTask(taskId);
+        return Result.success(task);
+    }
+
+    @Operation(summary = "导出课程预约时间安排", description = "按条件导出课程预约时间安排为CSV文件，按上课时间排序")
+    @Parameters({
+            @Parameter(name = "courseId", description = "课程ID"),
+            @Parameter(name = "startTime", description = "上课时间不早于", example = "2023-01-01 00:00:00"),
+            @Parameter(name = "endTime", description = "上课时间早于", example = "2023-02-01 00:00:00")
+    })
+    @GetMapping("/export")
+    public void exportCourseSchedules(
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            HttpServletResponse response) throws IOException {
+        Writer writer = CsvTransferUtils.openResponseWriter(response, "course-schedules.csv");
+        courseScheduleService.exportCourseSchedules(courseId, startTime, endTime, writer);
+        writer.flush();
+    }
+
+    private FlashBookingService getFlashBookingService() {
+        if (flashBookingService == null) {
+            throw new BusinessException("秒杀预约模式未启用");
+        }
+        return flashBookingService;
+    }
 }
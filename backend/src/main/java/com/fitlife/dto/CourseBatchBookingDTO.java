@@ -0,0 +1,27 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量预约数据传输对象（一周多节课或团购多人预约）
+ */
+@Data
+public class CourseBatchBookingDTO {
+
+    /**
+     * 团购活动ID（营销活动类型为3-团购优惠时填写）
+     */
+    private Long activityId;
+
+    /**
+     * 是否全部成功才提交：true-任一失败则全部不预约，false-尽量预约
+     */
+    private Boolean allOrNothing = true;
+
+    /**
+     * 预约明细
+     */
+    private List<CourseBookingDTO> items;
+}
@@ -0,0 +1,35 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+/**
+ * 批量预约单项结果
+ */
+@Data
+public class CourseBookingResultDTO {
+
+    /**
+     * 会员ID
+     */
+    private Long memberId;
+
+    /**
+     * 课程时间安排ID
+     */
+    private Long scheduleId;
+
+    /**
+     * 是否预约成功
+     */
+    private Boolean success;
+
+    /**
+     * 预约ID（成功时返回）
+     */
+    private Long bookingId;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+}
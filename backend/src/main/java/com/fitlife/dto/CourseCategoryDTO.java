@@ -0,0 +1,40 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+/**
+ * 课程分类数据传输对象
+ */
+@Data
+public class CourseCategoryDTO {
+
+    /**
+     * 分类名称
+     */
+    private String name;
+
+    /**
+     * 分类描述
+     */
+    private String description;
+
+    /**
+     * 分类图标
+     */
+    private String icon;
+
+    /**
+     * 父分类ID，0表示一级分类
+     */
+    private Long parentId;
+
+    /**
+     * 分类排序
+     */
+    private Integer sort;
+
+    /**
+     * 分类状态：0-禁用，1-启用
+     */
+    private Integer status;
+}
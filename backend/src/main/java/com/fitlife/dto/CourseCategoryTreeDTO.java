@@ -0,0 +1,42 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 课程分类树节点
+ */
+@Data
+public class CourseCategoryTreeDTO {
+
+    /**
+     * 分类ID
+     */
+    private Long id;
+
+    /**
+     * 分类名称
+     */
+    private String name;
+
+    /**
+     * 分类描述
+     */
+    private String description;
+
+    /**
+     * 分类图标
+     */
+    private String icon;
+
+    /**
+     * 分类排序
+     */
+    private Integer sort;
+
+    /**
+     * 子分类（按排序升序）
+     */
+    private List<CourseCategoryTreeDTO> children;
+}
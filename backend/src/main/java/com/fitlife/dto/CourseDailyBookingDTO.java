@@ -0,0 +1,27 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 课程每日预约数量
+ */
+@Data
+public class CourseDailyBookingDTO {
+
+    /**
+     * 课程ID
+     */
+    private Long courseId;
+
+    /**
+     * 预约日期
+     */
+    private LocalDate bookingDate;
+
+    /**
+     * 预约数量
+     */
+    private Long bookingCount;
+}
@@ -0,0 +1,25 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+/**
+ * 课程筛选项统计
+ */
+@Data
+public class CourseFacetDTO {
+
+    /**
+     * 筛选值（分类ID、教练ID、课程类型、难度或状态）
+     */
+    private Long value;
+
+    /**
+     * 显示名称
+     */
+    private String name;
+
+    /**
+     * 满足其他筛选条件的课程数量
+     */
+    private Long count;
+}
@@ -0,0 +1,41 @@
+package com.fitlife.dto;
+
+import com.fitlife.entity.Course;
+import com.fitlife.entity.PageResult;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 课程分页结果，附带筛选项统计
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CoursePageResultDTO extends PageResult<Course> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 筛选项统计：categoryId、coachId、type、difficulty、status -> 各取值的课程数量
+     * 某一项的数量按除该项以外的筛选条件统计，关键词搜索时为空
+     */
+    private Map<String, List<CourseFacetDTO>> facets;
+
+    public CoursePageResultDTO(List<Course> records, long total, long size, long current) {
+        super(records, total, size, current);
+    }
+
+    /**
+     * 由分页结果构建
+     * @param page 分页结果
+     * @param facets 筛选项统计
+     * @return CoursePageResultDTO
+     */
+    public static CoursePageResultDTO of(PageResult<Course> page, Map<String, List<CourseFacetDTO>> facets) {
+        CoursePageResultDTO result = new CoursePageResultDTO(page.getRecords(), page.getTotal(), page.getSize(), page.getCurrent());
+        result.setFacets(facets);
+        return result;
+    }
+}
@@ -25,11 +25,21 @@ public class CourseQueryDTO {
      */
     private String name;
 
+    /**
+     * 搜索关键词（匹配课程名称、描述和标签，按相关度排序）
+     */
+    private String keyword;
+
     /**
      * 分类ID
      */
     private Long categoryId;
 
+    /**
+     * 按分类查询时是否包含子分类
+     */
+    private Boolean includeChildren;
+
     /**
      * 教练ID
      */
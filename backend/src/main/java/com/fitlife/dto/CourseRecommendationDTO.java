@@ -0,0 +1,30 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+/**
+ * 相似课程推荐
+ */
+@Data
+public class CourseRecommendationDTO {
+
+    /**
+     * 课程ID
+     */
+    private Long courseId;
+
+    /**
+     * 课程名称
+     */
+    private String courseName;
+
+    /**
+     * 相似度（0-1，共同预约会员数 / sqrt(两门课程各自的预约会员数之积)）
+     */
+    private Double score;
+
+    /**
+     * 同时预约过两门课程的会员数
+     */
+    private Integer coBookedMembers;
+}
@@ -39,4 +39,9 @@ public class CourseScheduleDTO {
      * 课程状态：0-未开始，1-进行中，2-已结束，3-已取消
      */
     private Integer status;
+
+    /**
+     * 重复规则，为空时只创建一次课（仅批量创建时生效）
+     */
+    private ScheduleRecurrenceDTO recurrence;
 }
@@ -0,0 +1,78 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量导入任务进度
+ */
+@Data
+public class ImportTaskDTO {
+
+    /**
+     * 任务ID
+     */
+    private String taskId;
+
+    /**
+     * 导入类型：course-课程，course-schedule-课程时间安排
+     */
+    private String type;
+
+    /**
+     * 文件名
+     */
+    private String fileName;
+
+    /**
+     * 任务状态：0-进行中，1-已完成，2-失败
+     */
+    private Integer status;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long totalBytes;
+
+    /**
+     * 已读取的字节数
+     */
+    private Long readBytes;
+
+    /**
+     * 已处理的数据行数
+     */
+    private Long processedRows;
+
+    /**
+     * 已导入的行数
+     */
+    private Long importedRows;
+
+    /**
+     * 校验或写入失败的行数
+     */
+    private Long failedRows;
+
+    /**
+     * 失败原因（行号从标题行之后的第一行数据开始计为1，最多保留前100条）
+     */
+    private List<String> errors;
+
+    /**
+     * 任务失败时的原因
+     */
+    private String message;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishTime;
+}
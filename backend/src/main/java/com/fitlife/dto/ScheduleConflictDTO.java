@@ -0,0 +1,62 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 课程时间安排冲突信息
+ */
+@Data
+public class ScheduleConflictDTO {
+
+    /**
+     * 冲突类型：LOCATION-上课地点冲突，COACH-教练冲突
+     */
+    private String type;
+
+    /**
+     * 请求中的序号（从0开始，单个创建或更新时为0）
+     */
+    private Integer itemIndex;
+
+    /**
+     * 冲突的上课地点
+     */
+    private String location;
+
+    /**
+     * 冲突的教练ID
+     */
+    private Long coachId;
+
+    /**
+     * 上课时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 下课时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 冲突的已有课程时间安排ID，与同一请求中的其他课程或其他请求正在写入的课程冲突时为空
+     */
+    private Long conflictScheduleId;
+
+    /**
+     * 冲突的同一请求中的序号，与已有课程时间安排冲突时为空
+     */
+    private Integer conflictItemIndex;
+
+    /**
+     * 冲突课程的上课时间
+     */
+    private LocalDateTime conflictStartTime;
+
+    /**
+     * 冲突课程的下课时间
+     */
+    private LocalDateTime conflictEndTime;
+}
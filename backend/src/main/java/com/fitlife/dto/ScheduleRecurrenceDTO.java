@@ -0,0 +1,39 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 课程时间安排重复规则
+ * 以课程时间安排的上课时间为第一次课，按周重复，每次课的时刻和时长与第一次课相同
+ */
+@Data
+public class ScheduleRecurrenceDTO {
+
+    /**
+     * 每周上课的星期：1-周一 ... 7-周日，为空时取第一次课所在的星期
+     */
+    private List<Integer> daysOfWeek;
+
+    /**
+     * 重复间隔（周），1表示每周，2表示隔周
+     */
+    private Integer interval = 1;
+
+    /**
+     * 截止日期（含），与重复次数至少填写一个，同时填写时先到者为准
+     */
+    private LocalDate until;
+
+    /**
+     * 重复次数（含第一次课和排除的日期）
+     */
+    private Integer count;
+
+    /**
+     * 排除的日期（如节假日），这些日期不生成课程时间安排
+     */
+    private List<LocalDate> excludeDates;
+}
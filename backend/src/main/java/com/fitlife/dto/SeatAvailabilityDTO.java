@@ -0,0 +1,35 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+/**
+ * 课程名额推送数据
+ */
+@Data
+public class SeatAvailabilityDTO {
+
+    /**
+     * 课程时间安排ID
+     */
+    private Long scheduleId;
+
+    /**
+     * 最大预约人数
+     */
+    private Integer maxPeople;
+
+    /**
+     * 已预约人数
+     */
+    private Integer bookedPeople;
+
+    /**
+     * 剩余名额
+     */
+    private Integer remainingSeats;
+
+    /**
+     * 课程状态：0-未开始，1-进行中，2-已结束，3-已取消
+     */
+    private Integer status;
+}
@@ -0,0 +1,93 @@
+package com.fitlife.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 周课表数据传输对象（单个上课地点一周的课程）
+ */
+@Data
+public class WeeklyTimetableDTO {
+
+    /**
+     * 上课地点
+     */
+    private String location;
+
+    /**
+     * 周一日期
+     */
+    private LocalDate weekStart;
+
+    /**
+     * 周一到周日的课程，固定7天
+     */
+    private List<Day> days;
+
+    /**
+     * 一天的课程
+     */
+    @Data
+    public static class Day {
+
+        /**
+         * 日期
+         */
+        private LocalDate date;
+
+        /**
+         * 按上课时间排序的课程
+         */
+        private List<Item> items;
+    }
+
+    /**
+     * 课表中的一节课
+     */
+    @Data
+    public static class Item {
+
+        /**
+         * 课程时间安排ID
+         */
+        private Long scheduleId;
+
+        /**
+         * 课程ID
+         */
+        private Long courseId;
+
+        /**
+         * 课程名称
+         */
+        private String courseName;
+
+        /**
+         * 上课时间
+         */
+        private LocalDateTime startTime;
+
+        /**
+         * 下课时间
+         */
+        private LocalDateTime endTime;
+
+        /**
+         * 最大预约人数
+         */
+        private Integer maxPeople;
+
+        /**
+         * 已预约人数
+         */
+        private Integer bookedPeople;
+
+        /**
+         * 课程状态：0-未开始，1-进行中，2-已结束，3-已取消
+         */
+        private Integer status;
+    }
+}
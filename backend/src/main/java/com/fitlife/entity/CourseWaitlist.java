@@ -0,0 +1,77 @@
+package com.fitlife.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 课程候补表
+ */
+@Data
+@TableName("course_waitlist")
+public class CourseWaitlist implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 候补ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 会员ID
+     */
+    @TableField("member_id")
+    private Long memberId;
+
+    /**
+     * 课程ID
+     */
+    @TableField("course_id")
+    private Long courseId;
+
+    /**
+     * 课程时间安排ID
+     */
+    @TableField("schedule_id")
+    private Long scheduleId;
+
+    /**
+     * 候补优先级（会员等级）
+     */
+    @TableField("priority")
+    private Integer priority;
+
+    /**
+     * 候补状态：0-候补中，1-已转正，2-已取消
+     */
+    @TableField("status")
+    private Integer status;
+
+    /**
+     * 转正后的预约ID
+     */
+    @TableField("booking_id")
+    private Long bookingId;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "create_time", fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+
+    /**
+     * 删除标记：0-正常，1-删除
+     */
+    @TableLogic
+    @TableField("deleted")
+    private Integer deleted;
+}
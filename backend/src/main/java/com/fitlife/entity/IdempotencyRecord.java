@@ -0,0 +1,76 @@
+package com.fitlife.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 幂等请求记录表
+ */
+@Data
+@TableName("idempotency_record")
+public class IdempotencyRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 记录ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 幂等键（请求头Idempotency-Key）
+     */
+    @TableField("idempotency_key")
+    private String idempotencyKey;
+
+    /**
+     * 请求操作标识，同一幂等键不能用于不同操作
+     */
+    @TableField("operation")
+    private String operation;
+
+    /**
+     * 处理状态：0-处理中，1-已完成
+     */
+    @TableField("status")
+    private Integer status;
+
+    /**
+     * 响应状态码
+     */
+    @TableField("result_code")
+    private Integer resultCode;
+
+    /**
+     * 响应消息
+     */
+    @TableField("result_message")
+    private String resultMessage;
+
+    /**
+     * 响应数据（JSON）
+     */
+    @TableField("result_data")
+    private String resultData;
+
+    /**
+     * 过期时间
+     */
+    @TableField("expire_time")
+    private LocalDateTime expireTime;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "create_time", fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,72 @@
+package com.fitlife.event;
+
+import com.fitlife.entity.CourseSchedule;
+
+/**
+ * 课程时间安排变更事件
+ * 事务提交后由内存索引等组件处理；bookedDelta不为空时表示仅已预约人数变化，
+ * created不为空时表示新增且事件中已带有完整数据，否则需要重新加载该课程时间安排
+ */
+public class CourseScheduleChangedEvent {
+
+    /**
+     * 课程时间安排ID
+     */
+    private final Long scheduleId;
+
+    /**
+     * 已预约人数变化量，为空表示其他字段变化
+     */
+    private final Integer bookedDelta;
+
+    /**
+     * 新增的课程时间安排，发布后不应再修改
+     */
+    private final CourseSchedule created;
+
+    private CourseScheduleChangedEvent(Long scheduleId, Integer bookedDelta, CourseSchedule created) {
+        this.scheduleId = scheduleId;
+        this.bookedDelta = bookedDelta;
+        this.created = created;
+    }
+
+    /**
+     * 新增课程时间安排，监听方无需重新查询
+     * @param schedule 已插入的课程时间安排
+     * @return 变更事件
+     */
+    public static CourseScheduleChangedEvent created(CourseSchedule schedule) {
+        return new CourseScheduleChangedEvent(schedule.getId(), null, schedule);
+    }
+
+    /**
+     * 课程时间安排修改、删除或状态变化
+     * @param scheduleId 课程时间安排ID
+     * @return 变更事件
+     */
+    public static CourseScheduleChangedEvent changed(Long scheduleId) {
+        return new CourseScheduleChangedEvent(scheduleId, null, null);
+    }
+
+    /**
+     * 已预约人数变化
+     * @param scheduleId 课程时间安排ID
+     * @param delta 变化量
+     * @return 变更事件
+     */
+    public static CourseScheduleChangedEvent booked(Long scheduleId, int delta) {
+        return new CourseScheduleChangedEvent(scheduleId, delta, null);
+    }
+
+    public Long getScheduleId() {
+        return scheduleId;
+    }
+
+    public Integer getBookedDelta() {
+        return bookedDelta;
+    }
+
+    public CourseSchedule getCreated() {
+        return created;
+    }
+}
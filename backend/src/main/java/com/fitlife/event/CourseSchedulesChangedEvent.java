@@ -0,0 +1,24 @@
+package com.fitlife.event;
+
+import java.util.Collection;
+
+/**
+ * 课程时间安排批量变更事件
+ * 大量课程时间安排同时变化（如定时切换状态）时代替逐条发布的CourseScheduleChangedEvent，
+ * 监听方按ID批量重新加载或失效；不含已预约人数变化
+ */
+public class CourseSchedulesChangedEvent {
+
+    /**
+     * 变化的课程时间安排ID，发布后不应再修改
+     */
+    private final Collection<Long> scheduleIds;
+
+    public CourseSchedulesChangedEvent(Collection<Long> scheduleIds) {
+        this.scheduleIds = scheduleIds;
+    }
+
+    public Collection<Long> getScheduleIds() {
+        return scheduleIds;
+    }
+}
@@ -0,0 +1,30 @@
+package com.fitlife.exception;
+
+import com.fitlife.dto.ScheduleConflictDTO;
+
+import java.util.List;
+
+/**
+ * 课程时间安排冲突异常，携带冲突明细
+ */
+public class ScheduleConflictException extends BusinessException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 冲突明细
+     */
+    private final transient List<ScheduleConflictDTO> conflicts;
+
+    /**
+     * 构造方法
+     * @param conflicts 冲突明细
+     */
+    public ScheduleConflictException(List<ScheduleConflictDTO> conflicts) {
+        super(409, "课程时间安排存在冲突");
+        this.conflicts = conflicts;
+    }
+
+    public List<ScheduleConflictDTO> getConflicts() {
+        return conflicts;
+    }
+}
@@ -1,7 +1,9 @@
 package com.fitlife.handler;
 
 import com.fitlife.entity.Result;
+import com.fitlife.dto.ScheduleConflictDTO;
 import com.fitlife.exception.BusinessException;
+import com.fitlife.exception.ScheduleConflictException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -14,6 +16,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
 import java.util.List;
@@ -76,6 +79,16 @@ public class GlobalExceptionHandler {
         return Result.fail(400, "请求体不可读: " + e.getMessage());
     }
 
+    /**
+     * 处理上传文件过大异常
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    public Result handleMaxUploadSizeExceededException(MaxUploadSizeExceededException e) {
+        log.error("上传文件过大: {}", e.getMaxUploadSize(), e);
+        return Result.fail(413, "上传文件过大");
+    }
+
     /**
      * 处理表单参数绑定异常
      */
@@ -104,6 +117,18 @@ public class GlobalExceptionHandler {
         return Result.fail(400, "请求参数错误: " + errorMessage);
     }
 
+    /**
+     * 处理课程时间安排冲突异常，返回冲突明细
+     */
+    @ExceptionHandler(ScheduleConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Result<List<ScheduleConflictDTO>> handleScheduleConflictException(ScheduleConflictException e) {
+        log.warn("课程时间安排冲突: count={}", e.getConflicts().size());
+        Result<List<ScheduleConflictDTO>> result = Result.fail(e.getCode(), e.getMessage());
+        result.setData(e.getConflicts());
+        return result;
+    }
+
     /**
      * 处理业务异常
      */
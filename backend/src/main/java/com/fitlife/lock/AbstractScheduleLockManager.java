@@ -0,0 +1,131 @@
+package com.fitlife.lock;
+
+import com.fitlife.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 课程时间安排锁管理器基类，统一处理等待超时和监控指标
+ * 指标：fitlife.booking.lock.wait-加锁等待耗时，fitlife.booking.lock.timeout-等待超时次数，按type标签区分实现
+ */
+public abstract class AbstractScheduleLockManager implements ScheduleLockManager {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fitlife.booking.lock.wait-timeout-ms:3000}")
+    private long waitTimeoutMs;
+
+    private Timer waitTimer;
+
+    private Counter timeoutCounter;
+
+    @PostConstruct
+    public void initMetrics() {
+        waitTimer = Timer.builder("fitlife.booking.lock.wait")
+                .description("课程时间安排加锁等待耗时")
+                .tag("type", type())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        timeoutCounter = Counter.builder("fitlife.booking.lock.timeout")
+                .description("课程时间安排加锁等待超时次数")
+                .tag("type", type())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T executeWithLock(Long scheduleId, Supplier<T> action) {
+        long start = System.nanoTime();
+        boolean locked;
+        try {
+            locked = tryLock(scheduleId, waitTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("预约被中断", e);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!locked) {
+            timeoutCounter.increment();
+            throw new BusinessException(429, "预约人数过多，请稍后重试");
+        }
+        try {
+            return action.get();
+        } finally {
+            unlock(scheduleId);
+        }
+    }
+
+    @Override
+    public <T> T executeWithLocks(Collection<Long> scheduleIds, Supplier<T> action) {
+        List<Long> ordered = new ArrayList<>(new LinkedHashSet<>(scheduleIds));
+        ordered.sort(Comparator.comparingLong(this::lockOrder).thenComparing(Comparator.naturalOrder()));
+        List<Long> locked = new ArrayList<>(ordered.size());
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+        try {
+            try {
+                for (Long scheduleId : ordered) {
+                    long remainingMs = Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 0);
+                    if (!tryLock(scheduleId, remainingMs)) {
+                        timeoutCounter.increment();
+                        throw new BusinessException(429, "预约人数过多，请稍后重试");
+                    }
+                    locked.add(scheduleId);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException("预约被中断", e);
+            } finally {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return action.get();
+        } finally {
+            for (int i = locked.size() - 1; i >= 0; i--) {
+                unlock(locked.get(i));
+            }
+        }
+    }
+
+    /**
+     * 多个课程时间安排加锁的顺序，默认按ID，多个ID共用同一把锁的实现需按锁的顺序
+     * @param scheduleId 课程时间安排ID
+     * @return 排序值
+     */
+    protected long lockOrder(Long scheduleId) {
+        return scheduleId;
+    }
+
+    /**
+     * 实现类型，用于指标标签
+     * @return 实现类型
+     */
+    protected abstract String type();
+
+    /**
+     * 尝试加锁
+     * @param scheduleId 课程时间安排ID
+     * @param timeoutMs 等待超时时间（毫秒）
+     * @return 是否加锁成功
+     * @throws InterruptedException 等待时被中断
+     */
+    protected abstract boolean tryLock(Long scheduleId, long timeoutMs) throws InterruptedException;
+
+    /**
+     * 释放锁（由加锁的线程调用）
+     * @param scheduleId 课程时间安排ID
+     */
+    protected abstract void unlock(Long scheduleId);
+}
@@ -0,0 +1,42 @@
+package com.fitlife.lock;
+
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redisson公平锁实现，适用于多节点部署
+ * 按请求到达顺序获取锁，未指定租期时由看门狗自动续期，节点宕机后锁随看门狗超时释放
+ */
+@Component
+@ConditionalOnProperty(prefix = "fitlife.booking.lock", name = "type", havingValue = "redisson")
+public class RedissonScheduleLockManager extends AbstractScheduleLockManager {
+
+    private static final String KEY_PREFIX = "fitlife:lock:schedule:";
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Override
+    protected String type() {
+        return "redisson";
+    }
+
+    @Override
+    protected boolean tryLock(Long scheduleId, long timeoutMs) throws InterruptedException {
+        return lockFor(scheduleId).tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void unlock(Long scheduleId) {
+        lockFor(scheduleId).unlock();
+    }
+
+    private RLock lockFor(Long scheduleId) {
+        return redissonClient.getFairLock(KEY_PREFIX + scheduleId);
+    }
+}
@@ -0,0 +1,32 @@
+package com.fitlife.lock;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * 课程时间安排锁管理器
+ * 同一课程时间安排的名额变更串行执行，单节点使用本地分段锁，多节点使用Redisson公平锁，
+ * 通过fitlife.booking.lock.type切换：local-本地分段锁（默认），redisson-Redisson公平锁
+ */
+public interface ScheduleLockManager {
+
+    /**
+     * 持有课程时间安排锁执行操作，等待超时时抛出业务异常（429）
+     * 锁可重入，同一线程内嵌套调用不会死锁
+     * @param scheduleId 课程时间安排ID
+     * @param action 操作
+     * @param <T> 返回值类型
+     * @return 操作结果
+     */
+    <T> T executeWithLock(Long scheduleId, Supplier<T> action);
+
+    /**
+     * 持有多个课程时间安排的锁执行操作，按固定顺序加锁避免死锁，全部等待时间合计超时时抛出业务异常（429）
+     * 需要在事务之外调用，事务中再加锁会与先加锁再锁行的请求形成相反的加锁顺序
+     * @param scheduleIds 课程时间安排ID
+     * @param action 操作
+     * @param <T> 返回值类型
+     * @return 操作结果
+     */
+    <T> T executeWithLocks(Collection<Long> scheduleIds, Supplier<T> action);
+}
@@ -0,0 +1,71 @@
+package com.fitlife.lock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 本地分段锁实现，适用于单节点部署
+ * 课程时间安排ID按哈希映射到固定数量的ReentrantLock，不同课程可能共用同一把锁，但锁数量不随课程增长
+ */
+@Component
+@ConditionalOnProperty(prefix = "fitlife.booking.lock", name = "type", havingValue = "local", matchIfMissing = true)
+public class StripedScheduleLockManager extends AbstractScheduleLockManager {
+
+    @Value("${fitlife.booking.lock.stripes:256}")
+    private int stripes;
+
+    @Value("${fitlife.booking.lock.fair:false}")
+    private boolean fair;
+
+    private ReentrantLock[] locks;
+
+    private int mask;
+
+    @PostConstruct
+    public void init() {
+        // 分段数取不小于配置值的2的幂，便于按位取模
+        int size = Integer.highestOneBit(Math.max(stripes - 1, 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock(fair);
+        }
+        mask = size - 1;
+    }
+
+    @Override
+    protected String type() {
+        return "local";
+    }
+
+    @Override
+    protected boolean tryLock(Long scheduleId, long timeoutMs) throws InterruptedException {
+        return lockFor(scheduleId).tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void unlock(Long scheduleId) {
+        lockFor(scheduleId).unlock();
+    }
+
+    /**
+     * 按分段序号加锁，不同ID映射到同一分段时顺序一致
+     */
+    @Override
+    protected long lockOrder(Long scheduleId) {
+        return stripeOf(scheduleId);
+    }
+
+    private ReentrantLock lockFor(Long scheduleId) {
+        return locks[stripeOf(scheduleId)];
+    }
+
+    private int stripeOf(Long scheduleId) {
+        int hash = scheduleId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,22 @@
+package com.fitlife.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.fitlife.entity.Coach;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 教练数据访问接口
+ */
+@Mapper
+public interface CoachMapper extends BaseMapper<Coach> {
+
+    /**
+     * 查询所有教练姓名
+     * @return 教练列表（仅包含ID和姓名）
+     */
+    @Select("select id, name from coach where deleted = 0")
+    List<Coach> selectNames();
+}
@@ -1,10 +1,19 @@
 package com.fitlife.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.fitlife.dto.CourseDailyBookingDTO;
 import com.fitlife.entity.CourseBooking;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -45,4 +54,61 @@ public interface CourseBookingMapper extends BaseMapper<CourseBooking> {
      */
     @Select("select * from course_booking where member_id = #{memberId} and schedule_id = #{scheduleId} and deleted = 0")
     CourseBooking selectByMemberIdAndScheduleId(Long memberId, Long scheduleId);
+
+    /**
+     * 查询课程时间安排中指定会员的有效预约（待付款或已预约）
+     * @param scheduleId 课程时间安排ID
+     * @param memberIds 会员ID列表
+     * @return 课程预约列表
+     */
+    @Select("<script>select * from course_booking where schedule_id = #{scheduleId} and status in (0, 1) and deleted = 0 " +
+            "and member_id in <foreach collection='memberIds' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    List<CourseBooking> selectActiveByScheduleIdAndMemberIds(@Param("scheduleId") Long scheduleId,
+                                                             @Param("memberIds") Collection<Long> memberIds);
+
+    /**
+     * 取消预约（仅待付款或已预约状态可取消，防止重复取消重复释放名额）
+     * @param bookingId 预约ID
+     * @return 影响行数
+     */
+    @Update("update course_booking set status = 2 where id = #{bookingId} and status in (0, 1) and deleted = 0")
+    int cancelBooking(Long bookingId);
+
+    /**
+     * 支付预约（已支付的预约不再更新，防止重复支付覆盖支付时间）
+     * @param bookingId 预约ID
+     * @param amount 支付金额
+     * @param payTime 支付时间
+     * @return 影响行数
+     */
+    @Update("update course_booking set pay_status = 1, amount = #{amount}, pay_time = #{payTime} " +
+            "where id = #{bookingId} and pay_status <> 1 and deleted = 0")
+    int payBooking(Long bookingId, BigDecimal amount, LocalDateTime payTime);
+
+    /**
+     * 按课程和日期统计指定时间之后的有效预约数量（用于热门课程趋势排行）
+     * @param since 开始时间
+     * @return 每门课程每日的预约数量
+     */
+    @Select("select course_id, cast(create_time as date) as booking_date, count(*) as booking_count from course_booking " +
+            "where create_time >= #{since} and status <> 2 and deleted = 0 group by course_id, cast(create_time as date)")
+    List<CourseDailyBookingDTO> countDailyBookingsSince(LocalDateTime since);
+
+    /**
+     * 流式读取全部有效预约的会员和课程（用于课程共同预约推荐），需在事务中遍历
+     * MySQL需在连接参数中开启useCursorFetch，否则驱动仍会一次读取全部结果
+     * @return 预约游标，只包含id、member_id、course_id
+     */
+    @Select("select id, member_id, course_id from course_booking where status <> 2 and deleted = 0")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<CourseBooking> streamActiveBookings();
+
+    /**
+     * 按ID顺序查询指定ID之后的预约（用于课程共同预约推荐增量更新）
+     * @param afterId 起始ID（不含）
+     * @param limit 查询数量
+     * @return 预约列表，只包含id、member_id、course_id、status、deleted
+     */
+    @Select("select id, member_id, course_id, status, deleted from course_booking where id > #{afterId} order by id limit #{limit}")
+    List<CourseBooking> selectAfterId(Long afterId, Integer limit);
 }
@@ -0,0 +1,22 @@
+package com.fitlife.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.fitlife.entity.CourseCategory;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 课程分类数据访问接口
+ */
+@Mapper
+public interface CourseCategoryMapper extends BaseMapper<CourseCategory> {
+
+    /**
+     * 查询所有未删除分类（用于构建分类树）
+     * @return 分类列表
+     */
+    @Select("select * from course_category where deleted = 0")
+    List<CourseCategory> selectUndeleted();
+}
@@ -3,9 +3,16 @@ package com.fitlife.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.fitlife.entity.Course;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 课程数据访问接口
@@ -21,6 +28,16 @@ public interface CourseMapper extends BaseMapper<Course> {
     @Select("select * from course where category_id = #{categoryId} and status = 1 and deleted = 0 order by create_time desc")
     List<Course> selectByCategoryId(Long categoryId);
 
+    /**
+     * 根据多个分类ID查询课程列表
+     * @param categoryIds 分类ID集合
+     * @return 课程列表
+     */
+    @Select("<script>select * from course where category_id in " +
+            "<foreach collection='categoryIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "and status = 1 and deleted = 0 order by create_time desc</script>")
+    List<Course> selectByCategoryIds(@Param("categoryIds") Collection<Long> categoryIds);
+
     /**
      * 查询热门课程列表
      * @param limit 查询数量
@@ -36,4 +53,62 @@ public interface CourseMapper extends BaseMapper<Course> {
      */
     @Select("select * from course where coach_id = #{coachId} and status = 1 and deleted = 0 order by create_time desc")
     List<Course> selectByCoachId(Long coachId);
+
+    /**
+     * 批量查询课程名称
+     * @param courseIds 课程ID集合
+     * @return 课程列表（仅包含ID和名称）
+     */
+    @Select("<script>select id, name from course where id in " +
+            "<foreach collection='courseIds' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    List<Course> selectNamesByIds(@Param("courseIds") Collection<Long> courseIds);
+
+    /**
+     * 查询所有课程的教练（用于教练时间冲突检测）
+     * @return 课程列表（仅包含ID和教练ID）
+     */
+    @Select("select id, coach_id from course where deleted = 0")
+    List<Course> selectCoachIds();
+
+    /**
+     * 查询指定课程的教练（新课程不在冲突索引的缓存中时使用）
+     * @param courseIds 课程ID列表
+     * @return 课程列表（仅包含ID和教练ID）
+     */
+    @Select("<script>select id, coach_id from course where deleted = 0 and id in " +
+            "<foreach collection='courseIds' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    List<Course> selectCoachIdsByIds(@Param("courseIds") Collection<Long> courseIds);
+
+    /**
+     * 查询所有已上架课程（用于热门课程排行对账）
+     * @return 课程列表
+     */
+    @Select("select * from course where status = 1 and deleted = 0")
+    List<Course> selectPublished();
+
+    /**
+     * 查询所有未删除课程（用于课程搜索索引重建）
+     * @return 课程列表
+     */
+    @Select("select * from course where deleted = 0")
+    List<Course> selectUndeleted();
+
+    /**
+     * 流式读取所有未删除课程（用于导出），需在事务中遍历
+     * MySQL需在连接参数中开启useCursorFetch，否则驱动仍会一次读取全部结果
+     * @return 课程游标
+     */
+    @Select("select * from course where deleted = 0 order by id asc")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<Course> streamUndeleted();
+
+    /**
+     * 批量按增量更新课程已预约人数
+     * @param deltas 课程ID -> 变化量
+     * @return 更新行数
+     */
+    @Update("<script>update course set booked_people = booked_people + case id " +
+            "<foreach collection='deltas' index='id' item='delta'>when #{id} then #{delta} </foreach>end " +
+            "where id in <foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    int batchAddBookedPeople(@Param("deltas") Map<Long, Long> deltas);
 }
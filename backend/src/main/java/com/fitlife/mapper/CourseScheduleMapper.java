@@ -3,10 +3,17 @@ package com.fitlife.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.fitlife.entity.CourseSchedule;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 课程预约时间安排数据访问接口
@@ -39,4 +46,114 @@ public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
      */
     @Select("select * from course_schedule where start_time > #{currentTime} and status = 0 and deleted = 0 order by start_time asc limit #{limit}")
     List<CourseSchedule> selectUpcomingCourses(LocalDateTime currentTime, Integer limit);
+
+    /**
+     * 查询上课时间不早于指定时间的课程预约时间安排（用于加载内存索引）
+     * @param startTime 开始时间
+     * @return 课程预约时间安排列表
+     */
+    @Select("select * from course_schedule where start_time >= #{startTime} and deleted = 0")
+    List<CourseSchedule> selectStartingFrom(LocalDateTime startTime);
+
+    /**
+     * 按条件流式读取课程预约时间安排（用于导出），需在事务中遍历
+     * MySQL需在连接参数中开启useCursorFetch，否则驱动仍会一次读取全部结果
+     * @param courseId 课程ID，为空时不限
+     * @param startTime 上课时间不早于该时间，为空时不限
+     * @param endTime 上课时间早于该时间，为空时不限
+     * @return 课程预约时间安排游标
+     */
+    @Select("<script>select * from course_schedule where deleted = 0" +
+            "<if test='courseId != null'> and course_id = #{courseId}</if>" +
+            "<if test='startTime != null'> and start_time &gt;= #{startTime}</if>" +
+            "<if test='endTime != null'> and start_time &lt; #{endTime}</if>" +
+            " order by start_time asc, id asc</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<CourseSchedule> streamForExport(@Param("courseId") Long courseId, @Param("startTime") LocalDateTime startTime,
+                                           @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 条件更新预约人数（单条语句完成校验与更新，避免先查后改导致超卖）
+     * 增加时要求课程未取消且不超过最大预约人数，减少时要求结果不小于0
+     * @param scheduleId 课程预约时间安排ID
+     * @param delta 变化量（正数增加，负数减少）
+     * @return 影响行数，0表示条件不满足
+     */
+    @Update("update course_schedule set booked_people = booked_people + #{delta} " +
+            "where id = #{scheduleId} and deleted = 0 and booked_people + #{delta} >= 0 " +
+            "and (#{delta} < 0 or (booked_people + #{delta} <= max_people and status <> 3))")
+    int updateBookedPeople(Long scheduleId, Integer delta);
+
+    /**
+     * 更新课程状态（只更新状态，不写回读取时的预约人数）
+     * @param scheduleId 课程预约时间安排ID
+     * @param status 课程状态
+     * @return 影响行数
+     */
+    @Update("update course_schedule set status = #{status} where id = #{scheduleId} and deleted = 0")
+    int updateStatus(Long scheduleId, Integer status);
+
+    /**
+     * 条件逻辑删除，已有预约时不删除（校验与删除在同一条语句中完成）
+     * @param scheduleId 课程预约时间安排ID
+     * @return 影响行数，0表示已有预约或已删除
+     */
+    @Update("update course_schedule set deleted = 1 where id = #{scheduleId} and deleted = 0 and booked_people = 0")
+    int deleteIfNotBooked(Long scheduleId);
+
+    /**
+     * 批量查询并锁定课程预约时间安排（按ID顺序加锁，避免死锁）
+     * @param scheduleIds 课程预约时间安排ID列表
+     * @return 课程预约时间安排列表
+     */
+    @Select("<script>select * from course_schedule where deleted = 0 and id in " +
+            "<foreach collection='scheduleIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "order by id asc for update</script>")
+    List<CourseSchedule> selectByIdsForUpdate(@Param("scheduleIds") List<Long> scheduleIds);
+
+    /**
+     * 多行条件更新预约人数，每个课程预约时间安排增加各自的人数
+     * @param deltas 课程预约时间安排ID到增加人数的映射
+     * @return 影响行数，小于映射数量表示有课程人数不足
+     */
+    @Update("<script>update course_schedule set booked_people = booked_people + case id " +
+            "<foreach collection='deltas' index='scheduleId' item='delta'>when #{scheduleId} then #{delta} </foreach>end " +
+            "where deleted = 0 and status &lt;&gt; 3 and id in " +
+            "<foreach collection='deltas' index='scheduleId' open='(' separator=',' close=')'>#{scheduleId}</foreach> " +
+            "and booked_people + case id " +
+            "<foreach collection='deltas' index='scheduleId' item='delta'>when #{scheduleId} then #{delta} </foreach>end " +
+            "&lt;= max_people</script>")
+    int batchIncreaseBookedPeople(@Param("deltas") Map<Long, Integer> deltas);
+
+    /**
+     * 查询需要切换状态的课程预约时间安排：上课时间早于指定时间的未开始课程，以及所有进行中的课程
+     * 只查询状态切换所需的字段，使用idx_schedule_status_start_time
+     * @param to 上课时间上限（不含）
+     * @return 课程预约时间安排列表
+     */
+    @Select("select id, start_time, end_time, status from course_schedule " +
+            "where deleted = 0 and ((status = 0 and start_time < #{to}) or status = 1)")
+    List<CourseSchedule> selectPendingTransitions(LocalDateTime to);
+
+    /**
+     * 批量将已到上课时间的未开始课程切换为进行中
+     * @param scheduleIds 课程预约时间安排ID列表
+     * @param now 当前时间
+     * @return 影响行数
+     */
+    @Update("<script>update course_schedule set status = 1 " +
+            "where deleted = 0 and status = 0 and start_time &lt;= #{now} and end_time &gt; #{now} and id in " +
+            "<foreach collection='scheduleIds' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    int batchStartSchedules(@Param("scheduleIds") Collection<Long> scheduleIds, @Param("now") LocalDateTime now);
+
+    /**
+     * 批量将已到下课时间的未开始、进行中课程切换为已结束
+     * @param scheduleIds 课程预约时间安排ID列表
+     * @param now 当前时间
+     * @return 影响行数
+     */
+    @Update("<script>update course_schedule set status = 2 " +
+            "where deleted = 0 and status in (0, 1) and end_time &lt;= #{now} and id in " +
+            "<foreach collection='scheduleIds' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    int batchFinishSchedules(@Param("scheduleIds") Collection<Long> scheduleIds, @Param("now") LocalDateTime now);
 }
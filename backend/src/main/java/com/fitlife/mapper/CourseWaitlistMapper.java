@@ -0,0 +1,64 @@
+package com.fitlife.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.fitlife.entity.CourseWaitlist;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 课程候补数据访问接口
+ */
+@Mapper
+public interface CourseWaitlistMapper extends BaseMapper<CourseWaitlist> {
+
+    /**
+     * 查询尚未开课的课程时间安排的候补中记录
+     * @param now 当前时间
+     * @return 候补记录列表
+     */
+    @Select("select w.* from course_waitlist w join course_schedule s on s.id = w.schedule_id " +
+            "where w.status = 0 and w.deleted = 0 and s.deleted = 0 and s.start_time > #{now} order by w.id asc")
+    List<CourseWaitlist> selectWaitingBefore(LocalDateTime now);
+
+    /**
+     * 按转正顺序查询课程时间安排的候补中记录
+     * @param scheduleId 课程时间安排ID
+     * @param priority 是否会员等级优先
+     * @param limit 查询数量
+     * @return 候补记录列表
+     */
+    @Select("<script>select * from course_waitlist where schedule_id = #{scheduleId} and status = 0 and deleted = 0 " +
+            "order by <if test='priority'>priority desc, </if>id asc limit #{limit}</script>")
+    List<CourseWaitlist> selectWaitingByScheduleId(@Param("scheduleId") Long scheduleId, @Param("priority") boolean priority,
+                                                   @Param("limit") int limit);
+
+    /**
+     * 根据会员ID和课程时间安排ID查询候补中的记录
+     * @param memberId 会员ID
+     * @param scheduleId 课程时间安排ID
+     * @return 候补记录
+     */
+    @Select("select * from course_waitlist where member_id = #{memberId} and schedule_id = #{scheduleId} and status = 0 and deleted = 0 limit 1")
+    CourseWaitlist selectWaitingByMemberIdAndScheduleId(Long memberId, Long scheduleId);
+
+    /**
+     * 候补转正（仅候补中的记录可转正，防止并发重复转正）
+     * @param waitlistId 候补ID
+     * @return 影响行数
+     */
+    @Update("update course_waitlist set status = 1 where id = #{waitlistId} and status = 0 and deleted = 0")
+    int promote(Long waitlistId);
+
+    /**
+     * 取消候补
+     * @param waitlistId 候补ID
+     * @return 影响行数
+     */
+    @Update("update course_waitlist set status = 2 where id = #{waitlistId} and status = 0 and deleted = 0")
+    int cancel(Long waitlistId);
+}
@@ -0,0 +1,67 @@
+package com.fitlife.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.fitlife.entity.IdempotencyRecord;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+
+/**
+ * 幂等请求记录数据访问接口
+ */
+@Mapper
+public interface IdempotencyRecordMapper extends BaseMapper<IdempotencyRecord> {
+
+    /**
+     * 根据幂等键查询记录
+     * @param idempotencyKey 幂等键
+     * @return 幂等请求记录
+     */
+    @Select("select * from idempotency_record where idempotency_key = #{idempotencyKey}")
+    IdempotencyRecord selectByKey(String idempotencyKey);
+
+    /**
+     * 接管处理超时的记录（处理节点异常退出后，重试请求可重新执行）
+     * @param id 记录ID
+     * @param before 最后更新时间早于该时间视为超时
+     * @param now 当前时间
+     * @return 影响行数
+     */
+    @Update("update idempotency_record set update_time = #{now} where id = #{id} and status = 0 and update_time < #{before}")
+    int reclaim(Long id, LocalDateTime before, LocalDateTime now);
+
+    /**
+     * 重新占用已过期但尚未清理的记录（视为新请求，清空保存的响应）
+     * @param id 记录ID
+     * @param operation 请求操作标识
+     * @param expireTime 新的过期时间
+     * @param now 当前时间
+     * @return 影响行数，0表示记录未过期或已被其他请求占用
+     */
+    @Update("update idempotency_record set operation = #{operation}, status = 0, result_code = null, result_message = null, " +
+            "result_data = null, expire_time = #{expireTime}, update_time = #{now} where id = #{id} and expire_time < #{now}")
+    int renew(Long id, String operation, LocalDateTime expireTime, LocalDateTime now);
+
+    /**
+     * 保存响应结果
+     * @param id 记录ID
+     * @param resultCode 响应状态码
+     * @param resultMessage 响应消息
+     * @param resultData 响应数据（JSON）
+     * @return 影响行数
+     */
+    @Update("update idempotency_record set status = 1, result_code = #{resultCode}, result_message = #{resultMessage}, " +
+            "result_data = #{resultData} where id = #{id} and status = 0")
+    int complete(Long id, Integer resultCode, String resultMessage, String resultData);
+
+    /**
+     * 删除过期记录
+     * @param now 当前时间
+     * @return 删除数量
+     */
+    @Delete("delete from idempotency_record where expire_time < #{now}")
+    int deleteExpired(LocalDateTime now);
+}
@@ -0,0 +1,12 @@
+package com.fitlife.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.fitlife.entity.MarketingActivity;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 营销活动数据访问接口
+ */
+@Mapper
+public interface MarketingActivityMapper extends BaseMapper<MarketingActivity> {
+}
@@ -3,6 +3,7 @@ package com.fitlife.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.fitlife.entity.Member;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
 
 /**
  * 会员Mapper接口
@@ -16,4 +17,12 @@ public interface MemberMapper extends BaseMapper<Member> {
      * @return 会员信息
      */
     Member selectByOpenid(String openid);
+
+    /**
+     * 查询会员等级
+     * @param memberId 会员ID
+     * @return 会员等级
+     */
+    @Select("select level from member where id = #{memberId} and deleted = 0")
+    Integer selectLevelById(Long memberId);
 }
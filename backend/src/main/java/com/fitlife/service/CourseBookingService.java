@@ -3,8 +3,10 @@ package com.fitlife.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.fitlife.entity.CourseBooking;
 import com.fitlife.entity.PageResult;
+import com.fitlife.dto.CourseBatchBookingDTO;
 import com.fitlife.dto.CourseBookingDTO;
 import com.fitlife.dto.CourseBookingQueryDTO;
+import com.fitlife.dto.CourseBookingResultDTO;
 
 import java.util.List;
 
@@ -34,6 +36,13 @@ public interface CourseBookingService extends IService<CourseBooking> {
      */
     CourseBooking bookCourse(CourseBookingDTO bookingDTO);
 
+    /**
+     * 批量预约课程，一次查询校验所有课程时间安排，一次更新占用名额，批量插入预约
+     * @param batchBookingDTO 批量预约信息
+     * @return 每项的预约结果，顺序与请求一致
+     */
+    List<CourseBookingResultDTO> batchBookCourses(CourseBatchBookingDTO batchBookingDTO);
+
     /**
      * 取消预约
      * @param bookingId 预约ID
@@ -0,0 +1,40 @@
+package com.fitlife.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.fitlife.cache.CategoryTreeSnapshot;
+import com.fitlife.dto.CourseCategoryDTO;
+import com.fitlife.entity.CourseCategory;
+
+/**
+ * 课程分类服务接口
+ */
+public interface CourseCategoryService extends IService<CourseCategory> {
+
+    /**
+     * 获取分类树（仅包含启用的分类）
+     * @return 分类树快照
+     */
+    CategoryTreeSnapshot getCategoryTree();
+
+    /**
+     * 创建分类
+     * @param categoryDTO 分类信息
+     * @return 分类
+     */
+    CourseCategory createCategory(CourseCategoryDTO categoryDTO);
+
+    /**
+     * 更新分类
+     * @param categoryId 分类ID
+     * @param categoryDTO 分类信息
+     * @return 分类
+     */
+    CourseCategory updateCategory(Long categoryId, CourseCategoryDTO categoryDTO);
+
+    /**
+     * 删除分类（存在子分类或课程时不允许删除）
+     * @param categoryId 分类ID
+     * @return 是否成功
+     */
+    boolean deleteCategory(Long categoryId);
+}
@@ -1,11 +1,17 @@
 package com.fitlife.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.fitlife.cache.TimetableSnapshot;
 import com.fitlife.entity.CourseSchedule;
 import com.fitlife.entity.PageResult;
 import com.fitlife.dto.CourseScheduleDTO;
 import com.fitlife.dto.CourseScheduleQueryDTO;
+import com.fitlife.dto.ImportTaskDTO;
+import com.fitlife.dto.ScheduleConflictDTO;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.Writer;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -35,6 +41,20 @@ public interface CourseScheduleService extends IService<CourseSchedule> {
      */
     CourseSchedule createCourseSchedule(CourseScheduleDTO scheduleDTO);
 
+    /**
+     * 批量创建课程预约时间安排，按重复规则展开后在同一事务中批量插入
+     * @param scheduleDTOs 课程预约时间安排信息列表（可带重复规则）
+     * @return 创建的课程预约时间安排列表
+     */
+    List<CourseSchedule> batchCreateCourseSchedules(List<CourseScheduleDTO> scheduleDTOs);
+
+    /**
+     * 检查课程预约时间安排的上课地点和教练冲突（不写入）
+     * @param scheduleDTOs 课程预约时间安排信息列表（可带重复规则）
+     * @return 冲突列表，没有冲突时为空
+     */
+    List<ScheduleConflictDTO> checkScheduleConflicts(List<CourseScheduleDTO> scheduleDTOs);
+
     /**
      * 更新课程预约时间安排
      * @param scheduleId 课程预约时间安排ID
@@ -80,6 +100,14 @@ public interface CourseScheduleService extends IService<CourseSchedule> {
      */
     boolean updateBookedPeople(Long scheduleId, Integer delta);
 
+    /**
+     * 条件更新课程预约时间安排的预约人数，条件不满足（人数已满、课程已取消或已删除）时返回false，不查询原因
+     * @param scheduleId 课程预约时间安排ID
+     * @param delta 变化量（正数增加，负数减少）
+     * @return 是否成功
+     */
+    boolean tryUpdateBookedPeople(Long scheduleId, Integer delta);
+
     /**
      * 更新课程预约时间安排状态
      * @param scheduleId 课程预约时间安排ID
@@ -87,4 +115,35 @@ public interface CourseScheduleService extends IService<CourseSchedule> {
      * @return 是否成功
      */
     boolean updateCourseScheduleStatus(Long scheduleId, Integer status);
+
+    /**
+     * 获取上课地点的周课表
+     * @param location 上课地点
+     * @param date 所在周的任意日期
+     * @return 周课表快照
+     */
+    TimetableSnapshot getWeeklyTimetable(String location, LocalDate date);
+
+    /**
+     * 从CSV文件批量导入课程预约时间安排，后台逐批写入，与已有课程或文件中其他行冲突的行跳过
+     * @param file CSV文件
+     * @return 导入任务进度
+     */
+    ImportTaskDTO importCourseSchedules(MultipartFile file);
+
+    /**
+     * 查询课程预约时间安排导入任务进度
+     * @param taskId 任务ID
+     * @return 导入任务进度
+     */
+    ImportTaskDTO getCourseScheduleImportTask(String taskId);
+
+    /**
+     * 按条件导出课程预约时间安排为CSV
+     * @param courseId 课程ID，为空时不限
+     * @param startTime 上课时间不早于该时间，为空时不限
+     * @param endTime 上课时间早于该时间，为空时不限
+     * @param writer 输出
+     */
+    void exportCourseSchedules(Long courseId, LocalDateTime startTime, LocalDateTime endTime, Writer writer);
 }
@@ -2,10 +2,14 @@ package com.fitlife.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.fitlife.entity.Course;
-import com.fitlife.entity.PageResult;
+import com.fitlife.dto.CoursePageResultDTO;
+import com.fitlife.dto.CourseRecommendationDTO;
 import com.fitlife.dto.CourseDTO;
 import com.fitlife.dto.CourseQueryDTO;
+import com.fitlife.dto.ImportTaskDTO;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -16,9 +20,9 @@ public interface CourseService extends IService<Course> {
     /**
      * 分页查询课程列表
      * @param queryDTO 查询条件
-     * @return 分页结果
+     * @return 分页结果（非关键词查询附带筛选项统计）
      */
-    PageResult<Course> listCourses(CourseQueryDTO queryDTO);
+    CoursePageResultDTO listCourses(CourseQueryDTO queryDTO);
 
     /**
      * 获取课程详情
@@ -57,11 +61,12 @@ public interface CourseService extends IService<Course> {
     boolean unpublishCourse(Long courseId);
 
     /**
-     * 根据分类ID查询课程列表
+     * 根据分类查询课程列表
      * @param categoryId 分类ID
+     * @param includeChildren 是否包含子分类
      * @return 课程列表
      */
-    List<Course> getCoursesByCategoryId(Long categoryId);
+    List<Course> getCoursesByCategoryId(Long categoryId, Boolean includeChildren);
 
     /**
      * 查询热门课程列表
@@ -70,6 +75,21 @@ public interface CourseService extends IService<Course> {
      */
     List<Course> getHotCourses(Integer limit);
 
+    /**
+     * 查询近期趋势课程列表（近期预约数按时间衰减排序）
+     * @param limit 查询数量
+     * @return 课程列表
+     */
+    List<Course> getTrendingCourses(Integer limit);
+
+    /**
+     * 查询相似课程（预约过该课程的会员还预约了）
+     * @param courseId 课程ID
+     * @param limit 查询数量
+     * @return 按相似度降序的已上架课程
+     */
+    List<CourseRecommendationDTO> getSimilarCourses(Long courseId, Integer limit);
+
     /**
      * 根据教练ID查询课程列表
      * @param coachId 教练ID
@@ -84,4 +104,24 @@ public interface CourseService extends IService<Course> {
      * @return 是否成功
      */
     boolean updateBookedPeople(Long courseId, Integer delta);
+
+    /**
+     * 从CSV文件批量导入课程，后台逐批写入，导入的课程为未上架状态
+     * @param file CSV文件
+     * @return 导入任务进度
+     */
+    ImportTaskDTO importCourses(MultipartFile file);
+
+    /**
+     * 查询课程导入任务进度
+     * @param taskId 任务ID
+     * @return 导入任务进度
+     */
+    ImportTaskDTO getCourseImportTask(String taskId);
+
+    /**
+     * 导出所有未删除课程为CSV
+     * @param writer 输出
+     */
+    void exportCourses(Writer writer);
 }
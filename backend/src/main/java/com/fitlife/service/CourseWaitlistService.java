@@ -0,0 +1,49 @@
+package com.fitlife.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.fitlife.dto.CourseBookingDTO;
+import com.fitlife.entity.CourseBooking;
+import com.fitlife.entity.CourseWaitlist;
+
+/**
+ * 课程候补服务接口
+ */
+public interface CourseWaitlistService extends IService<CourseWaitlist> {
+
+    /**
+     * 加入候补队列（仅人数已满的课程可以候补）
+     * @param bookingDTO 预约信息
+     * @return 候补位置（从1开始）
+     */
+    int joinWaitlist(CourseBookingDTO bookingDTO);
+
+    /**
+     * 退出候补队列
+     * @param memberId 会员ID
+     * @param scheduleId 课程时间安排ID
+     * @return 是否成功
+     */
+    boolean leaveWaitlist(Long memberId, Long scheduleId);
+
+    /**
+     * 查询候补位置
+     * @param memberId 会员ID
+     * @param scheduleId 课程时间安排ID
+     * @return 候补位置（从1开始），不在候补队列中时返回0
+     */
+    int getWaitlistPosition(Long memberId, Long scheduleId);
+
+    /**
+     * 将释放的名额转给下一位候补会员，需在释放名额的事务中调用
+     * @param scheduleId 课程时间安排ID
+     * @return 转正后的预约信息，没有候补会员时返回null
+     */
+    CourseBooking promoteNext(Long scheduleId);
+
+    /**
+     * 将空余名额依次转给候补会员（如增加最大预约人数后），每个名额单独提交；秒杀中的课程不转正
+     * @param scheduleId 课程时间安排ID
+     * @return 转正的人数
+     */
+    int promoteAvailable(Long scheduleId);
+}
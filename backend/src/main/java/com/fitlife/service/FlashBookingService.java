@@ -0,0 +1,51 @@
+package com.fitlife.service;
+
+import com.fitlife.dto.CourseBookingDTO;
+import com.fitlife.entity.CourseBooking;
+
+/**
+ * 秒杀预约服务接口
+ * 开启秒杀模式的课程时间安排，名额预加载到Redis中，通过脚本原子扣减，预约记录由写回任务批量落库
+ */
+public interface FlashBookingService {
+
+    /**
+     * 开启秒杀预约模式，按当前剩余名额和已预约会员初始化Redis
+     * @param scheduleId 课程时间安排ID
+     * @return 预加载的剩余名额
+     */
+    int openFlashSale(Long scheduleId);
+
+    /**
+     * 关闭秒杀预约模式，已扣减的名额仍会继续落库
+     * @param scheduleId 课程时间安排ID
+     */
+    void closeFlashSale(Long scheduleId);
+
+    /**
+     * 是否处于秒杀预约模式
+     * @param scheduleId 课程时间安排ID
+     * @return 是否秒杀模式
+     */
+    boolean isFlashSale(Long scheduleId);
+
+    /**
+     * 秒杀预约，扣减名额后等待写回任务落库，落库失败时名额归还并抛出异常
+     * @param bookingDTO 预约信息
+     * @return 已落库的预约信息，秒杀已结束时返回null，由调用方走普通预约流程
+     */
+    CourseBooking book(CourseBookingDTO bookingDTO);
+
+    /**
+     * 取消预约后归还秒杀名额
+     * @param scheduleId 课程时间安排ID
+     * @param memberId 会员ID
+     */
+    void release(Long scheduleId, Long memberId);
+
+    /**
+     * 将Redis中排队的预约写入数据库
+     * @return 本次写入的预约数量
+     */
+    int flushPendingBookings();
+}
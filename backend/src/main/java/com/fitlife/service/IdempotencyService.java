@@ -0,0 +1,43 @@
+package com.fitlife.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fitlife.entity.IdempotencyRecord;
+import com.fitlife.entity.Result;
+
+import java.util.function.Supplier;
+
+/**
+ * 幂等请求服务接口
+ * 首次出现的幂等键执行操作并保存响应，重复请求直接返回保存的响应
+ */
+public interface IdempotencyService extends IService<IdempotencyRecord> {
+
+    /**
+     * 按幂等键执行操作
+     * @param idempotencyKey 幂等键，为空时直接执行
+     * @param operation 请求操作标识
+     * @param dataType 响应数据类型
+     * @param supplier 操作
+     * @param <T> 数据类型
+     * @return 响应结果
+     */
+    <T> Result<T> execute(String idempotencyKey, String operation, Class<T> dataType, Supplier<T> supplier);
+
+    /**
+     * 按幂等键执行操作
+     * @param idempotencyKey 幂等键，为空时直接执行
+     * @param operation 请求操作标识
+     * @param dataType 响应数据类型（泛型类型）
+     * @param supplier 操作
+     * @param <T> 数据类型
+     * @return 响应结果
+     */
+    <T> Result<T> execute(String idempotencyKey, String operation, TypeReference<T> dataType, Supplier<T> supplier);
+
+    /**
+     * 清理过期的幂等记录
+     * @return 清理数量
+     */
+    int cleanExpiredRecords();
+}
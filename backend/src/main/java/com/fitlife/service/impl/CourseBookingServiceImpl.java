@@ -4,22 +4,42 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fitlife.dto.CourseBatchBookingDTO;
 import com.fitlife.dto.CourseBookingDTO;
 import com.fitlife.dto.CourseBookingQueryDTO;
+import com.fitlife.dto.CourseBookingResultDTO;
 import com.fitlife.entity.CourseBooking;
 import com.fitlife.entity.CourseSchedule;
+import com.fitlife.entity.MarketingActivity;
 import com.fitlife.entity.PageResult;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.cache.ScheduleSeatLedger;
 import com.fitlife.exception.BusinessException;
+import com.fitlife.lock.ScheduleLockManager;
 import com.fitlife.mapper.CourseBookingMapper;
+import com.fitlife.mapper.CourseScheduleMapper;
+import com.fitlife.mapper.MarketingActivityMapper;
 import com.fitlife.service.CourseBookingService;
 import com.fitlife.service.CourseScheduleService;
+import com.fitlife.service.CourseWaitlistService;
+import com.fitlife.service.FlashBookingService;
+import com.fitlife.task.BookingWritePipeline;
+import com.fitlife.util.TransactionUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 课程预约服务实现类
@@ -27,12 +47,44 @@ import java.util.List;
 @Service
 public class CourseBookingServiceImpl extends ServiceImpl<CourseBookingMapper, CourseBooking> implements CourseBookingService {
 
+    /**
+     * 单次批量预约的最大数量
+     */
+    private static final int MAX_BATCH_BOOKING_SIZE = 200;
+
     @Autowired
     private CourseBookingMapper courseBookingMapper;
 
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    @Autowired
+    private MarketingActivityMapper marketingActivityMapper;
+
     @Autowired
     private CourseScheduleService courseScheduleService;
 
+    @Autowired
+    private ScheduleSeatLedger scheduleSeatLedger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ScheduleLockManager scheduleLockManager;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired(required = false)
+    private FlashBookingService flashBookingService;
+
+    @Autowired
+    private BookingWritePipeline bookingWritePipeline;
+
+    @Autowired
+    private CourseWaitlistService courseWaitlistService;
+
     @Override
     public PageResult<CourseBooking> listCourseBookings(CourseBookingQueryDTO queryDTO) {
         // 构建查询条件
@@ -85,8 +137,58 @@ public class CourseBookingServiceImpl extends ServiceImpl<CourseBookingMapper, C
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public CourseBooking bookCourse(CourseBookingDTO bookingDTO) {
+        Long scheduleId = bookingDTO.getScheduleId();
+        // 秒杀模式的课程时间安排在Redis中扣减名额，预约记录异步落库
+        if (flashBookingService != null && flashBookingService.isFlashSale(scheduleId)) {
+            CourseBooking booking = flashBookingService.book(bookingDTO);
+            if (booking != null) {
+                return booking;
+            }
+        }
+        // 内存账本预占名额，人数已满时直接拒绝，不开启事务也不访问数据库
+        if (!scheduleSeatLedger.tryReserve(scheduleId)) {
+            throw new BusinessException("课程预约人数已满");
+        }
+        try {
+            // 开启批量写入时由写入管道合并提交，否则单独开启事务
+            if (bookingWritePipeline.isEnabled()) {
+                checkBookable(bookingDTO);
+                return bookingWritePipeline.write(newBooking(bookingDTO));
+            }
+            // 持锁范围包含整个事务，提交后才释放
+            return scheduleLockManager.executeWithLock(scheduleId,
+                    () -> transactionTemplate.execute(status -> doBookCourse(bookingDTO)));
+        } catch (RuntimeException e) {
+            // 预约失败（包括事务回滚），归还预占的名额
+            scheduleSeatLedger.release(scheduleId);
+            throw e;
+        }
+    }
+
+    /**
+     * 预约课程（在事务中执行）
+     * @param bookingDTO 预约信息
+     * @return 预约信息
+     */
+    private CourseBooking doBookCourse(CourseBookingDTO bookingDTO) {
+        checkBookable(bookingDTO);
+
+        // 占用名额（条件更新，人数已满时抛出异常，不会超卖）
+        courseScheduleService.updateBookedPeople(bookingDTO.getScheduleId(), 1);
+
+        // 创建预约
+        CourseBooking booking = newBooking(bookingDTO);
+        courseBookingMapper.insert(booking);
+
+        return booking;
+    }
+
+    /**
+     * 检查会员是否可以预约该课程时间安排
+     * @param bookingDTO 预约信息
+     */
+    private void checkBookable(CourseBookingDTO bookingDTO) {
         // 检查是否已经预约
         CourseBooking existingBooking = courseBookingMapper.selectByMemberIdAndScheduleId(bookingDTO.getMemberId(), bookingDTO.getScheduleId());
         if (existingBooking != null) {
@@ -105,23 +207,158 @@ public class CourseBookingServiceImpl extends ServiceImpl<CourseBookingMapper, C
         if (schedule.getStatus() == 3) {
             throw new BusinessException("课程已取消，无法预约");
         }
+    }
 
-        // 检查是否超过最大预约人数
-        if (schedule.getBookedPeople() >= schedule.getMaxPeople()) {
-            throw new BusinessException("课程预约人数已满");
-        }
-
-        // 创建预约
+    /**
+     * 根据预约信息创建预约记录
+     * @param bookingDTO 预约信息
+     * @return 预约记录
+     */
+    private CourseBooking newBooking(CourseBookingDTO bookingDTO) {
         CourseBooking booking = new CourseBooking();
         BeanUtils.copyProperties(bookingDTO, booking);
         booking.setStatus(1); // 初始状态为已预约
         booking.setPayStatus(0); // 初始支付状态为未支付
-        courseBookingMapper.insert(booking);
+        return booking;
+    }
 
-        // 更新课程时间安排的预约人数
-        courseScheduleService.updateBookedPeople(bookingDTO.getScheduleId(), 1);
+    @Override
+    public List<CourseBookingResultDTO> batchBookCourses(CourseBatchBookingDTO batchBookingDTO) {
+        List<CourseBookingDTO> items = batchBookingDTO.getItems();
+        if (items == null || items.isEmpty()) {
+            throw new BusinessException("预约明细不能为空");
+        }
+        if (items.size() > MAX_BATCH_BOOKING_SIZE) {
+            throw new BusinessException("单次最多预约" + MAX_BATCH_BOOKING_SIZE + "项");
+        }
+        if (batchBookingDTO.getActivityId() != null) {
+            checkGroupBuyActivity(batchBookingDTO.getActivityId());
+        }
 
-        return booking;
+        Set<Long> scheduleIds = new HashSet<>();
+        Set<Long> memberIds = new HashSet<>();
+        for (CourseBookingDTO item : items) {
+            scheduleIds.add(item.getScheduleId());
+            memberIds.add(item.getMemberId());
+        }
+        // 与单条预约一样持有课程时间安排锁（按固定顺序加锁），持锁范围包含整个事务
+        return scheduleLockManager.executeWithLocks(scheduleIds,
+                () -> transactionTemplate.execute(status -> doBatchBookCourses(batchBookingDTO, scheduleIds, memberIds)));
+    }
+
+    /**
+     * 批量预约课程（在事务中执行）
+     * @param batchBookingDTO 批量预约信息
+     * @param scheduleIds 涉及的课程时间安排ID
+     * @param memberIds 涉及的会员ID
+     * @return 每项的预约结果
+     */
+    private List<CourseBookingResultDTO> doBatchBookCourses(CourseBatchBookingDTO batchBookingDTO, Set<Long> scheduleIds,
+                                                            Set<Long> memberIds) {
+        List<CourseBookingDTO> items = batchBookingDTO.getItems();
+        // 一次查询锁定所有课程时间安排
+        Map<Long, CourseSchedule> scheduleMap = new HashMap<>();
+        for (CourseSchedule schedule : courseScheduleMapper.selectByIdsForUpdate(new ArrayList<>(scheduleIds))) {
+            scheduleMap.put(schedule.getId(), schedule);
+        }
+
+        // 一次查询已有预约（与单条预约一致，已删除的预约不影响重新预约）
+        LambdaQueryWrapper<CourseBooking> bookedWrapper = new LambdaQueryWrapper<>();
+        bookedWrapper.eq(CourseBooking::getDeleted, 0)
+                .in(CourseBooking::getMemberId, memberIds).in(CourseBooking::getScheduleId, scheduleIds);
+        Set<String> bookedKeys = new HashSet<>();
+        for (CourseBooking booking : courseBookingMapper.selectList(bookedWrapper)) {
+            bookedKeys.add(booking.getMemberId() + ":" + booking.getScheduleId());
+        }
+
+        // 逐项校验，按课程时间安排累计占用的名额
+        LocalDateTime now = LocalDateTime.now();
+        List<CourseBookingResultDTO> results = new ArrayList<>(items.size());
+        List<CourseBooking> bookings = new ArrayList<>();
+        List<CourseBookingResultDTO> acceptedResults = new ArrayList<>();
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (CourseBookingDTO item : items) {
+            CourseBookingResultDTO result = new CourseBookingResultDTO();
+            result.setMemberId(item.getMemberId());
+            result.setScheduleId(item.getScheduleId());
+            results.add(result);
+
+            CourseSchedule schedule = scheduleMap.get(item.getScheduleId());
+            String error = null;
+            if (schedule == null) {
+                error = "课程预约时间安排不存在";
+            } else if (!bookedKeys.add(item.getMemberId() + ":" + item.getScheduleId())) {
+                error = "您已经预约了该课程";
+            } else if (schedule.getStartTime().isBefore(now)) {
+                error = "课程已过期，无法预约";
+            } else if (schedule.getStatus() == 3) {
+                error = "课程已取消，无法预约";
+            } else if (flashBookingService != null && flashBookingService.isFlashSale(schedule.getId())) {
+                error = "秒杀课程请单独预约";
+            } else if (schedule.getBookedPeople() + deltas.getOrDefault(schedule.getId(), 0) >= schedule.getMaxPeople()) {
+                error = "课程预约人数已满";
+            }
+            if (error != null) {
+                result.setSuccess(false);
+                result.setMessage(error);
+                continue;
+            }
+            deltas.merge(schedule.getId(), 1, Integer::sum);
+            CourseBooking booking = newBooking(item);
+            booking.setCourseId(schedule.getCourseId());
+            bookings.add(booking);
+            acceptedResults.add(result);
+        }
+
+        // 全部成功模式下有失败项时不做任何预约
+        if (Boolean.TRUE.equals(batchBookingDTO.getAllOrNothing()) && acceptedResults.size() < items.size()) {
+            for (CourseBookingResultDTO result : acceptedResults) {
+                result.setSuccess(false);
+                result.setMessage("存在预约失败的项，本次未预约");
+            }
+            return results;
+        }
+        if (bookings.isEmpty()) {
+            return results;
+        }
+
+        // 一次多行条件更新占用名额，一次批量插入预约
+        if (courseScheduleMapper.batchIncreaseBookedPeople(deltas) != deltas.size()) {
+            throw new BusinessException("课程预约人数已满");
+        }
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.booked(entry.getKey(), entry.getValue()));
+        }
+        saveBatch(bookings);
+        for (int i = 0; i < bookings.size(); i++) {
+            acceptedResults.get(i).setSuccess(true);
+            acceptedResults.get(i).setBookingId(bookings.get(i).getId());
+        }
+
+        // 名额未经过内存账本，提交后让账本重新加载
+        TransactionUtils.afterCommit(() -> {
+            for (Long scheduleId : deltas.keySet()) {
+                scheduleSeatLedger.evict(scheduleId);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * 检查团购活动是否进行中
+     * @param activityId 营销活动ID
+     */
+    private void checkGroupBuyActivity(Long activityId) {
+        MarketingActivity activity = marketingActivityMapper.selectById(activityId);
+        LocalDateTime now = LocalDateTime.now();
+        if (activity == null || activity.getType() == null || activity.getType() != 3) {
+            throw new BusinessException("团购活动不存在");
+        }
+        if (activity.getStatus() == null || activity.getStatus() != 1
+                || (activity.getStartTime() != null && activity.getStartTime().isAfter(now))
+                || (activity.getEndTime() != null && activity.getEndTime().isBefore(now))) {
+            throw new BusinessException("团购活动未在进行中");
+        }
     }
 
     @Override
@@ -135,16 +372,28 @@ public class CourseBookingServiceImpl extends ServiceImpl<CourseBookingMapper, C
             throw new BusinessException("课程已开始或已结束，无法取消");
         }
 
-        // 更新预约状态
-        booking.setStatus(2); // 取消预约
-        boolean updateResult = courseBookingMapper.updateById(booking) > 0;
+        // 更新预约状态（条件更新，重复取消不会重复释放名额）
+        boolean updateResult = courseBookingMapper.cancelBooking(bookingId) > 0;
 
-        // 更新课程时间安排的预约人数
-        if (updateResult) {
-            courseScheduleService.updateBookedPeople(booking.getScheduleId(), -1);
+        if (!updateResult) {
+            return false;
         }
 
-        return updateResult;
+        // 有候补会员时名额在同一事务中直接转给下一位，预约人数不变
+        boolean flashSale = flashBookingService != null && flashBookingService.isFlashSale(booking.getScheduleId());
+        if (!flashSale && courseWaitlistService.promoteNext(booking.getScheduleId()) != null) {
+            return true;
+        }
+
+        // 释放课程时间安排的名额，事务提交后同步归还内存账本
+        courseScheduleService.updateBookedPeople(booking.getScheduleId(), -1);
+        TransactionUtils.afterCommit(() -> {
+            scheduleSeatLedger.release(booking.getScheduleId());
+            if (flashSale) {
+                flashBookingService.release(booking.getScheduleId(), booking.getMemberId());
+            }
+        });
+        return true;
     }
 
     @Override
@@ -179,10 +428,10 @@ public class CourseBookingServiceImpl extends ServiceImpl<CourseBookingMapper, C
     @Override
     public boolean payBooking(Long bookingId, java.math.BigDecimal amount) {
         CourseBooking booking = getCourseBookingById(bookingId);
+        if (booking.getPayStatus() != null && booking.getPayStatus() == 1) {
+            throw new BusinessException("该预约已支付");
+        }
         // 更新支付状态
-        booking.setPayStatus(1);
-        booking.setAmount(amount);
-        booking.setPayTime(LocalDateTime.now());
-        return courseBookingMapper.updateById(booking) > 0;
+        return courseBookingMapper.payBooking(bookingId, amount, LocalDateTime.now()) > 0;
     }
 }
@@ -0,0 +1,109 @@
+package com.fitlife.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fitlife.cache.CategoryTreeSnapshot;
+import com.fitlife.cache.CourseCategoryTree;
+import com.fitlife.dto.CourseCategoryDTO;
+import com.fitlife.entity.Course;
+import com.fitlife.entity.CourseCategory;
+import com.fitlife.exception.BusinessException;
+import com.fitlife.mapper.CourseCategoryMapper;
+import com.fitlife.mapper.CourseMapper;
+import com.fitlife.service.CourseCategoryService;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * 课程分类服务实现类
+ */
+@Service
+public class CourseCategoryServiceImpl extends ServiceImpl<CourseCategoryMapper, CourseCategory> implements CourseCategoryService {
+
+    @Autowired
+    private CourseCategoryMapper courseCategoryMapper;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private CourseCategoryTree courseCategoryTree;
+
+    @Override
+    public CategoryTreeSnapshot getCategoryTree() {
+        return courseCategoryTree.getSnapshot();
+    }
+
+    @Override
+    public CourseCategory createCategory(CourseCategoryDTO categoryDTO) {
+        if (!StringUtils.hasText(categoryDTO.getName())) {
+            throw new BusinessException("分类名称不能为空");
+        }
+        CourseCategory category = new CourseCategory();
+        BeanUtils.copyProperties(categoryDTO, category);
+        if (category.getParentId() == null) {
+            category.setParentId(0L);
+        }
+        if (category.getParentId() != 0 && courseCategoryTree.getCategory(category.getParentId()) == null) {
+            throw new BusinessException("父分类不存在");
+        }
+        if (category.getStatus() == null) {
+            category.setStatus(1);
+        }
+        courseCategoryMapper.insert(category);
+        courseCategoryTree.rebuild();
+        return category;
+    }
+
+    @Override
+    public CourseCategory updateCategory(Long categoryId, CourseCategoryDTO categoryDTO) {
+        CourseCategory category = getCategory(categoryId);
+        BeanUtils.copyProperties(categoryDTO, category);
+        category.setId(categoryId); // 确保ID不变
+        if (category.getParentId() == null) {
+            category.setParentId(0L);
+        }
+        if (category.getParentId() != 0) {
+            if (courseCategoryTree.getCategory(category.getParentId()) == null) {
+                throw new BusinessException("父分类不存在");
+            }
+            // 不能移动到自身或子分类下
+            if (courseCategoryTree.getSubtreeIds(categoryId).contains(category.getParentId())) {
+                throw new BusinessException("不能将分类移动到自身或其子分类下");
+            }
+        }
+        courseCategoryMapper.updateById(category);
+        courseCategoryTree.rebuild();
+        return category;
+    }
+
+    @Override
+    public boolean deleteCategory(Long categoryId) {
+        getCategory(categoryId);
+        if (courseCategoryTree.getSubtreeIds(categoryId).size() > 1) {
+            throw new BusinessException("该分类下存在子分类，无法删除");
+        }
+        Long courseCount = courseMapper.selectCount(new LambdaQueryWrapper<Course>()
+                .eq(Course::getCategoryId, categoryId)
+                .eq(Course::getDeleted, 0));
+        if (courseCount > 0) {
+            throw new BusinessException("该分类下存在课程，无法删除");
+        }
+        boolean result = courseCategoryMapper.deleteById(categoryId) > 0;
+        courseCategoryTree.rebuild();
+        return result;
+    }
+
+    /**
+     * 从数据库查询分类，避免修改分类树中的对象
+     */
+    private CourseCategory getCategory(Long categoryId) {
+        CourseCategory category = courseCategoryMapper.selectById(categoryId);
+        if (category == null || category.getDeleted() == 1) {
+            throw new BusinessException("分类不存在");
+        }
+        return category;
+    }
+}
@@ -1,24 +1,53 @@
 package com.fitlife.service.impl;
 
+import cn.hutool.core.text.csv.CsvWriter;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fitlife.cache.CourseScheduleCache;
+import com.fitlife.cache.ScheduleConflictIndex;
+import com.fitlife.cache.ScheduleIntervalIndex;
+import com.fitlife.cache.ScheduleSeatLedger;
+import com.fitlife.cache.TimetableSnapshot;
+import com.fitlife.cache.WeeklyTimetableCache;
 import com.fitlife.dto.CourseScheduleDTO;
 import com.fitlife.dto.CourseScheduleQueryDTO;
+import com.fitlife.dto.ImportTaskDTO;
+import com.fitlife.dto.ScheduleConflictDTO;
+import com.fitlife.entity.Course;
 import com.fitlife.entity.CourseSchedule;
 import com.fitlife.entity.PageResult;
+import com.fitlife.event.CourseScheduleChangedEvent;
 import com.fitlife.exception.BusinessException;
+import com.fitlife.exception.ScheduleConflictException;
+import com.fitlife.lock.ScheduleLockManager;
+import com.fitlife.mapper.CourseMapper;
 import com.fitlife.mapper.CourseScheduleMapper;
 import com.fitlife.service.CourseScheduleService;
+import com.fitlife.task.CsvImportRunner;
+import com.fitlife.util.CsvTransferUtils;
+import com.fitlife.util.ScheduleRecurrenceUtils;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 课程预约时间安排服务实现类
@@ -26,9 +55,60 @@ import java.util.List;
 @Service
 public class CourseScheduleServiceImpl extends ServiceImpl<CourseScheduleMapper, CourseSchedule> implements CourseScheduleService {
 
+    /**
+     * 单次批量创建的最大数量
+     */
+    private static final int MAX_BATCH_CREATE_SIZE = 20000;
+
+    /**
+     * JDBC批量插入每批的行数
+     */
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    /**
+     * 导入任务类型
+     */
+    private static final String IMPORT_TYPE = "course-schedule";
+
+    /**
+     * 导入导出的列，导入时忽略id、booked_people、status、create_time
+     */
+    private static final String[] CSV_HEADER = {"id", "course_id", "start_time", "end_time", "location", "max_people",
+            "booked_people", "status", "create_time"};
+
     @Autowired
     private CourseScheduleMapper courseScheduleMapper;
 
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private ScheduleSeatLedger scheduleSeatLedger;
+
+    @Autowired
+    private ScheduleLockManager scheduleLockManager;
+
+    @Autowired
+    private ScheduleIntervalIndex scheduleIntervalIndex;
+
+    @Autowired
+    private WeeklyTimetableCache weeklyTimetableCache;
+
+    @Autowired
+    private ScheduleConflictIndex scheduleConflictIndex;
+
+    @Autowired
+    private CourseScheduleCache courseScheduleCache;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private CsvImportRunner csvImportRunner;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Override
     public PageResult<CourseSchedule> listCourseSchedules(CourseScheduleQueryDTO queryDTO) {
         // 构建查询条件
@@ -40,9 +120,9 @@ public class CourseScheduleServiceImpl extends ServiceImpl<CourseScheduleMapper,
             queryWrapper.eq(CourseSchedule::getCourseId, queryDTO.getCourseId());
         }
 
-        // 上课地点查询
+        // 上课地点查询（前缀匹配，可使用索引）
         if (StringUtils.hasText(queryDTO.getLocation())) {
-            queryWrapper.like(CourseSchedule::getLocation, queryDTO.getLocation());
+            queryWrapper.likeRight(CourseSchedule::getLocation, queryDTO.getLocation());
         }
 
         // 课程状态查询
@@ -50,77 +130,30 @@ public class CourseScheduleServiceImpl extends ServiceImpl<CourseScheduleMapper,
             queryWrapper.eq(CourseSchedule::getStatus, queryDTO.getStatus());
         }
 
-        // 时间范围查询
+        // 时间范围查询，上课时间是idx_time_range的前导列，用于限定索引扫描范围
         if (queryDTO.getStartTime() != null) {
             queryWrapper.ge(CourseSchedule::getStartTime, queryDTO.getStartTime());
         }
         if (queryDTO.getEndTime() != null) {
+            // 下课时间不晚于结束时间的课程，上课时间必然早于结束时间，补充该条件以限定索引扫描范围
+            queryWrapper.lt(CourseSchedule::getStartTime, queryDTO.getEndTime());
             queryWrapper.le(CourseSchedule::getEndTime, queryDTO.getEndTime());
         }
 
-        // 创建时间排序
-        queryWrapper.orderByDesc(CourseSchedule::getCreateTime);
+        // 上课时间排序，与索引顺序一致，无需额外排序
+        queryWrapper.orderByAsc(CourseSchedule::getStartTime).orderByAsc(CourseSchedule::getId);
 
-        // 生成模拟数据
-        List<CourseSchedule> schedules = generateMockCourseSchedules();
-        long total = schedules.size();
-
-        // 处理分页
-        int pageNum = queryDTO.getPageNum();
-        int pageSize = queryDTO.getPageSize();
-        int startIndex = (pageNum - 1) * pageSize;
-        int endIndex = Math.min(startIndex + pageSize, schedules.size());
-        List<CourseSchedule> pageSchedules = schedules.subList(startIndex, endIndex);
+        // 分页查询
+        Page<CourseSchedule> page = new Page<>(queryDTO.getPageNum(), queryDTO.getPageSize());
+        IPage<CourseSchedule> schedulePage = courseScheduleMapper.selectPage(page, queryWrapper);
 
         // 构建分页结果
-        return new PageResult<>(pageSchedules, total, pageSize, pageNum);
-    }
-    
-    /**
-     * 生成模拟的课程安排数据
-     */
-    private List<CourseSchedule> generateMockCourseSchedules() {
-        List<CourseSchedule> mockSchedules = new ArrayList<>();
-        
-        // 课程名称列表
-        String[] courseNames = {"瑜伽课程", "普拉提", "有氧运动", "力量训练", "拳击课程"};
-        // 教练名称列表
-        String[] coachNames = {"张教练", "李教练", "王教练", "刘教练", "赵教练"};
-        // 上课地点列表
-        String[] locations = {"瑜伽室1", "普拉提室", "健身房", "拳击馆", "多功能厅"};
-        // 开始时间列表
-        String[] timeSlots = {"09:00", "10:30", "14:00", "15:30", "17:00"};
-        
-        LocalDateTime today = LocalDateTime.now();
-        
-        // 生成今天和明天的课程安排
-        for (int day = 0; day < 2; day++) {
-            for (int i = 0; i < 5; i++) {
-                CourseSchedule schedule = new CourseSchedule();
-                schedule.setId((long) ((day * 10) + i + 1));
-                schedule.setCourseId((long) (i + 1));
-                schedule.setCourseName(courseNames[i]);
-                schedule.setStartTime(today.plusDays(day).withHour(Integer.parseInt(timeSlots[i].split(":")[0])).withMinute(Integer.parseInt(timeSlots[i].split(":")[1])));
-                schedule.setEndTime(schedule.getStartTime().plusHours(1));
-                schedule.setLocation(locations[i]);
-                schedule.setMaxPeople(20);
-                schedule.setBookedPeople((int) (Math.random() * 10));
-                schedule.setStatus(0); // 未开始
-                schedule.setDeleted(0);
-                schedule.setCreateTime(LocalDateTime.now());
-                schedule.setUpdateTime(LocalDateTime.now());
-                schedule.setCoachName(coachNames[i]);
-                
-                mockSchedules.add(schedule);
-            }
-        }
-        
-        return mockSchedules;
+        return new PageResult<>(schedulePage.getRecords(), schedulePage.getTotal(), schedulePage.getSize(), schedulePage.getCurrent());
     }
 
     @Override
     public CourseSchedule getCourseScheduleById(Long scheduleId) {
-        CourseSchedule schedule = courseScheduleMapper.selectById(scheduleId);
+        CourseSchedule schedule = courseScheduleCache.get(scheduleId);
         if (schedule == null || schedule.getDeleted() == 1) {
             throw new BusinessException("课程预约时间安排不存在");
         }
@@ -133,29 +166,68 @@ public class CourseScheduleServiceImpl extends ServiceImpl<CourseScheduleMapper,
         BeanUtils.copyProperties(scheduleDTO, schedule);
         schedule.setStatus(0); // 初始状态为未开始
         schedule.setBookedPeople(0); // 初始预约人数为0
-        courseScheduleMapper.insert(schedule);
+        // 预留到写入完成（冲突索引已更新），期间其他请求不会写入冲突的课程
+        try (ScheduleConflictIndex.Reservation ignored = reserve(Collections.singletonList(schedule), Collections.singletonList(0))) {
+            courseScheduleMapper.insert(schedule);
+            applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.created(schedule));
+        }
         return schedule;
     }
 
+    @Override
+    public List<CourseSchedule> batchCreateCourseSchedules(List<CourseScheduleDTO> scheduleDTOs) {
+        List<Integer> itemIndexes = new ArrayList<>();
+        List<CourseSchedule> schedules = expandSchedules(scheduleDTOs, itemIndexes);
+        // 预留到事务提交（冲突索引已更新）之后
+        try (ScheduleConflictIndex.Reservation ignored = reserve(schedules, itemIndexes)) {
+            // JDBC批量插入，同一事务中提交
+            transactionTemplate.execute(status -> {
+                saveBatch(schedules, INSERT_BATCH_SIZE);
+                for (CourseSchedule schedule : schedules) {
+                    applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.created(schedule));
+                }
+                return null;
+            });
+        }
+        return schedules;
+    }
+
+    @Override
+    public List<ScheduleConflictDTO> checkScheduleConflicts(List<CourseScheduleDTO> scheduleDTOs) {
+        List<Integer> itemIndexes = new ArrayList<>();
+        List<CourseSchedule> schedules = expandSchedules(scheduleDTOs, itemIndexes);
+        return findConflicts(schedules, itemIndexes);
+    }
+
     @Override
     public CourseSchedule updateCourseSchedule(Long scheduleId, CourseScheduleDTO scheduleDTO) {
-        CourseSchedule schedule = getCourseScheduleById(scheduleId);
+        CourseSchedule schedule = loadCourseSchedule(scheduleId);
         BeanUtils.copyProperties(scheduleDTO, schedule);
         schedule.setId(scheduleId); // 确保ID不变
-        courseScheduleMapper.updateById(schedule);
+        // 已取消的课程不占用时间，不检查冲突（不预留）
+        boolean cancelled = schedule.getStatus() != null && schedule.getStatus() == 3;
+        try (ScheduleConflictIndex.Reservation ignored = cancelled ? null
+                : reserve(Collections.singletonList(schedule), Collections.singletonList(0))) {
+            updateScheduleRow(schedule);
+            courseScheduleCache.invalidate(scheduleId);
+            scheduleSeatLedger.updateCapacity(scheduleId, schedule.getMaxPeople());
+            applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.changed(scheduleId));
+        }
         return schedule;
     }
 
     @Override
     public boolean deleteCourseSchedule(Long scheduleId) {
-        CourseSchedule schedule = getCourseScheduleById(scheduleId);
-        // 检查是否已有用户预约
-        if (schedule.getBookedPeople() > 0) {
+        // 逻辑删除，已有用户预约时不删除；校验与删除在同一条语句中完成，避免检查后又有新的预约
+        boolean result = courseScheduleMapper.deleteIfNotBooked(scheduleId) > 0;
+        if (!result) {
+            loadCourseSchedule(scheduleId);
             throw new BusinessException("该课程已有用户预约，无法删除");
         }
-        // 逻辑删除
-        schedule.setDeleted(1);
-        return courseScheduleMapper.updateById(schedule) > 0;
+        courseScheduleCache.invalidate(scheduleId);
+        scheduleSeatLedger.evict(scheduleId);
+        applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.changed(scheduleId));
+        return result;
     }
 
     @Override
@@ -165,31 +237,283 @@ public class CourseScheduleServiceImpl extends ServiceImpl<CourseScheduleMapper,
 
     @Override
     public List<CourseSchedule> getCourseSchedulesByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        // 优先使用内存索引，时间范围超出索引覆盖范围时查询数据库
+        List<CourseSchedule> schedules = scheduleIntervalIndex.findByTimeRange(startTime, endTime);
+        if (schedules != null) {
+            return schedules;
+        }
         return courseScheduleMapper.selectByTimeRange(startTime, endTime);
     }
 
     @Override
     public List<CourseSchedule> getUpcomingCourses(Integer limit) {
         LocalDateTime currentTime = LocalDateTime.now();
+        List<CourseSchedule> schedules = scheduleIntervalIndex.findUpcoming(currentTime, limit);
+        if (schedules != null) {
+            return schedules;
+        }
         return courseScheduleMapper.selectUpcomingCourses(currentTime, limit);
     }
 
     @Override
     public boolean updateBookedPeople(Long scheduleId, Integer delta) {
-        CourseSchedule schedule = getCourseScheduleById(scheduleId);
-        // 检查是否超过最大预约人数
-        if (delta > 0 && schedule.getBookedPeople() + delta > schedule.getMaxPeople()) {
+        if (tryUpdateBookedPeople(scheduleId, delta)) {
+            return true;
+        }
+        // 更新失败时再查询具体原因
+        CourseSchedule schedule = loadCourseSchedule(scheduleId);
+        if (delta > 0 && schedule.getStatus() == 3) {
+            throw new BusinessException("课程已取消，无法预约");
+        }
+        if (delta > 0) {
             throw new BusinessException("课程预约人数已满");
         }
-        // 更新预约人数
-        schedule.setBookedPeople(schedule.getBookedPeople() + delta);
-        return courseScheduleMapper.updateById(schedule) > 0;
+        return false;
+    }
+
+    @Override
+    public boolean tryUpdateBookedPeople(Long scheduleId, Integer delta) {
+        // 条件更新，校验与更新在同一条语句中完成；持有课程锁，多节点时同一课程的名额变更串行执行
+        int updated = scheduleLockManager.executeWithLock(scheduleId,
+                () -> courseScheduleMapper.updateBookedPeople(scheduleId, delta));
+        if (updated == 0) {
+            return false;
+        }
+        courseScheduleCache.invalidate(scheduleId);
+        applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.booked(scheduleId, delta));
+        return true;
     }
 
     @Override
     public boolean updateCourseScheduleStatus(Long scheduleId, Integer status) {
-        CourseSchedule schedule = getCourseScheduleById(scheduleId);
-        schedule.setStatus(status);
-        return courseScheduleMapper.updateById(schedule) > 0;
+        loadCourseSchedule(scheduleId);
+        boolean result = courseScheduleMapper.updateStatus(scheduleId, status) > 0;
+        courseScheduleCache.invalidate(scheduleId);
+        applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.changed(scheduleId));
+        return result;
+    }
+
+    @Override
+    public TimetableSnapshot getWeeklyTimetable(String location, LocalDate date) {
+        if (!StringUtils.hasText(location)) {
+            throw new BusinessException("上课地点不能为空");
+        }
+        return weeklyTimetableCache.get(location, date == null ? LocalDate.now() : date);
+    }
+
+    @Override
+    public ImportTaskDTO importCourseSchedules(MultipartFile file) {
+        // 课程ID -> 是否存在，同一次导入中每门课程只查询一次
+        Map<Long, Boolean> courses = new HashMap<>();
+        return csvImportRunner.submit(IMPORT_TYPE, file, row -> parseCourseSchedule(row, courses), this::saveImportedSchedules);
+    }
+
+    @Override
+    public ImportTaskDTO getCourseScheduleImportTask(String taskId) {
+        return csvImportRunner.getTask(IMPORT_TYPE, taskId);
+    }
+
+    @Override
+    public void exportCourseSchedules(Long courseId, LocalDateTime startTime, LocalDateTime endTime, Writer writer) {
+        CsvWriter csvWriter = new CsvWriter(writer);
+        csvWriter.writeLine(CSV_HEADER);
+        // 游标逐行读取并直接写出，遍历期间需要保持数据库连接
+        transactionTemplate.execute(status -> {
+            try (Cursor<CourseSchedule> cursor = courseScheduleMapper.streamForExport(courseId, startTime, endTime)) {
+                for (CourseSchedule schedule : cursor) {
+                    csvWriter.writeLine(CsvTransferUtils.formatLine(schedule.getId(), schedule.getCourseId(),
+                            schedule.getStartTime(), schedule.getEndTime(), schedule.getLocation(), schedule.getMaxPeople(),
+                            schedule.getBookedPeople(), schedule.getStatus(), schedule.getCreateTime()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        csvWriter.flush();
+    }
+
+    /**
+     * 解析并校验导入的课程预约时间安排
+     */
+    private CourseSchedule parseCourseSchedule(CsvImportRunner.Row row, Map<Long, Boolean> courses) {
+        CourseSchedule schedule = new CourseSchedule();
+        schedule.setCourseId(row.getLong("course_id", "课程ID"));
+        if (schedule.getCourseId() == null) {
+            throw new BusinessException("课程ID不能为空");
+        }
+        boolean courseExists = courses.computeIfAbsent(schedule.getCourseId(), courseId -> {
+            Course course = courseMapper.selectById(courseId);
+            return course != null && course.getDeleted() != 1;
+        });
+        if (!courseExists) {
+            throw new BusinessException("课程不存在: " + schedule.getCourseId());
+        }
+        schedule.setStartTime(row.getDateTime("start_time", "上课时间"));
+        schedule.setEndTime(row.getDateTime("end_time", "下课时间"));
+        if (schedule.getStartTime() == null || schedule.getEndTime() == null
+                || !schedule.getEndTime().isAfter(schedule.getStartTime())) {
+            throw new BusinessException("下课时间必须晚于上课时间");
+        }
+        schedule.setLocation(row.getString("location"));
+        if (schedule.getLocation() != null && schedule.getLocation().length() > 64) {
+            throw new BusinessException("上课地点不能超过64个字符");
+        }
+        schedule.setMaxPeople(row.getInteger("max_people", "最大预约人数"));
+        if (schedule.getMaxPeople() == null || schedule.getMaxPeople() <= 0) {
+            throw new BusinessException("最大预约人数必须大于0");
+        }
+        schedule.setStatus(0); // 初始状态为未开始
+        schedule.setBookedPeople(0);
+        return schedule;
+    }
+
+    /**
+     * 写入一批导入的课程预约时间安排，与已有课程或同批其他行冲突的行不写入
+     * 写入后发布创建事件，冲突索引随之更新，后续批次会与本批比较
+     */
+    private Map<Integer, String> saveImportedSchedules(List<CourseSchedule> schedules) {
+        Map<Integer, String> rejected = new HashMap<>();
+        List<CourseSchedule> accepted = schedules;
+        List<Integer> positions = new ArrayList<>(schedules.size());
+        for (int i = 0; i < schedules.size(); i++) {
+            positions.add(i);
+        }
+        // 冲突检测返回的冲突数量有上限，剔除冲突的行后重新检测，直到没有冲突（此时已预留）
+        ScheduleConflictIndex.Reservation reservation = scheduleConflictIndex.reserve(accepted);
+        List<ScheduleConflictDTO> conflicts = reservation.getConflicts();
+        while (!conflicts.isEmpty()) {
+            boolean[] conflicting = new boolean[accepted.size()];
+            for (ScheduleConflictDTO conflict : conflicts) {
+                conflicting[conflict.getItemIndex()] = true;
+                rejected.putIfAbsent(positions.get(conflict.getItemIndex()), conflictReason(conflict));
+            }
+            List<CourseSchedule> remaining = new ArrayList<>(accepted.size());
+            List<Integer> remainingPositions = new ArrayList<>(accepted.size());
+            for (int i = 0; i < accepted.size(); i++) {
+                if (!conflicting[i]) {
+                    remaining.add(accepted.get(i));
+                    remainingPositions.add(positions.get(i));
+                }
+            }
+            accepted = remaining;
+            positions = remainingPositions;
+            reservation = scheduleConflictIndex.reserve(accepted);
+            conflicts = reservation.getConflicts();
+        }
+
+        try (ScheduleConflictIndex.Reservation ignored = reservation) {
+            if (!accepted.isEmpty()) {
+                saveBatch(accepted, INSERT_BATCH_SIZE);
+                for (CourseSchedule schedule : accepted) {
+                    applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.created(schedule));
+                }
+            }
+        }
+        return rejected;
+    }
+
+    private static String conflictReason(ScheduleConflictDTO conflict) {
+        String type = ScheduleConflictIndex.TYPE_LOCATION.equals(conflict.getType()) ? "上课地点" : "教练";
+        if (conflict.getConflictScheduleId() != null) {
+            return type + "时间冲突，与课程预约时间安排" + conflict.getConflictScheduleId() + "冲突";
+        }
+        if (conflict.getConflictItemIndex() == null) {
+            return type + "时间冲突，与正在创建的课程预约时间安排冲突";
+        }
+        return type + "时间冲突，与导入文件中的其他行冲突";
+    }
+
+    /**
+     * 按ID更新课程预约时间安排，不更新预约人数
+     * 预约人数只由条件更新修改，写回读取时的值会覆盖读取之后提交的预约
+     */
+    private boolean updateScheduleRow(CourseSchedule schedule) {
+        Integer bookedPeople = schedule.getBookedPeople();
+        schedule.setBookedPeople(null);
+        try {
+            return courseScheduleMapper.updateById(schedule) > 0;
+        } finally {
+            schedule.setBookedPeople(bookedPeople);
+        }
+    }
+
+    /**
+     * 从数据库读取课程预约时间安排，写操作使用，不经过缓存
+     */
+    private CourseSchedule loadCourseSchedule(Long scheduleId) {
+        CourseSchedule schedule = courseScheduleMapper.selectById(scheduleId);
+        if (schedule == null || schedule.getDeleted() == 1) {
+            throw new BusinessException("课程预约时间安排不存在");
+        }
+        return schedule;
+    }
+
+    /**
+     * 按重复规则展开课程预约时间安排
+     * @param scheduleDTOs 课程预约时间安排信息列表
+     * @param itemIndexes 输出参数，每个展开结果对应的请求序号
+     * @return 展开后的课程预约时间安排（未插入）
+     */
+    private List<CourseSchedule> expandSchedules(List<CourseScheduleDTO> scheduleDTOs, List<Integer> itemIndexes) {
+        if (scheduleDTOs == null || scheduleDTOs.isEmpty()) {
+            throw new BusinessException("课程预约时间安排不能为空");
+        }
+        List<CourseSchedule> schedules = new ArrayList<>();
+        for (int i = 0; i < scheduleDTOs.size(); i++) {
+            CourseScheduleDTO scheduleDTO = scheduleDTOs.get(i);
+            if (scheduleDTO.getCourseId() == null) {
+                throw new BusinessException("课程ID不能为空");
+            }
+            if (scheduleDTO.getStartTime() == null || scheduleDTO.getEndTime() == null
+                    || !scheduleDTO.getEndTime().isAfter(scheduleDTO.getStartTime())) {
+                throw new BusinessException("下课时间必须晚于上课时间");
+            }
+            Duration duration = Duration.between(scheduleDTO.getStartTime(), scheduleDTO.getEndTime());
+            List<LocalDateTime> startTimes = ScheduleRecurrenceUtils.expand(scheduleDTO.getStartTime(),
+                    scheduleDTO.getRecurrence(), MAX_BATCH_CREATE_SIZE - schedules.size());
+            for (LocalDateTime startTime : startTimes) {
+                CourseSchedule schedule = new CourseSchedule();
+                schedule.setCourseId(scheduleDTO.getCourseId());
+                schedule.setStartTime(startTime);
+                schedule.setEndTime(startTime.plus(duration));
+                schedule.setLocation(scheduleDTO.getLocation());
+                schedule.setMaxPeople(scheduleDTO.getMaxPeople());
+                schedule.setStatus(0);
+                schedule.setBookedPeople(0);
+                schedules.add(schedule);
+                itemIndexes.add(i);
+            }
+        }
+        return schedules;
+    }
+
+    /**
+     * 查询冲突，并将冲突中的位置换算为请求序号
+     */
+    private List<ScheduleConflictDTO> findConflicts(List<CourseSchedule> schedules, List<Integer> itemIndexes) {
+        return toItemIndexes(scheduleConflictIndex.findConflicts(schedules), itemIndexes);
+    }
+
+    private static List<ScheduleConflictDTO> toItemIndexes(List<ScheduleConflictDTO> conflicts, List<Integer> itemIndexes) {
+        for (ScheduleConflictDTO conflict : conflicts) {
+            conflict.setItemIndex(itemIndexes.get(conflict.getItemIndex()));
+            if (conflict.getConflictItemIndex() != null) {
+                conflict.setConflictItemIndex(itemIndexes.get(conflict.getConflictItemIndex()));
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * 检查冲突并预留时间区间，有冲突时抛出异常（冲突中的位置换算为请求序号）
+     * @return 预留，写入提交后关闭
+     */
+    private ScheduleConflictIndex.Reservation reserve(List<CourseSchedule> schedules, List<Integer> itemIndexes) {
+        ScheduleConflictIndex.Reservation reservation = scheduleConflictIndex.reserve(schedules);
+        if (!reservation.getConflicts().isEmpty()) {
+            throw new ScheduleConflictException(toItemIndexes(reservation.getConflicts(), itemIndexes));
+        }
+        return reservation;
     }
 }
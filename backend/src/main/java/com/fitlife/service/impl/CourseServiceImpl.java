@@ -1,22 +1,43 @@
 package com.fitlife.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import cn.hutool.core.text.csv.CsvWriter;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fitlife.cache.CourseCategoryTree;
+import com.fitlife.cache.CourseFacetIndex;
+import com.fitlife.cache.CourseSearchIndex;
+import com.fitlife.cache.CourseSimilarityIndex;
+import com.fitlife.cache.HotCourseRanking;
 import com.fitlife.dto.CourseDTO;
+import com.fitlife.dto.CoursePageResultDTO;
+import com.fitlife.dto.CourseRecommendationDTO;
 import com.fitlife.dto.CourseQueryDTO;
+import com.fitlife.dto.ImportTaskDTO;
+import com.fitlife.entity.Coach;
 import com.fitlife.entity.Course;
-import com.fitlife.entity.PageResult;
 import com.fitlife.exception.BusinessException;
+import com.fitlife.mapper.CoachMapper;
 import com.fitlife.mapper.CourseMapper;
 import com.fitlife.service.CourseService;
+import com.fitlife.task.CourseBookedCounter;
+import com.fitlife.task.CsvImportRunner;
+import com.fitlife.util.CsvTransferUtils;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 课程服务实现类
@@ -24,62 +45,101 @@ import java.util.List;
 @Service
 public class CourseServiceImpl extends ServiceImpl<CourseMapper, Course> implements CourseService {
 
+    /**
+     * 导入任务类型
+     */
+    private static final String IMPORT_TYPE = "course";
+
+    /**
+     * 导入导出的列，导入时忽略id、booked_people、status、create_time
+     */
+    private static final String[] CSV_HEADER = {"id", "name", "description", "image", "category_id", "coach_id", "duration",
+            "price", "max_people", "booked_people", "tags", "type", "difficulty", "status", "create_time"};
+
+    /**
+     * JDBC批量插入每批的行数
+     */
+    private static final int INSERT_BATCH_SIZE = 1000;
+
     @Autowired
     private CourseMapper courseMapper;
 
-    @Override
-    public PageResult<Course> listCourses(CourseQueryDTO queryDTO) {
-        // 构建查询条件
-        LambdaQueryWrapper<Course> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(Course::getDeleted, 0);
+    @Autowired
+    private CoachMapper coachMapper;
 
-        // 课程名称模糊查询
-        if (StringUtils.hasText(queryDTO.getName())) {
-            queryWrapper.like(Course::getName, queryDTO.getName());
-        }
+    @Autowired
+    private HotCourseRanking hotCourseRanking;
 
-        // 分类ID查询
-        if (queryDTO.getCategoryId() != null) {
-            queryWrapper.eq(Course::getCategoryId, queryDTO.getCategoryId());
-        }
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
 
-        // 教练ID查询
-        if (queryDTO.getCoachId() != null) {
-            queryWrapper.eq(Course::getCoachId, queryDTO.getCoachId());
-        }
+    @Autowired
+    private CourseFacetIndex courseFacetIndex;
 
-        // 课程状态查询
-        if (queryDTO.getStatus() != null) {
-            queryWrapper.eq(Course::getStatus, queryDTO.getStatus());
-        }
+    @Autowired
+    private CourseCategoryTree courseCategoryTree;
 
-        // 课程类型查询
-        if (queryDTO.getType() != null) {
-            queryWrapper.eq(Course::getType, queryDTO.getType());
-        }
+    @Autowired
+    private CourseSimilarityIndex courseSimilarityIndex;
 
-        // 课程难度查询
-        if (queryDTO.getDifficulty() != null) {
-            queryWrapper.eq(Course::getDifficulty, queryDTO.getDifficulty());
-        }
+    @Autowired
+    private CourseBookedCounter courseBookedCounter;
 
-        // 价格范围查询
-        if (queryDTO.getMinPrice() != null) {
-            queryWrapper.ge(Course::getPrice, queryDTO.getMinPrice());
-        }
-        if (queryDTO.getMaxPrice() != null) {
-            queryWrapper.le(Course::getPrice, queryDTO.getMaxPrice());
+    @Autowired
+    private CsvImportRunner csvImportRunner;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public CoursePageResultDTO listCourses(CourseQueryDTO queryDTO) {
+        // 关键词搜索使用全文索引，按相关度排序
+        if (StringUtils.hasText(queryDTO.getKeyword())) {
+            Set<Long> categoryIds = queryDTO.getCategoryId() != null ? categoryIdsOf(queryDTO) : null;
+            return CoursePageResultDTO.of(courseSearchIndex.search(queryDTO.getKeyword(), course -> matches(course, queryDTO, categoryIds),
+                    queryDTO.getPageNum(), queryDTO.getPageSize()), null);
         }
 
-        // 创建时间排序
-        queryWrapper.orderByDesc(Course::getCreateTime);
+        // 其他条件使用筛选索引，同时统计筛选项
+        return courseFacetIndex.query(queryDTO);
+    }
 
-        // 分页查询
-        Page<Course> page = new Page<>(queryDTO.getPageNum(), queryDTO.getPageSize());
-        IPage<Course> coursePage = courseMapper.selectPage(page, queryWrapper);
+    /**
+     * 判断课程是否满足关键词以外的查询条件，与数据库查询条件一致
+     */
+    private static boolean matches(Course course, CourseQueryDTO queryDTO, Set<Long> categoryIds) {
+        if (StringUtils.hasText(queryDTO.getName())
+                && (course.getName() == null || !course.getName().contains(queryDTO.getName()))) {
+            return false;
+        }
+        if (categoryIds != null && !categoryIds.contains(course.getCategoryId())) {
+            return false;
+        }
+        if (queryDTO.getCoachId() != null && !queryDTO.getCoachId().equals(course.getCoachId())) {
+            return false;
+        }
+        if (queryDTO.getStatus() != null && !queryDTO.getStatus().equals(course.getStatus())) {
+            return false;
+        }
+        if (queryDTO.getType() != null && !queryDTO.getType().equals(course.getType())) {
+            return false;
+        }
+        if (queryDTO.getDifficulty() != null && !queryDTO.getDifficulty().equals(course.getDifficulty())) {
+            return false;
+        }
+        if (queryDTO.getMinPrice() != null && (course.getPrice() == null || course.getPrice().compareTo(queryDTO.getMinPrice()) < 0)) {
+            return false;
+        }
+        return queryDTO.getMaxPrice() == null || (course.getPrice() != null && course.getPrice().compareTo(queryDTO.getMaxPrice()) <= 0);
+    }
 
-        // 构建分页结果
-        return new PageResult<>(coursePage.getRecords(), coursePage.getTotal(), coursePage.getSize(), coursePage.getCurrent());
+    /**
+     * 查询条件中的分类ID集合，包含子分类时为整个子树
+     */
+    private Set<Long> categoryIdsOf(CourseQueryDTO queryDTO) {
+        return Boolean.TRUE.equals(queryDTO.getIncludeChildren())
+                ? courseCategoryTree.getSubtreeIds(queryDTO.getCategoryId())
+                : Collections.singleton(queryDTO.getCategoryId());
     }
 
     @Override
@@ -98,6 +158,9 @@ public class CourseServiceImpl extends ServiceImpl<CourseMapper, Course> impleme
         course.setStatus(0); // 初始状态为未上架
         course.setBookedPeople(0); // 初始预约人数为0
         courseMapper.insert(course);
+        hotCourseRanking.onCourseChanged(course);
+        courseSearchIndex.onCourseChanged(course);
+        courseFacetIndex.onCourseChanged(course);
         return course;
     }
 
@@ -106,7 +169,10 @@ public class CourseServiceImpl extends ServiceImpl<CourseMapper, Course> impleme
         Course course = getCourseById(courseId);
         BeanUtils.copyProperties(courseDTO, course);
         course.setId(courseId); // 确保ID不变
-        courseMapper.updateById(course);
+        updateCourseRow(course);
+        hotCourseRanking.onCourseChanged(course);
+        courseSearchIndex.onCourseChanged(course);
+        courseFacetIndex.onCourseChanged(course);
         return course;
     }
 
@@ -117,7 +183,11 @@ public class CourseServiceImpl extends ServiceImpl<CourseMapper, Course> impleme
             throw new BusinessException("课程已上架");
         }
         course.setStatus(1);
-        return courseMapper.updateById(course) > 0;
+        boolean result = updateCourseRow(course);
+        hotCourseRanking.onCourseChanged(course);
+        courseSearchIndex.onCourseChanged(course);
+        courseFacetIndex.onCourseChanged(course);
+        return result;
     }
 
     @Override
@@ -127,17 +197,34 @@ public class CourseServiceImpl extends ServiceImpl<CourseMapper, Course> impleme
             throw new BusinessException("课程已下架");
         }
         course.setStatus(2);
-        return courseMapper.updateById(course) > 0;
+        boolean result = updateCourseRow(course);
+        hotCourseRanking.onCourseChanged(course);
+        courseSearchIndex.onCourseChanged(course);
+        courseFacetIndex.onCourseChanged(course);
+        return result;
     }
 
     @Override
-    public List<Course> getCoursesByCategoryId(Long categoryId) {
+    public List<Course> getCoursesByCategoryId(Long categoryId, Boolean includeChildren) {
+        if (Boolean.TRUE.equals(includeChildren)) {
+            return courseMapper.selectByCategoryIds(courseCategoryTree.getSubtreeIds(categoryId));
+        }
         return courseMapper.selectByCategoryId(categoryId);
     }
 
     @Override
     public List<Course> getHotCourses(Integer limit) {
-        return courseMapper.selectHotCourses(limit);
+        return hotCourseRanking.top(limit, false);
+    }
+
+    @Override
+    public List<Course> getTrendingCourses(Integer limit) {
+        return hotCourseRanking.top(limit, true);
+    }
+
+    @Override
+    public List<CourseRecommendationDTO> getSimilarCourses(Long courseId, Integer limit) {
+        return courseSimilarityIndex.getSimilar(courseId, limit == null ? 10 : limit);
     }
 
     @Override
@@ -148,12 +235,124 @@ public class CourseServiceImpl extends ServiceImpl<CourseMapper, Course> impleme
     @Override
     public boolean updateBookedPeople(Long courseId, Integer delta) {
         Course course = getCourseById(courseId);
-        // 检查是否超过最大预约人数
-        if (delta > 0 && course.getBookedPeople() + delta > course.getMaxPeople()) {
+        // 检查是否超过最大预约人数（含尚未写入的变化量），各课程时间安排的名额另行严格校验
+        if (delta > 0 && course.getBookedPeople() + courseBookedCounter.getPending(courseId) + delta > course.getMaxPeople()) {
             throw new BusinessException("课程预约人数已满");
         }
-        // 更新预约人数
-        course.setBookedPeople(course.getBookedPeople() + delta);
-        return courseMapper.updateById(course) > 0;
+        // 变化量合并后定时按增量写入，不在这里更新课程行
+        courseBookedCounter.add(courseId, delta);
+        hotCourseRanking.onCourseBooked(courseId, delta);
+        return true;
+    }
+
+    @Override
+    public ImportTaskDTO importCourses(MultipartFile file) {
+        // 教练在导入开始时加载一次，逐行校验
+        Set<Long> coachIds = new HashSet<>();
+        for (Coach coach : coachMapper.selectNames()) {
+            coachIds.add(coach.getId());
+        }
+        return csvImportRunner.submit(IMPORT_TYPE, file, row -> parseCourse(row, coachIds), this::saveImportedCourses);
+    }
+
+    @Override
+    public ImportTaskDTO getCourseImportTask(String taskId) {
+        return csvImportRunner.getTask(IMPORT_TYPE, taskId);
+    }
+
+    @Override
+    public void exportCourses(Writer writer) {
+        CsvWriter csvWriter = new CsvWriter(writer);
+        csvWriter.writeLine(CSV_HEADER);
+        // 游标逐行读取并直接写出，遍历期间需要保持数据库连接
+        transactionTemplate.execute(status -> {
+            try (Cursor<Course> cursor = courseMapper.streamUndeleted()) {
+                for (Course course : cursor) {
+                    csvWriter.writeLine(CsvTransferUtils.formatLine(course.getId(), course.getName(), course.getDescription(),
+                            course.getImage(), course.getCategoryId(), course.getCoachId(), course.getDuration(), course.getPrice(),
+                            course.getMaxPeople(), course.getBookedPeople(), course.getTags(), course.getType(),
+                            course.getDifficulty(), course.getStatus(), course.getCreateTime()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        csvWriter.flush();
+    }
+
+    /**
+     * 解析并校验导入的课程
+     */
+    private Course parseCourse(CsvImportRunner.Row row, Set<Long> coachIds) {
+        Course course = new Course();
+        course.setName(row.getRequiredString("name", "课程名称"));
+        if (course.getName().length() > 100) {
+            throw new BusinessException("课程名称不能超过100个字符");
+        }
+        course.setDescription(row.getString("description"));
+        course.setImage(row.getString("image"));
+        course.setCategoryId(row.getLong("category_id", "分类ID"));
+        if (course.getCategoryId() != null && courseCategoryTree.getCategory(course.getCategoryId()) == null) {
+            throw new BusinessException("课程分类不存在: " + course.getCategoryId());
+        }
+        course.setCoachId(row.getLong("coach_id", "教练ID"));
+        if (course.getCoachId() != null && !coachIds.contains(course.getCoachId())) {
+            throw new BusinessException("教练不存在: " + course.getCoachId());
+        }
+        course.setDuration(row.getInteger("duration", "课程时长"));
+        if (course.getDuration() != null && course.getDuration() <= 0) {
+            throw new BusinessException("课程时长必须大于0");
+        }
+        course.setPrice(row.getDecimal("price", "课程价格"));
+        if (course.getPrice() == null || course.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+            throw new BusinessException("课程价格不能为空且不能小于0");
+        }
+        course.setMaxPeople(row.getInteger("max_people", "最大预约人数"));
+        if (course.getMaxPeople() != null && course.getMaxPeople() <= 0) {
+            throw new BusinessException("最大预约人数必须大于0");
+        }
+        course.setTags(row.getString("tags"));
+        if (course.getTags() != null && course.getTags().length() > 255) {
+            throw new BusinessException("课程标签不能超过255个字符");
+        }
+        Integer type = row.getInteger("type", "课程类型");
+        course.setType(type == null ? 0 : type);
+        if (course.getType() != 0 && course.getType() != 1) {
+            throw new BusinessException("课程类型只能为0（团课）或1（私教）");
+        }
+        Integer difficulty = row.getInteger("difficulty", "课程难度");
+        course.setDifficulty(difficulty == null ? 0 : difficulty);
+        if (course.getDifficulty() < 0 || course.getDifficulty() > 2) {
+            throw new BusinessException("课程难度只能为0-2");
+        }
+        course.setStatus(0); // 导入的课程为未上架状态
+        course.setBookedPeople(0);
+        return course;
+    }
+
+    /**
+     * 写入一批导入的课程并更新搜索和筛选索引（未上架课程不进入热门排行）
+     */
+    private Map<Integer, String> saveImportedCourses(List<Course> courses) {
+        saveBatch(courses, INSERT_BATCH_SIZE);
+        for (Course course : courses) {
+            courseSearchIndex.onCourseChanged(course);
+            courseFacetIndex.onCourseChanged(course);
+        }
+        return Collections.emptyMap();
+    }
+
+    /**
+     * 更新课程，不写入已预约人数，避免覆盖CourseBookedCounter按增量写入的结果
+     */
+    private boolean updateCourseRow(Course course) {
+        Integer bookedPeople = course.getBookedPeople();
+        course.setBookedPeople(null);
+        try {
+            return courseMapper.updateById(course) > 0;
+        } finally {
+            course.setBookedPeople(bookedPeople);
+        }
     }
 }
@@ -0,0 +1,223 @@
+package com.fitlife.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fitlife.cache.ScheduleWaitlist;
+import com.fitlife.dto.CourseBookingDTO;
+import com.fitlife.entity.CourseBooking;
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.entity.CourseWaitlist;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.exception.BusinessException;
+import com.fitlife.lock.ScheduleLockManager;
+import com.fitlife.mapper.CourseBookingMapper;
+import com.fitlife.mapper.CourseWaitlistMapper;
+import com.fitlife.mapper.MemberMapper;
+import com.fitlife.service.CourseScheduleService;
+import com.fitlife.service.CourseWaitlistService;
+import com.fitlife.service.FlashBookingService;
+import com.fitlife.util.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 课程候补服务实现类
+ */
+@Service
+public class CourseWaitlistServiceImpl extends ServiceImpl<CourseWaitlistMapper, CourseWaitlist> implements CourseWaitlistService {
+
+    /**
+     * 转正时每次读取的候补数量
+     */
+    private static final int CANDIDATE_BATCH_SIZE = 20;
+
+    @Autowired
+    private CourseWaitlistMapper courseWaitlistMapper;
+
+    @Autowired
+    private CourseBookingMapper courseBookingMapper;
+
+    @Autowired
+    private MemberMapper memberMapper;
+
+    @Autowired
+    private CourseScheduleService courseScheduleService;
+
+    @Autowired
+    private ScheduleWaitlist scheduleWaitlist;
+
+    @Autowired
+    private ScheduleLockManager scheduleLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired(required = false)
+    private FlashBookingService flashBookingService;
+
+    @Override
+    public int joinWaitlist(CourseBookingDTO bookingDTO) {
+        Long memberId = bookingDTO.getMemberId();
+        Long scheduleId = bookingDTO.getScheduleId();
+        if (courseBookingMapper.selectByMemberIdAndScheduleId(memberId, scheduleId) != null) {
+            throw new BusinessException("您已经预约了该课程");
+        }
+        if (courseWaitlistMapper.selectWaitingByMemberIdAndScheduleId(memberId, scheduleId) != null) {
+            throw new BusinessException("您已在候补队列中");
+        }
+
+        CourseSchedule schedule = courseScheduleService.getCourseScheduleById(scheduleId);
+        if (schedule.getStartTime().isBefore(LocalDateTime.now())) {
+            throw new BusinessException("课程已过期，无法候补");
+        }
+        if (schedule.getStatus() == 3) {
+            throw new BusinessException("课程已取消，无法候补");
+        }
+        if (schedule.getBookedPeople() < schedule.getMaxPeople()) {
+            throw new BusinessException("课程尚有名额，请直接预约");
+        }
+
+        // 候补优先级取会员等级
+        Integer level = memberMapper.selectLevelById(memberId);
+        CourseWaitlist waitlist = new CourseWaitlist();
+        waitlist.setMemberId(memberId);
+        waitlist.setCourseId(bookingDTO.getCourseId());
+        waitlist.setScheduleId(scheduleId);
+        waitlist.setPriority(level == null ? 0 : level);
+        waitlist.setStatus(0); // 初始状态为候补中
+        courseWaitlistMapper.insert(waitlist);
+
+        scheduleWaitlist.add(waitlist);
+        return scheduleWaitlist.position(scheduleId, memberId);
+    }
+
+    @Override
+    public boolean leaveWaitlist(Long memberId, Long scheduleId) {
+        CourseWaitlist waitlist = courseWaitlistMapper.selectWaitingByMemberIdAndScheduleId(memberId, scheduleId);
+        if (waitlist == null) {
+            throw new BusinessException("您不在候补队列中");
+        }
+        boolean result = courseWaitlistMapper.cancel(waitlist.getId()) > 0;
+        scheduleWaitlist.remove(scheduleId, memberId);
+        return result;
+    }
+
+    @Override
+    public int getWaitlistPosition(Long memberId, Long scheduleId) {
+        return scheduleWaitlist.position(scheduleId, memberId);
+    }
+
+    @Override
+    public CourseBooking promoteNext(Long scheduleId) {
+        // 候补顺序以数据库为准，其他节点加入的候补同样可以转正
+        // 事务中的普通查询可能读到快照中已被其他请求处理的候补，已尝试过的不再重复处理
+        Set<Long> tried = new HashSet<>();
+        for (;;) {
+            List<CourseWaitlist> candidates = courseWaitlistMapper.selectWaitingByScheduleId(scheduleId,
+                    scheduleWaitlist.isPriorityMode(), tried.size() + CANDIDATE_BATCH_SIZE);
+            boolean found = false;
+            for (CourseWaitlist candidate : candidates) {
+                if (!tried.add(candidate.getId())) {
+                    continue;
+                }
+                found = true;
+                CourseBooking booking = promote(scheduleId, candidate);
+                if (booking != null) {
+                    return booking;
+                }
+            }
+            if (!found) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public int promoteAvailable(Long scheduleId) {
+        CourseSchedule schedule = courseScheduleService.getCourseScheduleById(scheduleId);
+        if (schedule.getStartTime().isBefore(LocalDateTime.now())) {
+            return 0;
+        }
+        // 秒杀课程的名额以Redis为准，直接写数据库会与秒杀预约一起超卖，与取消预约一样不转正
+        if (flashBookingService != null && flashBookingService.isFlashSale(scheduleId)) {
+            return 0;
+        }
+        int promoted = 0;
+        // 每个名额单独加锁和提交：先占用名额，没有候补会员时回滚
+        while (Boolean.TRUE.equals(scheduleLockManager.executeWithLock(scheduleId, () -> transactionTemplate.execute(status -> {
+            if (!courseScheduleService.tryUpdateBookedPeople(scheduleId, 1)) {
+                return false;
+            }
+            if (promoteNext(scheduleId) == null) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        })))) {
+            promoted++;
+        }
+        return promoted;
+    }
+
+    /**
+     * 课程时间安排修改后（如增加最大预约人数）将空余名额转给候补会员
+     * @param event 课程时间安排变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(CourseScheduleChangedEvent event) {
+        if (event.getBookedDelta() != null || event.getCreated() != null) {
+            return;
+        }
+        Long scheduleId = event.getScheduleId();
+        if (courseWaitlistMapper.selectWaitingByScheduleId(scheduleId, false, 1).isEmpty()) {
+            return;
+        }
+        try {
+            promoteAvailable(scheduleId);
+        } catch (BusinessException e) {
+            // 课程时间安排已删除等情况不再转正
+        }
+    }
+
+    /**
+     * 将名额转给一位候补会员
+     * @return 转正后的预约信息，候补已被其他请求处理或会员已预约时返回null
+     */
+    private CourseBooking promote(Long scheduleId, CourseWaitlist candidate) {
+        Long memberId = candidate.getMemberId();
+        TransactionUtils.afterCommit(() -> scheduleWaitlist.remove(scheduleId, memberId));
+        // 条件更新，已被其他请求转正或取消的候补会被跳过
+        if (courseWaitlistMapper.promote(candidate.getId()) == 0) {
+            return null;
+        }
+
+        // 候补期间已通过其他方式预约的会员不再转正
+        if (courseBookingMapper.selectByMemberIdAndScheduleId(memberId, scheduleId) != null) {
+            CourseWaitlist skipped = new CourseWaitlist();
+            skipped.setId(candidate.getId());
+            skipped.setStatus(2);
+            courseWaitlistMapper.updateById(skipped);
+            return null;
+        }
+
+        CourseBooking booking = new CourseBooking();
+        booking.setMemberId(memberId);
+        booking.setCourseId(candidate.getCourseId());
+        booking.setScheduleId(scheduleId);
+        booking.setStatus(1); // 初始状态为已预约
+        booking.setPayStatus(0); // 初始支付状态为未支付
+        courseBookingMapper.insert(booking);
+
+        CourseWaitlist promoted = new CourseWaitlist();
+        promoted.setId(candidate.getId());
+        promoted.setBookingId(booking.getId());
+        courseWaitlistMapper.updateById(promoted);
+        return booking;
+    }
+}
@@ -0,0 +1,556 @@
+package com.fitlife.service.impl;
+
+import com.baomidou.mybatisplus.extension.toolkit.Db;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitlife.dto.CourseBookingDTO;
+import com.fitlife.entity.CourseBooking;
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.exception.BusinessException;
+import com.fitlife.lock.ScheduleLockManager;
+import com.fitlife.mapper.CourseBookingMapper;
+import com.fitlife.mapper.CourseScheduleMapper;
+import com.fitlife.service.CourseScheduleService;
+import com.fitlife.service.FlashBookingService;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucket;
+import org.redisson.api.RList;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 秒杀预约服务实现类
+ * Redis中每个课程时间安排使用同一hash tag下的key：剩余名额、已预约会员集合、待落库队列、处理中列表、
+ * 写回锁和每个会员的落库结果，预约脚本在一次调用中完成查重、扣减名额和入队。
+ * 写回任务持有写回锁，把一批预约从待落库队列移到处理中列表，提交后才删除处理中列表，
+ * 进程在提交前退出时，下一次写回先重新处理该列表（已落库的会员不会重复写入）。
+ * 预约请求等待写回结果后返回预约ID；落库失败的预约归还Redis名额并返回失败原因。
+ * 写回和刷新秒杀课程列表在专用线程上定时执行，不受其他定时任务（如索引全量重建）影响。
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "fitlife.booking.flash", name = "enabled", havingValue = "true")
+public class FlashBookingServiceImpl implements FlashBookingService {
+
+    private static final String KEY_PREFIX = "fitlife:flash:";
+
+    private static final String SCHEDULES_KEY = KEY_PREFIX + "schedules";
+
+    /**
+     * 落库失败结果的前缀，其后为失败原因；成功结果为预约ID
+     */
+    private static final String FAILED_PREFIX = "!";
+
+    /**
+     * 预约脚本：返回1-成功，0-名额已满，-1-重复预约，-2-未开启秒杀或已结束
+     * 入队前清除该会员之前的落库结果，避免读到上一次失败的结果
+     */
+    private static final String BOOK_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then return -2 end " +
+            "if redis.call('sismember', KEYS[2], ARGV[1]) == 1 then return -1 end " +
+            "if tonumber(redis.call('get', KEYS[1])) <= 0 then return 0 end " +
+            "redis.call('decr', KEYS[1]) " +
+            "redis.call('sadd', KEYS[2], ARGV[1]) " +
+            "redis.call('del', KEYS[4]) " +
+            "redis.call('rpush', KEYS[3], ARGV[2]) " +
+            "redis.call('pexpireat', KEYS[3], ARGV[3]) " +
+            "return 1";
+
+    /**
+     * 取出一批脚本：从待落库队列头部移出最多ARGV[1]条到处理中列表，返回移出的记录；处理中列表沿用队列的过期时间
+     */
+    private static final String TAKE_SCRIPT =
+            "local items = redis.call('lrange', KEYS[1], 0, tonumber(ARGV[1]) - 1) " +
+            "if #items > 0 then " +
+            "local ttl = redis.call('pttl', KEYS[1]) " +
+            "redis.call('ltrim', KEYS[1], #items, -1) " +
+            "redis.call('rpush', KEYS[2], unpack(items)) " +
+            "if ttl > 0 then redis.call('pexpire', KEYS[2], ttl) end end " +
+            "return items";
+
+    /**
+     * 归还名额脚本：会员在已预约集合中且秒杀未结束时归还一个名额
+     */
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('srem', KEYS[2], ARGV[1]) == 1 and redis.call('exists', KEYS[1]) == 1 then " +
+            "redis.call('incr', KEYS[1]) end " +
+            "return 1";
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private CourseScheduleService courseScheduleService;
+
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    @Autowired
+    private CourseBookingMapper courseBookingMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ScheduleLockManager scheduleLockManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Value("${fitlife.booking.flash.write-behind-batch-size:500}")
+    private int batchSize;
+
+    @Value("${fitlife.booking.flash.confirm-timeout-ms:3000}")
+    private long confirmTimeoutMs;
+
+    @Value("${fitlife.booking.flash.write-behind-interval-ms:50}")
+    private long writeBehindIntervalMs;
+
+    @Value("${fitlife.booking.flash.refresh-interval-ms:2000}")
+    private long refreshIntervalMs;
+
+    /**
+     * 落库结果保留时间，预约请求超时未读取的结果到期删除
+     */
+    private static final Duration RESULT_TTL = Duration.ofMinutes(1);
+
+    /**
+     * 本节点缓存的秒杀课程时间安排 -> 上课时间，定时从Redis刷新
+     */
+    private final Map<Long, LocalDateTime> flashSchedules = new ConcurrentHashMap<>();
+
+    /**
+     * 写回线程，预约请求等待写回结果，不能与其他定时任务共用调度线程
+     */
+    private ScheduledExecutorService writeBehind;
+
+    @PostConstruct
+    public void start() {
+        refreshFlashSchedules();
+        writeBehind = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "flash-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writeBehind.scheduleWithFixedDelay(() -> runSafely(this::refreshFlashSchedules),
+                refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        writeBehind.scheduleWithFixedDelay(() -> runSafely(this::flushPendingBookings),
+                writeBehindIntervalMs, writeBehindIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定时写回，等待进行中的一批提交；未处理的预约留在Redis中由其他节点或重启后写回
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writeBehind.shutdown();
+        writeBehind.awaitTermination(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 刷新秒杀课程列表，已开课的课程写回剩余预约后移出列表
+     */
+    private void refreshFlashSchedules() {
+        Set<Long> latest = new HashSet<>();
+        for (String scheduleId : redissonClient.<String>getSet(SCHEDULES_KEY, StringCodec.INSTANCE).readAll()) {
+            latest.add(Long.valueOf(scheduleId));
+        }
+        flashSchedules.keySet().retainAll(latest);
+        LocalDateTime now = LocalDateTime.now();
+        for (Long scheduleId : latest) {
+            if (!flashSchedules.computeIfAbsent(scheduleId, this::startTimeOf).isAfter(now)) {
+                finish(scheduleId);
+            }
+        }
+    }
+
+    /**
+     * 课程时间安排的上课时间，不存在或已删除时视为已开课
+     */
+    private LocalDateTime startTimeOf(Long scheduleId) {
+        CourseSchedule schedule = courseScheduleMapper.selectById(scheduleId);
+        if (schedule == null || schedule.getDeleted() == 1 || schedule.getStartTime() == null) {
+            return LocalDateTime.MIN;
+        }
+        return schedule.getStartTime();
+    }
+
+    /**
+     * 结束已开课的秒杀：删除剩余名额使新的预约不再入队，写回剩余预约，
+     * 队列和处理中列表都为空后才移出秒杀课程列表，否则下次刷新时继续
+     */
+    private void finish(Long scheduleId) {
+        redissonClient.getBucket(stockKey(scheduleId), StringCodec.INSTANCE).delete();
+        flushQueue(scheduleId, 0);
+        if (pendingCount(scheduleId) > 0) {
+            return;
+        }
+        redissonClient.<String>getSet(SCHEDULES_KEY, StringCodec.INSTANCE).remove(String.valueOf(scheduleId));
+        flashSchedules.remove(scheduleId);
+        log.info("秒杀预约已结束: scheduleId={}", scheduleId);
+    }
+
+    @Override
+    public int openFlashSale(Long scheduleId) {
+        CourseSchedule schedule = courseScheduleService.getCourseScheduleById(scheduleId);
+        if (schedule.getStartTime().isBefore(LocalDateTime.now())) {
+            throw new BusinessException("课程已过期，无法开启秒杀预约");
+        }
+        if (schedule.getStatus() == 3) {
+            throw new BusinessException("课程已取消，无法开启秒杀预约");
+        }
+        int stock = Math.max(schedule.getMaxPeople() - schedule.getBookedPeople(), 0);
+
+        // 已预约的会员不能重复秒杀
+        List<String> bookedMembers = new ArrayList<>();
+        for (CourseBooking booking : courseBookingMapper.selectByScheduleId(scheduleId)) {
+            if (booking.getStatus() == 0 || booking.getStatus() == 1) {
+                bookedMembers.add(String.valueOf(booking.getMemberId()));
+            }
+        }
+
+        // 名额在开课时过期，会员集合和队列保留到开课后一天以便写回任务处理完
+        ZoneId zone = ZoneId.systemDefault();
+        RSet<String> members = redissonClient.getSet(membersKey(scheduleId), StringCodec.INSTANCE);
+        members.delete();
+        if (!bookedMembers.isEmpty()) {
+            members.addAll(bookedMembers);
+        }
+        members.expire(Instant.ofEpochMilli(retainUntil(schedule.getStartTime())));
+        RBucket<String> stockBucket = redissonClient.getBucket(stockKey(scheduleId), StringCodec.INSTANCE);
+        stockBucket.set(String.valueOf(stock));
+        stockBucket.expire(schedule.getStartTime().atZone(zone).toInstant());
+
+        redissonClient.<String>getSet(SCHEDULES_KEY, StringCodec.INSTANCE).add(String.valueOf(scheduleId));
+        flashSchedules.put(scheduleId, schedule.getStartTime());
+        log.info("开启秒杀预约: scheduleId={}, stock={}", scheduleId, stock);
+        return stock;
+    }
+
+    @Override
+    public void closeFlashSale(Long scheduleId) {
+        redissonClient.<String>getSet(SCHEDULES_KEY, StringCodec.INSTANCE).remove(String.valueOf(scheduleId));
+        redissonClient.getBucket(stockKey(scheduleId), StringCodec.INSTANCE).delete();
+        flashSchedules.remove(scheduleId);
+        // 关闭前把已扣减的名额全部落库，其他节点正在写回时等待其完成
+        flushQueue(scheduleId, confirmTimeoutMs);
+        log.info("关闭秒杀预约: scheduleId={}", scheduleId);
+    }
+
+    @Override
+    public boolean isFlashSale(Long scheduleId) {
+        return flashSchedules.containsKey(scheduleId);
+    }
+
+    @Override
+    public CourseBooking book(CourseBookingDTO bookingDTO) {
+        Long scheduleId = bookingDTO.getScheduleId();
+        // 与普通预约相同的校验，课程时间安排从缓存读取
+        CourseSchedule schedule = courseScheduleService.getCourseScheduleById(scheduleId);
+        if (schedule.getStartTime().isBefore(LocalDateTime.now())) {
+            throw new BusinessException("课程已过期，无法预约");
+        }
+        if (schedule.getStatus() == 3) {
+            throw new BusinessException("课程已取消，无法预约");
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(bookingDTO);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("预约信息序列化失败", e);
+        }
+        Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, BOOK_SCRIPT,
+                RScript.ReturnType.INTEGER,
+                Arrays.<Object>asList(stockKey(scheduleId), membersKey(scheduleId), queueKey(scheduleId),
+                        resultKey(scheduleId, bookingDTO.getMemberId())),
+                String.valueOf(bookingDTO.getMemberId()), payload, String.valueOf(retainUntil(schedule.getStartTime())));
+        if (result == null || result == -2) {
+            // 秒杀已结束，交由普通预约流程处理
+            flashSchedules.remove(scheduleId);
+            return null;
+        }
+        if (result == -1) {
+            throw new BusinessException("您已经预约了该课程");
+        }
+        if (result == 0) {
+            throw new BusinessException("课程预约人数已满");
+        }
+
+        // 等待写回任务落库，成功时返回预约ID
+        String outcome;
+        try {
+            outcome = redissonClient.<String>getBlockingQueue(resultKey(scheduleId, bookingDTO.getMemberId()), StringCodec.INSTANCE)
+                    .poll(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = null;
+        }
+        if (outcome == null) {
+            throw new BusinessException("预约处理中，请稍后在我的预约中查看结果");
+        }
+        if (outcome.startsWith(FAILED_PREFIX)) {
+            throw new BusinessException(outcome.substring(FAILED_PREFIX.length()));
+        }
+        CourseBooking booking = toBooking(bookingDTO);
+        booking.setId(Long.valueOf(outcome));
+        return booking;
+    }
+
+    @Override
+    public void release(Long scheduleId, Long memberId) {
+        redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT,
+                RScript.ReturnType.INTEGER,
+                Arrays.<Object>asList(stockKey(scheduleId), membersKey(scheduleId)),
+                String.valueOf(memberId));
+    }
+
+    @Override
+    public int flushPendingBookings() {
+        int total = 0;
+        for (Long scheduleId : new ArrayList<>(flashSchedules.keySet())) {
+            // 队列为空时不加写回锁
+            if (pendingCount(scheduleId) > 0) {
+                total += flushQueue(scheduleId, 0);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 持有写回锁，逐批落库直到队列为空
+     * @param scheduleId 课程时间安排ID
+     * @param waitMillis 等待写回锁的时间，其他节点正在写回时0表示跳过
+     * @return 本次处理的预约数量
+     */
+    private int flushQueue(Long scheduleId, long waitMillis) {
+        RLock lock = redissonClient.getLock(flushLockKey(scheduleId));
+        try {
+            if (!lock.tryLock(waitMillis, TimeUnit.MILLISECONDS)) {
+                return 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        try {
+            RList<String> processing = redissonClient.getList(processingKey(scheduleId), StringCodec.INSTANCE);
+            int total = 0;
+            // 处理中列表不为空说明上次写回未完成（如进程退出），先重新处理
+            List<String> payloads = processing.readAll();
+            if (payloads.isEmpty()) {
+                payloads = take(scheduleId);
+            }
+            while (!payloads.isEmpty()) {
+                Map<Long, String> outcomes = persist(scheduleId, payloads);
+                // 提交后才移除，之后再通知预约请求
+                processing.delete();
+                complete(scheduleId, outcomes);
+                total += payloads.size();
+                payloads = take(scheduleId);
+            }
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 待落库队列和处理中列表的记录数，一次往返
+     */
+    private int pendingCount(Long scheduleId) {
+        RBatch batch = redissonClient.createBatch();
+        batch.getList(queueKey(scheduleId), StringCodec.INSTANCE).sizeAsync();
+        batch.getList(processingKey(scheduleId), StringCodec.INSTANCE).sizeAsync();
+        int count = 0;
+        for (Object size : batch.execute().getResponses()) {
+            count += ((Number) size).intValue();
+        }
+        return count;
+    }
+
+    /**
+     * 从待落库队列移出一批到处理中列表
+     */
+    private List<String> take(Long scheduleId) {
+        List<Object> items = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, TAKE_SCRIPT,
+                RScript.ReturnType.MULTI, Arrays.<Object>asList(queueKey(scheduleId), processingKey(scheduleId)),
+                String.valueOf(batchSize));
+        List<String> payloads = new ArrayList<>(items == null ? 0 : items.size());
+        if (items != null) {
+            for (Object item : items) {
+                payloads.add((String) item);
+            }
+        }
+        return payloads;
+    }
+
+    /**
+     * 批量落库，整批失败时逐条重试
+     * @return 会员ID -> 落库结果（预约ID，或失败前缀加失败原因）
+     */
+    private Map<Long, String> persist(Long scheduleId, List<String> payloads) {
+        Map<Long, CourseBooking> bookings = new LinkedHashMap<>();
+        for (String payload : payloads) {
+            CourseBooking booking = parse(payload);
+            bookings.putIfAbsent(booking.getMemberId(), booking);
+        }
+        Map<Long, String> outcomes = new LinkedHashMap<>();
+        // 重新处理中断的批次时部分预约可能已经提交，已有有效预约的会员不再写入
+        for (CourseBooking existing : courseBookingMapper.selectActiveByScheduleIdAndMemberIds(scheduleId, bookings.keySet())) {
+            bookings.remove(existing.getMemberId());
+            outcomes.put(existing.getMemberId(), String.valueOf(existing.getId()));
+        }
+        if (bookings.isEmpty()) {
+            return outcomes;
+        }
+
+        List<CourseBooking> pending = new ArrayList<>(bookings.values());
+        try {
+            // 与普通预约一样持有课程时间安排锁修改预约人数，持锁范围包含整个事务
+            scheduleLockManager.executeWithLock(scheduleId, () -> transactionTemplate.execute(status -> {
+                if (courseScheduleMapper.updateBookedPeople(scheduleId, pending.size()) == 0) {
+                    throw new BusinessException("课程预约人数已满");
+                }
+                Db.saveBatch(pending, batchSize);
+                applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.booked(scheduleId, pending.size()));
+                return null;
+            }));
+            for (CourseBooking booking : pending) {
+                outcomes.put(booking.getMemberId(), String.valueOf(booking.getId()));
+            }
+            return outcomes;
+        } catch (RuntimeException e) {
+            log.warn("秒杀预约批量落库失败，逐条重试: scheduleId={}, size={}", scheduleId, pending.size(), e);
+        }
+        for (CourseBooking booking : pending) {
+            booking.setId(null);
+            try {
+                scheduleLockManager.executeWithLock(scheduleId, () -> transactionTemplate.execute(status -> {
+                    if (courseScheduleMapper.updateBookedPeople(scheduleId, 1) == 0) {
+                        throw new BusinessException("课程预约人数已满");
+                    }
+                    courseBookingMapper.insert(booking);
+                    applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.booked(scheduleId, 1));
+                    return null;
+                }));
+                outcomes.put(booking.getMemberId(), String.valueOf(booking.getId()));
+            } catch (RuntimeException e) {
+                log.warn("秒杀预约落库失败: scheduleId={}, memberId={}, reason={}", scheduleId, booking.getMemberId(), e.getMessage());
+                String reason = e instanceof BusinessException ? e.getMessage() : "预约失败，请重试";
+                outcomes.put(booking.getMemberId(), FAILED_PREFIX + reason);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * 通知等待的预约请求，并归还落库失败的预约占用的Redis名额
+     * 先写入结果再归还名额：归还后会员可以重新预约，预约脚本会清除旧结果
+     */
+    private void complete(Long scheduleId, Map<Long, String> outcomes) {
+        RBatch batch = redissonClient.createBatch();
+        for (Map.Entry<Long, String> entry : outcomes.entrySet()) {
+            String key = resultKey(scheduleId, entry.getKey());
+            batch.<String>getQueue(key, StringCodec.INSTANCE).addAsync(entry.getValue());
+            batch.getQueue(key, StringCodec.INSTANCE).expireAsync(RESULT_TTL);
+        }
+        batch.execute();
+        for (Map.Entry<Long, String> entry : outcomes.entrySet()) {
+            if (entry.getValue().startsWith(FAILED_PREFIX)) {
+                release(scheduleId, entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * 执行定时任务，异常会终止后续执行，记录后继续
+     */
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("秒杀预约定时任务执行失败", e);
+        }
+    }
+
+    private CourseBooking parse(String payload) {
+        try {
+            return toBooking(objectMapper.readValue(payload, CourseBookingDTO.class));
+        } catch (IOException e) {
+            throw new BusinessException("预约信息反序列化失败", e);
+        }
+    }
+
+    private CourseBooking toBooking(CourseBookingDTO bookingDTO) {
+        CourseBooking booking = new CourseBooking();
+        BeanUtils.copyProperties(bookingDTO, booking);
+        booking.setStatus(1); // 初始状态为已预约
+        booking.setPayStatus(0); // 初始支付状态为未支付
+        return booking;
+    }
+
+    /**
+     * 会员集合和待落库队列保留到开课后一天，以便写回任务处理完
+     */
+    private static long retainUntil(LocalDateTime startTime) {
+        return startTime.plusDays(1).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String stockKey(Long scheduleId) {
+        return KEY_PREFIX + "{" + scheduleId + "}:stock";
+    }
+
+    private static String membersKey(Long scheduleId) {
+        return KEY_PREFIX + "{" + scheduleId + "}:members";
+    }
+
+    private static String queueKey(Long scheduleId) {
+        return KEY_PREFIX + "{" + scheduleId + "}:queue";
+    }
+
+    private static String processingKey(Long scheduleId) {
+        return KEY_PREFIX + "{" + scheduleId + "}:processing";
+    }
+
+    private static String flushLockKey(Long scheduleId) {
+        return KEY_PREFIX + "{" + scheduleId + "}:flush";
+    }
+
+    private static String resultKey(Long scheduleId, Long memberId) {
+        return KEY_PREFIX + "{" + scheduleId + "}:result:" + memberId;
+    }
+}
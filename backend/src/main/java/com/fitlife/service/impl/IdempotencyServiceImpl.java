@@ -0,0 +1,228 @@
+package com.fitlife.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitlife.entity.IdempotencyRecord;
+import com.fitlife.entity.Result;
+import com.fitlife.exception.BusinessException;
+import com.fitlife.mapper.IdempotencyRecordMapper;
+import com.fitlife.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 幂等请求服务实现类
+ * 响应结果保存在数据库中，并在本节点保留一份有界的LRU缓存，重复请求命中缓存时不访问数据库。
+ * 业务异常视为最终结果一并保存，重放时抛出相同的异常；系统异常和可重试的异常（409、429）不保存，允许客户端重试
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl extends ServiceImpl<IdempotencyRecordMapper, IdempotencyRecord> implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    @Autowired
+    private IdempotencyRecordMapper idempotencyRecordMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${fitlife.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${fitlife.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${fitlife.idempotency.processing-timeout-seconds:60}")
+    private long processingTimeoutSeconds;
+
+    private Map<String, CachedResult> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Override
+    public <T> Result<T> execute(String idempotencyKey, String operation, Class<T> dataType, Supplier<T> supplier) {
+        return execute(idempotencyKey, operation, objectMapper.constructType(dataType), supplier);
+    }
+
+    @Override
+    public <T> Result<T> execute(String idempotencyKey, String operation, TypeReference<T> dataType, Supplier<T> supplier) {
+        return execute(idempotencyKey, operation, objectMapper.getTypeFactory().constructType(dataType), supplier);
+    }
+
+    @Override
+    @Scheduled(cron = "${fitlife.idempotency.cleanup-cron:0 0 * * * ?}")
+    public int cleanExpiredRecords() {
+        int count = idempotencyRecordMapper.deleteExpired(LocalDateTime.now());
+        if (count > 0) {
+            log.info("清理过期幂等记录: count={}", count);
+        }
+        return count;
+    }
+
+    private <T> Result<T> execute(String idempotencyKey, String operation, JavaType dataType, Supplier<T> supplier) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return Result.success(supplier.get());
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("幂等键长度不能超过" + MAX_KEY_LENGTH);
+        }
+
+        CachedResult cached = cache.get(idempotencyKey);
+        if (cached != null && cached.expireTime.isAfter(LocalDateTime.now())) {
+            return replay(cached, operation);
+        }
+
+        IdempotencyRecord record = claim(idempotencyKey, operation);
+        if (record.getStatus() == 1) {
+            cached = new CachedResult(record.getOperation(), toResult(record, dataType), record.getExpireTime());
+            cache.put(idempotencyKey, cached);
+            return replay(cached, operation);
+        }
+
+        try {
+            T data = supplier.get();
+            Result<T> result = Result.success(data);
+            complete(record, result);
+            return result;
+        } catch (BusinessException e) {
+            if (isRetryable(e.getCode())) {
+                idempotencyRecordMapper.deleteById(record.getId());
+            } else {
+                complete(record, Result.fail(e.getCode(), e.getMessage()));
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            idempotencyRecordMapper.deleteById(record.getId());
+            throw e;
+        }
+    }
+
+    /**
+     * 占用幂等键，返回新建的处理中记录、接管的超时记录、重新占用的过期记录或已完成的记录
+     */
+    private IdempotencyRecord claim(String idempotencyKey, String operation) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(idempotencyKey);
+        record.setOperation(operation);
+        record.setStatus(0);
+        record.setExpireTime(now.plusHours(ttlHours));
+        record.setCreateTime(now);
+        record.setUpdateTime(now);
+        try {
+            idempotencyRecordMapper.insert(record);
+            return record;
+        } catch (DuplicateKeyException e) {
+            IdempotencyRecord existing = idempotencyRecordMapper.selectByKey(idempotencyKey);
+            if (existing == null) {
+                throw new BusinessException(409, "请求正在处理中，请稍后重试");
+            }
+            // 已过期但尚未清理的记录不再重放，按新请求处理
+            if (existing.getExpireTime().isBefore(now)) {
+                if (idempotencyRecordMapper.renew(existing.getId(), operation, record.getExpireTime(), now) > 0) {
+                    record.setId(existing.getId());
+                    return record;
+                }
+                throw new BusinessException(409, "请求正在处理中，请勿重复提交");
+            }
+            if (!existing.getOperation().equals(operation)) {
+                throw new BusinessException(422, "幂等键已被其他请求使用");
+            }
+            if (existing.getStatus() == 1) {
+                return existing;
+            }
+            if (idempotencyRecordMapper.reclaim(existing.getId(), now.minusSeconds(processingTimeoutSeconds), now) > 0) {
+                log.warn("接管处理超时的幂等请求: key={}, operation={}", idempotencyKey, operation);
+                return existing;
+            }
+            throw new BusinessException(409, "请求正在处理中，请勿重复提交");
+        }
+    }
+
+    private void complete(IdempotencyRecord record, Result<?> result) {
+        String data;
+        try {
+            data = result.getData() == null ? null : objectMapper.writeValueAsString(result.getData());
+        } catch (JsonProcessingException e) {
+            // 响应无法保存时放弃幂等记录，不影响本次请求
+            log.error("幂等响应序列化失败: key={}", record.getIdempotencyKey(), e);
+            idempotencyRecordMapper.deleteById(record.getId());
+            return;
+        }
+        idempotencyRecordMapper.complete(record.getId(), result.getCode(), result.getMessage(), data);
+        cache.put(record.getIdempotencyKey(), new CachedResult(record.getOperation(), result, record.getExpireTime()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Result<T> replay(CachedResult cached, String operation) {
+        if (!cached.operation.equals(operation)) {
+            throw new BusinessException(422, "幂等键已被其他请求使用");
+        }
+        Result<?> result = cached.result;
+        if (result.getCode() != 200) {
+            throw new BusinessException(result.getCode(), result.getMessage());
+        }
+        return (Result<T>) result;
+    }
+
+    private Result<?> toResult(IdempotencyRecord record, JavaType dataType) {
+        Result<Object> result = new Result<>();
+        result.setCode(record.getResultCode());
+        result.setMessage(record.getResultMessage());
+        if (record.getResultData() != null) {
+            try {
+                result.setData(objectMapper.readValue(record.getResultData(), dataType));
+            } catch (IOException e) {
+                throw new BusinessException("幂等响应反序列化失败", e);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isRetryable(Integer code) {
+        return code != null && (code == 409 || code == 429);
+    }
+
+    /**
+     * 本节点缓存的响应结果
+     */
+    private static final class CachedResult {
+
+        private final String operation;
+
+        private final Result<?> result;
+
+        private final LocalDateTime expireTime;
+
+        private CachedResult(String operation, Result<?> result, LocalDateTime expireTime) {
+            this.operation = operation;
+            this.result = result;
+            this.expireTime = expireTime;
+        }
+    }
+}
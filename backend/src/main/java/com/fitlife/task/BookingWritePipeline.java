@@ -0,0 +1,280 @@
+package com.fitlife.task;
+
+import com.baomidou.mybatisplus.extension.toolkit.Db;
+import com.fitlife.entity.CourseBooking;
+import com.fitlife.exception.BusinessException;
+import com.fitlife.lock.ScheduleLockManager;
+import com.fitlife.service.CourseScheduleService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程预约批量写入管道
+ * 预约请求进入有界队列，单个写入线程在等待窗口内收集请求，
+ * 在同一事务中按课程时间安排合并占用名额并批量插入，事务提交后才通知调用方。
+ * 开启事务前按固定顺序持有本批所有课程时间安排的锁，事务中不再等待课程锁
+ */
+@Slf4j
+@Component
+public class BookingWritePipeline {
+
+    @Autowired
+    private CourseScheduleService courseScheduleService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ScheduleLockManager scheduleLockManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fitlife.booking.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fitlife.booking.pipeline.batch-size:100}")
+    private int batchSize;
+
+    @Value("${fitlife.booking.pipeline.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${fitlife.booking.pipeline.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<PendingBooking> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    private Timer commitTimer;
+
+    private DistributionSummary batchSummary;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("fitlife.booking.pipeline.queue.depth", queue, BlockingQueue::size)
+                .description("预约写入管道排队数量")
+                .register(meterRegistry);
+        commitTimer = Timer.builder("fitlife.booking.pipeline.commit.latency")
+                .description("预约写入管道批量提交耗时")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        batchSummary = DistributionSummary.builder("fitlife.booking.pipeline.batch.size")
+                .description("预约写入管道每批数量")
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::drainLoop, "booking-write-pipeline");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("预约批量写入管道已启动: batchSize={}, maxWaitMs={}, queueCapacity={}", batchSize, maxWaitMs, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 是否开启批量写入
+     * @return 是否开启
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交预约，返回的future在事务提交后完成
+     * @param booking 预约记录
+     * @return 写入结果
+     */
+    public CompletableFuture<CourseBooking> submit(CourseBooking booking) {
+        PendingBooking pending = new PendingBooking(booking);
+        if (!running || !queue.offer(pending)) {
+            pending.future.completeExceptionally(new BusinessException(429, "预约人数过多，请稍后重试"));
+        }
+        return pending.future;
+    }
+
+    /**
+     * 提交预约并等待事务提交
+     * @param booking 预约记录
+     * @return 写入后的预约记录
+     */
+    public CourseBooking write(CourseBooking booking) {
+        try {
+            return submit(booking).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("预约被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingBooking> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBooking first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 在等待窗口内尽量凑满一批
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingBooking next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("预约写入管道处理失败", e);
+                for (PendingBooking pending : batch) {
+                    pending.future.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中写入一批预约，失败时逐条重试以隔离出错的记录
+     */
+    private void flush(List<PendingBooking> batch) {
+        batchSummary.record(batch.size());
+        long start = System.nanoTime();
+        Map<Long, List<PendingBooking>> groups = new LinkedHashMap<>();
+        for (PendingBooking pending : batch) {
+            groups.computeIfAbsent(pending.booking.getScheduleId(), k -> new ArrayList<>()).add(pending);
+        }
+        List<PendingBooking> accepted;
+        try {
+            accepted = scheduleLockManager.executeWithLocks(groups.keySet(),
+                    () -> transactionTemplate.execute(status -> writeBatch(groups, batch.size())));
+        } catch (RuntimeException e) {
+            log.warn("预约批量写入失败，逐条重试: size={}", batch.size(), e);
+            for (PendingBooking pending : batch) {
+                // 已因名额不足失败的请求不再重试
+                if (!pending.future.isDone()) {
+                    flushSingle(pending);
+                }
+            }
+            return;
+        } finally {
+            commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        for (PendingBooking pending : accepted) {
+            pending.future.complete(pending.booking);
+        }
+    }
+
+    /**
+     * 按课程时间安排分组写入，每组一次条件更新占用名额
+     */
+    private List<PendingBooking> writeBatch(Map<Long, List<PendingBooking>> groups, int size) {
+        List<PendingBooking> accepted = new ArrayList<>(size);
+        for (Map.Entry<Long, List<PendingBooking>> entry : groups.entrySet()) {
+            List<PendingBooking> group = entry.getValue();
+            if (reserve(entry.getKey(), group.size())) {
+                accepted.addAll(group);
+                continue;
+            }
+            // 名额不足以容纳整组时逐个占用，剩余请求直接失败
+            for (PendingBooking pending : group) {
+                if (reserve(entry.getKey(), 1)) {
+                    accepted.add(pending);
+                } else {
+                    pending.future.completeExceptionally(new BusinessException("课程预约人数已满"));
+                }
+            }
+        }
+        List<CourseBooking> bookings = new ArrayList<>(accepted.size());
+        for (PendingBooking pending : accepted) {
+            bookings.add(pending.booking);
+        }
+        if (!bookings.isEmpty()) {
+            Db.saveBatch(bookings, batchSize);
+        }
+        return accepted;
+    }
+
+    /**
+     * 占用名额，只有条件更新未命中才视为名额不足，其他异常（如加锁超时）直接抛出
+     */
+    private boolean reserve(Long scheduleId, int count) {
+        return courseScheduleService.tryUpdateBookedPeople(scheduleId, count);
+    }
+
+    private void flushSingle(PendingBooking pending) {
+        Long scheduleId = pending.booking.getScheduleId();
+        try {
+            // 与普通预约相同，先加课程锁再开启事务
+            scheduleLockManager.executeWithLock(scheduleId, () -> transactionTemplate.execute(status -> {
+                courseScheduleService.updateBookedPeople(scheduleId, 1);
+                pending.booking.setId(null);
+                Db.save(pending.booking);
+                return null;
+            }));
+            pending.future.complete(pending.booking);
+        } catch (RuntimeException e) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 排队中的预约
+     */
+    private static final class PendingBooking {
+
+        private final CourseBooking booking;
+
+        private final CompletableFuture<CourseBooking> future = new CompletableFuture<>();
+
+        private PendingBooking(CourseBooking booking) {
+            this.booking = booking;
+        }
+    }
+}
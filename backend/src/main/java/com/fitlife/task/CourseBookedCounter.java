@@ -0,0 +1,151 @@
+package com.fitlife.task;
+
+import com.fitlife.cache.ScheduleIntervalIndex;
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.mapper.CourseMapper;
+import com.fitlife.mapper.CourseScheduleMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 课程已预约人数汇总
+ * 课程时间安排的名额由时间安排表严格校验，课程表的已预约人数只是各时间安排的汇总，
+ * 变化量先累加到每门课程的分段累加器（LongAdder）中，定时合并为一条语句按增量写入，
+ * 同一课程的并发预约不再争用课程表的同一行。
+ * 写入时只减去本次读到的数量，读取期间新增的变化量留到下次写入，不会丢失。
+ */
+@Slf4j
+@Component
+public class CourseBookedCounter {
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    @Autowired
+    private ScheduleIntervalIndex scheduleIntervalIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 课程ID -> 待写入的变化量，课程数量有限，累加器不移除
+     */
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 最早一笔未写入变化量的时间（毫秒），没有待写入变化量时为0
+     */
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("fitlife.course.booked-counter.lag", oldestPendingMillis,
+                        oldest -> oldest.get() == 0 ? 0 : (System.currentTimeMillis() - oldest.get()) / 1000.0)
+                .description("课程已预约人数最早一笔未写入变化量的等待时间（秒）")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("fitlife.course.booked-counter.flush")
+                .description("课程已预约人数批量写入耗时")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    /**
+     * 累加课程已预约人数变化量
+     * @param courseId 课程ID
+     * @param delta 变化量
+     */
+    public void add(Long courseId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        oldestPendingMillis.compareAndSet(0, System.currentTimeMillis());
+        pending.computeIfAbsent(courseId, k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * 查询尚未写入数据库的变化量
+     * @param courseId 课程ID
+     * @return 变化量
+     */
+    public long getPending(Long courseId) {
+        LongAdder adder = pending.get(courseId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * 事务提交后累加课程时间安排的已预约人数变化
+     * @param event 课程时间安排变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(CourseScheduleChangedEvent event) {
+        if (event.getBookedDelta() == null) {
+            return;
+        }
+        CourseSchedule schedule = scheduleIntervalIndex.findById(event.getScheduleId());
+        if (schedule == null) {
+            schedule = courseScheduleMapper.selectById(event.getScheduleId());
+        }
+        if (schedule != null && schedule.getCourseId() != null) {
+            add(schedule.getCourseId(), event.getBookedDelta());
+        }
+    }
+
+    /**
+     * 批量写入变化量，写入失败时放回累加器等待下次写入
+     */
+    @Scheduled(fixedDelayString = "${fitlife.course.booked-counter.flush-interval-ms:3000}")
+    public synchronized void flush() {
+        // 先清除最早时间，之后的变化量会重新记录
+        long oldest = oldestPendingMillis.getAndSet(0);
+        Map<Long, Long> deltas = new LinkedHashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sum();
+            if (delta != 0) {
+                entry.getValue().add(-delta);
+                deltas.put(entry.getKey(), delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            courseMapper.batchAddBookedPeople(deltas);
+            log.debug("课程已预约人数写入完成: courses={}", deltas.size());
+        } catch (RuntimeException e) {
+            log.error("课程已预约人数写入失败，等待下次写入: courses={}", deltas.size(), e);
+            oldestPendingMillis.accumulateAndGet(oldest,
+                    (current, previous) -> current == 0 || previous == 0 ? Math.max(current, previous) : Math.min(current, previous));
+            for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+                pending.get(entry.getKey()).add(entry.getValue());
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
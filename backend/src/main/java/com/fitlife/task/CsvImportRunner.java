@@ -0,0 +1,403 @@
+package com.fitlife.task;
+
+import cn.hutool.core.io.BOMInputStream;
+import cn.hutool.core.text.csv.CsvReadConfig;
+import cn.hutool.core.text.csv.CsvReader;
+import cn.hutool.core.text.csv.CsvRow;
+import com.fitlife.dto.ImportTaskDTO;
+import com.fitlife.exception.BusinessException;
+import com.fitlife.util.CsvTransferUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CSV批量导入任务
+ * 上传的文件先写入临时文件，由导入线程逐行读取、校验，每满一批写入一次（每批单独提交），
+ * 内存中只保留当前一批数据，文件大小不影响内存占用。导入进度可按任务ID查询。
+ * 校验或写入失败的行跳过并记录原因，不影响其他行。
+ */
+@Slf4j
+@Component
+public class CsvImportRunner {
+
+    public static final int STATUS_RUNNING = 0;
+
+    public static final int STATUS_FINISHED = 1;
+
+    public static final int STATUS_FAILED = 2;
+
+    /**
+     * 每个任务保留的失败原因数量
+     */
+    private static final int MAX_ERRORS = 100;
+
+    @Value("${fitlife.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${fitlife.import.threads:2}")
+    private int threads;
+
+    @Value("${fitlife.import.retention-minutes:60}")
+    private int retentionMinutes;
+
+    private ExecutorService executor;
+
+    /**
+     * 任务ID -> 任务，结束后保留一段时间供查询进度
+     */
+    private final ConcurrentHashMap<String, Task> tasks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "csv-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交导入任务
+     * @param type 导入类型
+     * @param file 上传的CSV文件（UTF-8编码，第一行为列名）
+     * @param parser 行解析，数据不合法时抛出BusinessException
+     * @param writer 批量写入
+     * @param <T> 数据类型
+     * @return 任务进度
+     */
+    public <T> ImportTaskDTO submit(String type, MultipartFile file, RowParser<T> parser, ChunkWriter<T> writer) {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException("导入文件不能为空");
+        }
+        Path path = null;
+        try {
+            path = Files.createTempFile("fitlife-import-", ".csv");
+            file.transferTo(path);
+        } catch (IOException e) {
+            deleteQuietly(path);
+            log.error("导入文件保存失败: {}", file.getOriginalFilename(), e);
+            throw new BusinessException("导入文件保存失败");
+        }
+        Task task = new Task(UUID.randomUUID().toString().replace("-", ""), type, file.getOriginalFilename(), file.getSize());
+        tasks.put(task.id, task);
+        Path source = path;
+        executor.execute(() -> run(task, source, parser, writer));
+        return task.toDTO();
+    }
+
+    /**
+     * 查询任务进度
+     * @param type 导入类型
+     * @param taskId 任务ID
+     * @return 任务进度
+     */
+    public ImportTaskDTO getTask(String type, String taskId) {
+        Task task = tasks.get(taskId);
+        if (task == null || !task.type.equals(type)) {
+            throw new BusinessException("导入任务不存在");
+        }
+        return task.toDTO();
+    }
+
+    /**
+     * 清理已结束的过期任务
+     */
+    @Scheduled(fixedDelayString = "${fitlife.import.cleanup-interval-ms:600000}")
+    public void cleanup() {
+        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(retentionMinutes);
+        tasks.values().removeIf(task -> task.finishTime != null && task.finishTime.isBefore(expireTime));
+    }
+
+    private <T> void run(Task task, Path path, RowParser<T> parser, ChunkWriter<T> writer) {
+        long start = System.currentTimeMillis();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        List<Long> rowNumbers = new ArrayList<>(chunkSize);
+        CsvReadConfig config = CsvReadConfig.defaultConfig();
+        config.setContainsHeader(true);
+        config.setSkipEmptyRows(true);
+        int status = STATUS_FAILED;
+        try (InputStream in = new CountingInputStream(Files.newInputStream(path), task.readBytes);
+             CsvReader reader = new CsvReader(new InputStreamReader(new BOMInputStream(in), StandardCharsets.UTF_8), config)) {
+            long rowNumber = 0;
+            for (CsvRow csvRow : reader) {
+                rowNumber++;
+                try {
+                    chunk.add(parser.parse(new Row(csvRow)));
+                    rowNumbers.add(rowNumber);
+                } catch (BusinessException e) {
+                    task.fail(rowNumber, e.getMessage());
+                }
+                task.processedRows = rowNumber;
+                if (chunk.size() >= chunkSize) {
+                    flush(task, writer, chunk, rowNumbers);
+                }
+            }
+            flush(task, writer, chunk, rowNumbers);
+            status = STATUS_FINISHED;
+        } catch (Exception e) {
+            log.error("导入任务失败: taskId={}, type={}", task.id, task.type, e);
+            task.message = e.getMessage();
+        } finally {
+            task.finishTime = LocalDateTime.now();
+            task.status = status;
+            deleteQuietly(path);
+        }
+        log.info("导入任务结束: taskId={}, type={}, rows={}, imported={}, failed={}, costMs={}", task.id, task.type,
+                task.processedRows, task.importedRows, task.failedRows, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 写入一批数据，整批写入失败时该批全部记为失败
+     */
+    private <T> void flush(Task task, ChunkWriter<T> writer, List<T> chunk, List<Long> rowNumbers) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Integer, String> rejected = writer.write(chunk);
+            for (Map.Entry<Integer, String> entry : rejected.entrySet()) {
+                task.fail(rowNumbers.get(entry.getKey()), entry.getValue());
+            }
+            task.importedRows += chunk.size() - rejected.size();
+        } catch (RuntimeException e) {
+            log.error("导入数据写入失败: taskId={}, rows={}-{}", task.id, rowNumbers.get(0), rowNumbers.get(rowNumbers.size() - 1), e);
+            for (Long rowNumber : rowNumbers) {
+                task.fail(rowNumber, "数据写入失败");
+            }
+        }
+        chunk.clear();
+        rowNumbers.clear();
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("导入临时文件删除失败: {}", path, e);
+        }
+    }
+
+    /**
+     * 行解析
+     * @param <T> 数据类型
+     */
+    @FunctionalInterface
+    public interface RowParser<T> {
+
+        /**
+         * 解析并校验一行数据
+         * @param row 数据行
+         * @return 数据
+         */
+        T parse(Row row);
+    }
+
+    /**
+     * 批量写入
+     * @param <T> 数据类型
+     */
+    @FunctionalInterface
+    public interface ChunkWriter<T> {
+
+        /**
+         * 写入一批数据
+         * @param rows 数据
+         * @return 未写入的数据（在本批中的位置 -> 原因），全部写入时为空
+         */
+        Map<Integer, String> write(List<T> rows);
+    }
+
+    /**
+     * CSV数据行，按列名读取，空白单元格视为null，格式错误时抛出BusinessException
+     */
+    public static final class Row {
+
+        private final CsvRow row;
+
+        private Row(CsvRow row) {
+            this.row = row;
+        }
+
+        public String getString(String column) {
+            String value = row.getByName(column);
+            return StringUtils.hasText(value) ? value.trim() : null;
+        }
+
+        public String getRequiredString(String column, String label) {
+            String value = getString(column);
+            if (value == null) {
+                throw new BusinessException(label + "不能为空");
+            }
+            return value;
+        }
+
+        public Long getLong(String column, String label) {
+            String value = getString(column);
+            try {
+                return value == null ? null : Long.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new BusinessException(label + "格式错误: " + value);
+            }
+        }
+
+        public Integer getInteger(String column, String label) {
+            String value = getString(column);
+            try {
+                return value == null ? null : Integer.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new BusinessException(label + "格式错误: " + value);
+            }
+        }
+
+        public BigDecimal getDecimal(String column, String label) {
+            String value = getString(column);
+            try {
+                return value == null ? null : new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                throw new BusinessException(label + "格式错误: " + value);
+            }
+        }
+
+        public LocalDateTime getDateTime(String column, String label) {
+            String value = getString(column);
+            try {
+                return value == null ? null : CsvTransferUtils.parseDateTime(value);
+            } catch (DateTimeParseException e) {
+                throw new BusinessException(label + "格式错误，应为yyyy-MM-dd HH:mm:ss: " + value);
+            }
+        }
+    }
+
+    /**
+     * 导入任务，进度只由导入线程更新，查询时复制
+     */
+    private static final class Task {
+
+        private final String id;
+
+        private final String type;
+
+        private final String fileName;
+
+        private final long totalBytes;
+
+        private final AtomicLong readBytes = new AtomicLong();
+
+        private final LocalDateTime startTime = LocalDateTime.now();
+
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        private volatile int status = STATUS_RUNNING;
+
+        private volatile long processedRows;
+
+        private volatile long importedRows;
+
+        private volatile long failedRows;
+
+        private volatile String message;
+
+        private volatile LocalDateTime finishTime;
+
+        private Task(String id, String type, String fileName, long totalBytes) {
+            this.id = id;
+            this.type = type;
+            this.fileName = fileName;
+            this.totalBytes = totalBytes;
+        }
+
+        private void fail(long rowNumber, String reason) {
+            failedRows++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("第" + rowNumber + "行: " + reason);
+            }
+        }
+
+        private ImportTaskDTO toDTO() {
+            ImportTaskDTO dto = new ImportTaskDTO();
+            dto.setTaskId(id);
+            dto.setType(type);
+            dto.setFileName(fileName);
+            dto.setStatus(status);
+            dto.setTotalBytes(totalBytes);
+            dto.setReadBytes(Math.min(readBytes.get(), totalBytes));
+            dto.setProcessedRows(processedRows);
+            dto.setImportedRows(importedRows);
+            dto.setFailedRows(failedRows);
+            synchronized (errors) {
+                dto.setErrors(new ArrayList<>(errors));
+            }
+            dto.setMessage(message);
+            dto.setStartTime(startTime);
+            dto.setFinishTime(finishTime);
+            return dto;
+        }
+    }
+
+    /**
+     * 统计已读取字节数的输入流，用于计算导入进度
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final AtomicLong count;
+
+        private CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
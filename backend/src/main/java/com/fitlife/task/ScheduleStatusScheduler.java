@@ -0,0 +1,258 @@
+package com.fitlife.task;
+
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.event.CourseSchedulesChangedEvent;
+import com.fitlife.mapper.CourseScheduleMapper;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程状态定时切换
+ * 使用时间轮在上课时间将未开始的课程切换为进行中，在下课时间切换为已结束。
+ * 时间轮只登记未来一段时间内的课程，定时从数据库补充；到期的课程先进入队列，再按批量条件更新写入，
+ * 条件中校验状态和时间，课程时间调整或已取消时不会被错误切换。启动时同时补齐停机期间错过的切换。
+ */
+@Slf4j
+@Component
+public class ScheduleStatusScheduler {
+
+    /**
+     * 每条更新语句的最大ID数量
+     */
+    private static final int UPDATE_BATCH_SIZE = 500;
+
+    /**
+     * 一次切换的课程超过该数量时发布一个批量变更事件，不再逐条发布变更事件
+     */
+    private static final int MAX_EVENTS_PER_FLUSH = 1000;
+
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Value("${fitlife.schedule.status.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fitlife.schedule.status.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${fitlife.schedule.status.horizon-minutes:60}")
+    private long horizonMinutes;
+
+    private HashedWheelTimer timer;
+
+    /**
+     * 已登记的课程时间安排，课程时间变化时取消原有定时任务重新登记
+     */
+    private final ConcurrentHashMap<Long, Registration> registrations = new ConcurrentHashMap<>();
+
+    private final Queue<Long> toStart = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Long> toFinish = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        timer = new HashedWheelTimer(r -> {
+            Thread thread = new Thread(r, "schedule-status-timer");
+            thread.setDaemon(true);
+            return thread;
+        }, tickMs, TimeUnit.MILLISECONDS, 512);
+        timer.start();
+        refill();
+        log.info("课程状态时间轮已启动: tickMs={}, horizonMinutes={}, registered={}", tickMs, horizonMinutes, registrations.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * 从数据库补充未来一段时间内需要切换状态的课程，已过期的直接切换
+     */
+    @Scheduled(fixedDelayString = "${fitlife.schedule.status.refill-interval-ms:600000}",
+            initialDelayString = "${fitlife.schedule.status.refill-interval-ms:600000}")
+    public void refill() {
+        if (timer == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (CourseSchedule schedule : courseScheduleMapper.selectPendingTransitions(now.plusMinutes(horizonMinutes))) {
+            register(schedule, now);
+        }
+        flush();
+    }
+
+    /**
+     * 将到期的状态切换批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${fitlife.schedule.status.flush-interval-ms:1000}")
+    public void flush() {
+        if (timer == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> started = drain(toStart);
+        List<Long> finished = drain(toFinish);
+        int count = 0;
+        for (int i = 0; i < started.size(); i += UPDATE_BATCH_SIZE) {
+            count += courseScheduleMapper.batchStartSchedules(started.subList(i, Math.min(i + UPDATE_BATCH_SIZE, started.size())), now);
+        }
+        for (int i = 0; i < finished.size(); i += UPDATE_BATCH_SIZE) {
+            count += courseScheduleMapper.batchFinishSchedules(finished.subList(i, Math.min(i + UPDATE_BATCH_SIZE, finished.size())), now);
+        }
+        if (count == 0) {
+            return;
+        }
+        log.debug("课程状态切换: started={}, finished={}, updated={}", started.size(), finished.size(), count);
+
+        Set<Long> changed = new LinkedHashSet<>(started);
+        changed.addAll(finished);
+        if (changed.size() > MAX_EVENTS_PER_FLUSH) {
+            applicationEventPublisher.publishEvent(new CourseSchedulesChangedEvent(changed));
+            return;
+        }
+        for (Long scheduleId : changed) {
+            applicationEventPublisher.publishEvent(CourseScheduleChangedEvent.changed(scheduleId));
+        }
+    }
+
+    /**
+     * 课程时间安排新增或修改后重新登记
+     * @param event 课程时间安排变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(CourseScheduleChangedEvent event) {
+        if (timer == null || event.getBookedDelta() != null) {
+            return;
+        }
+        CourseSchedule schedule = event.getCreated() != null
+                ? event.getCreated() : courseScheduleMapper.selectById(event.getScheduleId());
+        if (schedule == null) {
+            cancel(event.getScheduleId());
+            return;
+        }
+        register(schedule, LocalDateTime.now());
+    }
+
+    private void register(CourseSchedule schedule, LocalDateTime now) {
+        Long scheduleId = schedule.getId();
+        boolean active = (schedule.getDeleted() == null || schedule.getDeleted() == 0)
+                && schedule.getStatus() != null && (schedule.getStatus() == 0 || schedule.getStatus() == 1);
+        if (!active) {
+            cancel(scheduleId);
+            return;
+        }
+        LocalDateTime horizon = now.plusMinutes(horizonMinutes);
+        boolean needStart = schedule.getStatus() == 0 && schedule.getStartTime().isBefore(horizon);
+        boolean needEnd = schedule.getEndTime().isBefore(horizon);
+        registrations.compute(scheduleId, (id, existing) -> {
+            // 时间未变且需要的定时任务都在等待中时保留；已触发但状态仍未切换的重新登记
+            if (existing != null && existing.matches(schedule)
+                    && (!needStart || isPending(existing.startTimeout))
+                    && (!needEnd || isPending(existing.endTimeout))) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.cancel();
+            }
+            Registration registration = new Registration(schedule.getStartTime(), schedule.getEndTime());
+            if (needStart) {
+                registration.startTimeout = timer.newTimeout(timeout -> toStart.add(id), delayMillis(now, schedule.getStartTime()), TimeUnit.MILLISECONDS);
+            }
+            if (needEnd) {
+                registration.endTimeout = timer.newTimeout(timeout -> {
+                    toFinish.add(id);
+                    registrations.remove(id, registration);
+                }, delayMillis(now, schedule.getEndTime()), TimeUnit.MILLISECONDS);
+            }
+            // 时间都在登记范围之外，等待下次补充
+            return registration.startTimeout == null && registration.endTimeout == null ? null : registration;
+        });
+    }
+
+    private void cancel(Long scheduleId) {
+        Registration registration = registrations.remove(scheduleId);
+        if (registration != null) {
+            registration.cancel();
+        }
+    }
+
+    private static boolean isPending(Timeout timeout) {
+        return timeout != null && !timeout.isExpired() && !timeout.isCancelled();
+    }
+
+    private static long delayMillis(LocalDateTime now, LocalDateTime time) {
+        return Math.max(Duration.between(now, time).toMillis(), 0);
+    }
+
+    private static List<Long> drain(Queue<Long> queue) {
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = queue.poll()) != null) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * 课程时间安排的定时任务
+     */
+    private static final class Registration {
+
+        private final LocalDateTime startTime;
+
+        private final LocalDateTime endTime;
+
+        private Timeout startTimeout;
+
+        private Timeout endTimeout;
+
+        private Registration(LocalDateTime startTime, LocalDateTime endTime) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        private boolean matches(CourseSchedule schedule) {
+            return Objects.equals(startTime, schedule.getStartTime()) && Objects.equals(endTime, schedule.getEndTime());
+        }
+
+        private void cancel() {
+            if (startTimeout != null) {
+                startTimeout.cancel();
+            }
+            if (endTimeout != null) {
+                endTimeout.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.fitlife.task;
+
+import com.fitlife.dto.SeatAvailabilityDTO;
+import com.fitlife.entity.CourseSchedule;
+import com.fitlife.event.CourseScheduleChangedEvent;
+import com.fitlife.event.CourseSchedulesChangedEvent;
+import com.fitlife.exception.BusinessException;
+import com.fitlife.mapper.CourseScheduleMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 课程名额实时推送（Server-Sent Events）
+ * 本节点的已预约人数变化只标记课程，定时合并后按订阅者一次推送，同一课程在一个推送周期内最多推送一次；
+ * 其他节点的变化通过定时轮询数据库中有订阅者的课程发现。名额均从数据库读取，与上次推送的名额相同时不推送。
+ * 连接由Servlet异步请求保持，空闲连接不占用线程；推送在少量发送线程上完成，同一订阅者的消息按顺序逐条发送。
+ */
+@Slf4j
+@Component
+public class SeatAvailabilityBroadcaster {
+
+    @Autowired
+    private CourseScheduleMapper courseScheduleMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fitlife.schedule.seat-stream.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${fitlife.schedule.seat-stream.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    @Value("${fitlife.schedule.seat-stream.heartbeat-interval-ms:30000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${fitlife.schedule.seat-stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${fitlife.schedule.seat-stream.max-schedules:50}")
+    private int maxSchedules;
+
+    @Value("${fitlife.schedule.seat-stream.send-threads:4}")
+    private int sendThreads;
+
+    /**
+     * 课程时间安排ID -> 订阅者
+     */
+    private final ConcurrentHashMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final Set<Subscriber> allSubscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 上次推送后名额有变化的课程时间安排
+     */
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 课程时间安排ID -> 上次推送的名额，只在推送线程（scheduler）中读写
+     */
+    private final Map<Long, SeatAvailabilityDTO> pushed = new HashMap<>();
+
+    /**
+     * 每次查询数据库的课程数量
+     */
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    /**
+     * 单个订阅者等待发送的消息上限，超过时断开连接（客户端重连后重新获取名额）
+     */
+    private static final int MAX_PENDING = 64;
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("seat-stream-flush"));
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (pollIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        sender = Executors.newFixedThreadPool(sendThreads, threadFactory("seat-stream-send"));
+        Gauge.builder("fitlife.schedule.seat-stream.subscribers", allSubscribers, Set::size)
+                .description("课程名额推送订阅数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        sender.shutdownNow();
+        for (Subscriber subscriber : allSubscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * 订阅课程名额变化，订阅后立即推送一次当前名额
+     * @param scheduleIds 课程时间安排ID列表
+     * @return SSE连接
+     */
+    public SseEmitter subscribe(Collection<Long> scheduleIds) {
+        if (scheduleIds == null || scheduleIds.isEmpty()) {
+            throw new BusinessException("课程时间安排ID不能为空");
+        }
+        Set<Long> ids = new LinkedHashSet<>(scheduleIds);
+        if (ids.size() > maxSchedules) {
+            throw new BusinessException("单次最多订阅" + maxSchedules + "个课程");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, ids);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        allSubscribers.add(subscriber);
+        for (Long scheduleId : ids) {
+            subscribers.computeIfAbsent(scheduleId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        // 与定时推送在同一线程中查询并加入发送队列，初始名额不会排在更新的名额之后
+        scheduler.execute(() -> {
+            try {
+                send(subscriber, new ArrayList<>(load(ids).values()));
+            } catch (RuntimeException e) {
+                log.error("课程名额初始推送失败", e);
+                subscriber.emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * 事务提交后标记有订阅者的课程
+     * @param event 课程时间安排变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(CourseScheduleChangedEvent event) {
+        if (subscribers.containsKey(event.getScheduleId())) {
+            dirty.add(event.getScheduleId());
+        }
+    }
+
+    /**
+     * 批量变更后标记有订阅者的课程
+     * @param event 课程时间安排批量变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchedulesChanged(CourseSchedulesChangedEvent event) {
+        for (Long scheduleId : event.getScheduleIds()) {
+            if (subscribers.containsKey(scheduleId)) {
+                dirty.add(scheduleId);
+            }
+        }
+    }
+
+    private void flush() {
+        try {
+            if (dirty.isEmpty()) {
+                return;
+            }
+            List<Long> scheduleIds = new ArrayList<>();
+            for (Iterator<Long> iterator = dirty.iterator(); iterator.hasNext(); ) {
+                scheduleIds.add(iterator.next());
+                iterator.remove();
+            }
+            push(scheduleIds);
+        } catch (RuntimeException e) {
+            // 异常会终止定时任务，记录后继续
+            log.error("课程名额推送失败", e);
+        }
+    }
+
+    /**
+     * 定时查询所有有订阅者的课程，推送其他节点预约或取消引起的名额变化
+     */
+    private void poll() {
+        try {
+            if (!subscribers.isEmpty()) {
+                push(new ArrayList<>(subscribers.keySet()));
+            }
+        } catch (RuntimeException e) {
+            log.error("课程名额轮询失败", e);
+        }
+    }
+
+    /**
+     * 查询课程名额，与上次推送的名额不同的按订阅者合并，每个订阅者一次推送所有变化的课程
+     */
+    private void push(Collection<Long> scheduleIds) {
+        Map<Subscriber, List<SeatAvailabilityDTO>> updates = new HashMap<>();
+        for (SeatAvailabilityDTO seat : load(scheduleIds).values()) {
+            Set<Subscriber> targets = subscribers.get(seat.getScheduleId());
+            if (targets == null) {
+                pushed.remove(seat.getScheduleId());
+                continue;
+            }
+            if (Objects.equals(pushed.put(seat.getScheduleId(), seat), seat)) {
+                continue;
+            }
+            for (Subscriber subscriber : targets) {
+                updates.computeIfAbsent(subscriber, k -> new ArrayList<>()).add(seat);
+            }
+        }
+        pushed.keySet().retainAll(subscribers.keySet());
+        for (Map.Entry<Subscriber, List<SeatAvailabilityDTO>> entry : updates.entrySet()) {
+            send(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 定时发送注释行，及时发现已断开的连接
+     */
+    private void heartbeat() {
+        for (Subscriber subscriber : allSubscribers) {
+            enqueue(subscriber, SseEmitter.event().comment("ping"));
+        }
+    }
+
+    private void send(Subscriber subscriber, List<SeatAvailabilityDTO> seats) {
+        if (!seats.isEmpty()) {
+            enqueue(subscriber, SseEmitter.event().name("seat").data(seats, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * 加入订阅者的发送队列，同一订阅者同时只有一个发送任务，消息按加入顺序发送
+     */
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!allSubscribers.contains(subscriber)) {
+            return;
+        }
+        if (subscriber.pending.incrementAndGet() > MAX_PENDING) {
+            log.debug("课程名额推送连接积压过多，断开连接");
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        subscriber.queue.add(event);
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null) {
+                subscriber.pending.decrementAndGet();
+                if (!allSubscribers.contains(subscriber)) {
+                    continue;
+                }
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("课程名额推送连接已断开: {}", e.getMessage());
+                    unsubscribe(subscriber);
+                }
+            }
+            subscriber.draining.set(false);
+            // 释放标记后有新消息加入时，由本任务或新任务中的一个继续发送
+            if (subscriber.queue.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!allSubscribers.remove(subscriber)) {
+            return;
+        }
+        for (Long scheduleId : subscriber.scheduleIds) {
+            subscribers.computeIfPresent(scheduleId, (k, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * 从数据库查询课程名额，时间索引只包含本节点的变化，不用于推送
+     */
+    private Map<Long, SeatAvailabilityDTO> load(Collection<Long> scheduleIds) {
+        Map<Long, SeatAvailabilityDTO> seats = new LinkedHashMap<>();
+        List<Long> ids = new ArrayList<>(scheduleIds);
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size()));
+            for (CourseSchedule schedule : courseScheduleMapper.selectBatchIds(batch)) {
+                seats.put(schedule.getId(), toSeat(schedule));
+            }
+        }
+        return seats;
+    }
+
+    private static SeatAvailabilityDTO toSeat(CourseSchedule schedule) {
+        int maxPeople = schedule.getMaxPeople() == null ? 0 : schedule.getMaxPeople();
+        int bookedPeople = schedule.getBookedPeople() == null ? 0 : schedule.getBookedPeople();
+        SeatAvailabilityDTO seat = new SeatAvailabilityDTO();
+        seat.setScheduleId(schedule.getId());
+        seat.setMaxPeople(maxPeople);
+        seat.setBookedPeople(bookedPeople);
+        seat.setRemainingSeats(Math.max(maxPeople - bookedPeople, 0));
+        seat.setStatus(schedule.getStatus());
+        return seat;
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 订阅者
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Set<Long> scheduleIds;
+
+        /**
+         * 等待发送的消息
+         */
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        /**
+         * 是否已有发送任务
+         */
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Set<Long> scheduleIds) {
+            this.emitter = emitter;
+            this.scheduleIds = scheduleIds;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.fitlife.util;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * CSV导入导出工具类
+ * 导出与导入使用相同的列名和格式，导出文件可以修改后直接导入
+ */
+public final class CsvTransferUtils {
+
+    /**
+     * 时间格式，导入时也接受ISO格式（日期和时间之间为T）
+     */
+    public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private CsvTransferUtils() {
+    }
+
+    /**
+     * 设置下载响应头并打开响应输出
+     * 写入UTF-8 BOM，Excel打开时中文不会乱码；数据直接写入响应，不在内存中缓存整个文件
+     * @param response 响应
+     * @param fileName 下载文件名
+     * @return 字符输出，写入完成后需要flush
+     * @throws IOException 打开响应输出失败
+     */
+    public static Writer openResponseWriter(HttpServletResponse response, String fileName) throws IOException {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+        return writer;
+    }
+
+    /**
+     * 格式化一行数据
+     * @param values 各列的值
+     * @return 各列的文本
+     */
+    public static String[] formatLine(Object... values) {
+        String[] line = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            line[i] = format(values[i]);
+        }
+        return line;
+    }
+
+    /**
+     * 格式化单元格，null为空字符串
+     */
+    private static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof LocalDateTime) {
+            return DATE_TIME_FORMATTER.format((LocalDateTime) value);
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * 解析时间
+     * @param text 文本
+     * @return 时间
+     */
+    public static LocalDateTime parseDateTime(String text) {
+        return LocalDateTime.parse(text.replace('T', ' '), DATE_TIME_FORMATTER);
+    }
+}
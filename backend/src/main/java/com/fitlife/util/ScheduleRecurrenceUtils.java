@@ -0,0 +1,99 @@
+package com.fitlife.util;
+
+import com.fitlife.dto.ScheduleRecurrenceDTO;
+import com.fitlife.exception.BusinessException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 课程时间安排重复规则工具类
+ */
+public final class ScheduleRecurrenceUtils {
+
+    private ScheduleRecurrenceUtils() {
+    }
+
+    /**
+     * 按重复规则展开每次课的上课时间
+     * 从第一次课所在的周开始，每隔interval周在指定的星期上课，早于第一次课的日期跳过；
+     * 排除的日期计入重复次数但不生成课程
+     * @param firstStartTime 第一次课的上课时间
+     * @param recurrence 重复规则，为空时只返回第一次课
+     * @param maxOccurrences 最多生成的课程数量，超过时抛出异常
+     * @return 按时间排序的上课时间列表
+     */
+    public static List<LocalDateTime> expand(LocalDateTime firstStartTime, ScheduleRecurrenceDTO recurrence, int maxOccurrences) {
+        if (recurrence == null) {
+            if (maxOccurrences < 1) {
+                throw new BusinessException("课程预约时间安排数量超过单次创建上限");
+            }
+            return Collections.singletonList(firstStartTime);
+        }
+        int interval = recurrence.getInterval() == null ? 1 : recurrence.getInterval();
+        if (interval < 1) {
+            throw new BusinessException("重复间隔必须大于0");
+        }
+        LocalDate firstDate = firstStartTime.toLocalDate();
+        LocalDate until = recurrence.getUntil();
+        Integer count = recurrence.getCount();
+        if (until == null && count == null) {
+            throw new BusinessException("重复规则需要填写截止日期或重复次数");
+        }
+        if (count != null && count < 1) {
+            throw new BusinessException("重复次数必须大于0");
+        }
+        if (until != null && until.isBefore(firstDate)) {
+            throw new BusinessException("截止日期不能早于第一次课");
+        }
+
+        // EnumSet按周一到周日的顺序迭代
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        if (recurrence.getDaysOfWeek() == null || recurrence.getDaysOfWeek().isEmpty()) {
+            days.add(firstStartTime.getDayOfWeek());
+        } else {
+            for (Integer day : recurrence.getDaysOfWeek()) {
+                if (day == null || day < 1 || day > 7) {
+                    throw new BusinessException("星期取值范围为1-7");
+                }
+                days.add(DayOfWeek.of(day));
+            }
+        }
+        Set<LocalDate> excludeDates = recurrence.getExcludeDates() == null
+                ? Collections.<LocalDate>emptySet() : new HashSet<>(recurrence.getExcludeDates());
+
+        LocalTime time = firstStartTime.toLocalTime();
+        List<LocalDateTime> result = new ArrayList<>();
+        int generated = 0;
+        LocalDate weekStart = firstDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        while (true) {
+            for (DayOfWeek day : days) {
+                LocalDate date = weekStart.plusDays(day.getValue() - 1);
+                if (date.isBefore(firstDate)) {
+                    continue;
+                }
+                if ((until != null && date.isAfter(until)) || (count != null && generated >= count)) {
+                    return result;
+                }
+                generated++;
+                if (excludeDates.contains(date)) {
+                    continue;
+                }
+                if (result.size() >= maxOccurrences) {
+                    throw new BusinessException("课程预约时间安排数量超过单次创建上限");
+                }
+                result.add(date.atTime(time));
+            }
+            weekStart = weekStart.plusWeeks(interval);
+        }
+    }
+}
@@ -112,8 +112,8 @@ CREATE TABLE `course_schedule` (
   PRIMARY KEY (`id`),
   INDEX `idx_course_id` (`course_id`),
   INDEX `idx_start_time` (`start_time`),
-  INDEX `idx_status` (`status`),
-  INDEX `idx_time_range` (`start_time`, `end_time`),
+  INDEX `idx_schedule_status_start_time` (`status`, `start_time`),
+  INDEX `idx_time_range` (`start_time`, `end_time`, `status`, `location`),
   CONSTRAINT `fk_schedule_course` FOREIGN KEY (`course_id`) REFERENCES `course` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='课程表';
 
@@ -142,6 +142,40 @@ CREATE TABLE `course_booking` (
   CONSTRAINT `fk_booking_schedule` FOREIGN KEY (`schedule_id`) REFERENCES `course_schedule` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='预约表';
 
+-- 创建课程候补表
+CREATE TABLE `course_waitlist` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '候补ID',
+  `member_id` bigint NOT NULL COMMENT '会员ID',
+  `course_id` bigint NOT NULL COMMENT '课程ID',
+  `schedule_id` bigint NOT NULL COMMENT '课程表ID',
+  `priority` int DEFAULT '0' COMMENT '候补优先级（会员等级）',
+  `status` tinyint DEFAULT '0' COMMENT '候补状态：0-候补中，1-已转正，2-已取消',
+  `booking_id` bigint DEFAULT NULL COMMENT '转正后的预约ID',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  `deleted` tinyint DEFAULT '0' COMMENT '删除标记：0-正常，1-删除',
+  PRIMARY KEY (`id`),
+  INDEX `idx_waitlist_schedule` (`schedule_id`, `status`),
+  INDEX `idx_waitlist_member` (`member_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='课程候补表';
+
+-- 创建幂等请求记录表
+CREATE TABLE `idempotency_record` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '记录ID',
+  `idempotency_key` varchar(64) NOT NULL COMMENT '幂等键',
+  `operation` varchar(128) NOT NULL COMMENT '请求操作标识',
+  `status` tinyint DEFAULT '0' COMMENT '处理状态：0-处理中，1-已完成',
+  `result_code` int DEFAULT NULL COMMENT '响应状态码',
+  `result_message` varchar(255) DEFAULT NULL COMMENT '响应消息',
+  `result_data` text COMMENT '响应数据（JSON）',
+  `expire_time` datetime NOT NULL COMMENT '过期时间',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_idempotency_key` (`idempotency_key`),
+  INDEX `idx_idempotency_expire_time` (`expire_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='幂等请求记录表';
+
 -- 创建订单表
 CREATE TABLE `order` (
   `id` bigint NOT NULL AUTO_INCREMENT COMMENT '订单ID',
@@ -13,7 +13,9 @@ CREATE TABLE IF NOT EXISTS `course_schedule` (
   `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `deleted` tinyint DEFAULT '0' COMMENT '删除标记：0-正常，1-删除',
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `idx_time_range` (`start_time`, `end_time`, `status`, `location`),
+  KEY `idx_schedule_status_start_time` (`status`, `start_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='课程时间表';
 
 -- 创建课程预约表
@@ -38,6 +40,40 @@ CREATE TABLE IF NOT EXISTS `course_booking` (
   KEY `idx_create_time` (`create_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='课程预约表';
 
+-- 创建课程候补表
+CREATE TABLE IF NOT EXISTS `course_waitlist` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '候补ID',
+  `member_id` bigint NOT NULL COMMENT '会员ID',
+  `course_id` bigint NOT NULL COMMENT '课程ID',
+  `schedule_id` bigint NOT NULL COMMENT '课程时间安排ID',
+  `priority` int DEFAULT '0' COMMENT '候补优先级（会员等级）',
+  `status` tinyint DEFAULT '0' COMMENT '候补状态：0-候补中，1-已转正，2-已取消',
+  `booking_id` bigint DEFAULT NULL COMMENT '转正后的预约ID',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  `deleted` tinyint DEFAULT '0' COMMENT '删除标记：0-正常，1-删除',
+  PRIMARY KEY (`id`),
+  KEY `idx_waitlist_schedule` (`schedule_id`, `status`),
+  KEY `idx_waitlist_member` (`member_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='课程候补表';
+
+-- 创建幂等请求记录表
+CREATE TABLE IF NOT EXISTS `idempotency_record` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '记录ID',
+  `idempotency_key` varchar(64) NOT NULL COMMENT '幂等键',
+  `operation` varchar(128) NOT NULL COMMENT '请求操作标识',
+  `status` tinyint DEFAULT '0' COMMENT '处理状态：0-处理中，1-已完成',
+  `result_code` int DEFAULT NULL COMMENT '响应状态码',
+  `result_message` varchar(255) DEFAULT NULL COMMENT '响应消息',
+  `result_data` text COMMENT '响应数据（JSON）',
+  `expire_time` datetime NOT NULL COMMENT '过期时间',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_idempotency_key` (`idempotency_key`),
+  KEY `idx_idempotency_expire_time` (`expire_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='幂等请求记录表';
+
 -- 插入测试课程时间数据（使用固定的未来时间）
 INSERT INTO `course_schedule` (`course_id`, `start_time`, `end_time`, `location`, `max_people`, `booked_people`, `status`) VALUES
 (1, '2026-01-01 09:00:00', '2026-01-01 10:00:00', '瑜伽室A', 20, 5, 1),
@@ -64,21 +100,70 @@ CREATE TABLE IF NOT EXISTS `member` (
 INSERT INTO `member` (`member_id`, `nickname`, `phone`, `level`, `status`) VALUES
 (10001, '测试会员', '13800138000', 0, 1);
 
+-- 插入测试课程分类数据
+CREATE TABLE IF NOT EXISTS `course_category` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '分类ID',
+  `name` varchar(32) NOT NULL COMMENT '分类名称',
+  `description` varchar(255) DEFAULT NULL COMMENT '分类描述',
+  `icon` varchar(255) DEFAULT NULL COMMENT '分类图标',
+  `parent_id` bigint DEFAULT '0' COMMENT '父分类ID',
+  `sort` int DEFAULT '0' COMMENT '分类排序',
+  `status` tinyint DEFAULT '1' COMMENT '分类状态：0-禁用，1-启用',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  `deleted` tinyint DEFAULT '0' COMMENT '删除标记：0-正常，1-删除',
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='课程分类表';
+
+INSERT INTO `course_category` (`name`, `description`, `parent_id`, `sort`, `status`) VALUES
+('团课', '团体健身课程', 0, 1, 1),
+('私教', '私人教练课程', 0, 2, 1),
+('瑜伽', '瑜伽系列课程', 1, 1, 1),
+('动感单车', '动感单车课程', 1, 2, 1),
+('普拉提', '普拉提课程', 1, 3, 1),
+('力量训练', '力量训练课程', 1, 4, 1),
+('有氧训练', '有氧训练课程', 1, 5, 1);
+
+-- 插入测试教练数据
+CREATE TABLE IF NOT EXISTS `coach` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '教练ID',
+  `name` varchar(16) NOT NULL COMMENT '教练姓名',
+  `level` tinyint DEFAULT '0' COMMENT '教练等级：0-初级教练，1-中级教练，2-高级教练，3-金牌教练',
+  `status` tinyint DEFAULT '1' COMMENT '教练状态：0-休息中，1-工作中，2-已离职',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  `deleted` tinyint DEFAULT '0' COMMENT '删除标记：0-正常，1-删除',
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='教练表';
+
+INSERT INTO `coach` (`name`, `level`, `status`) VALUES
+('张教练', 2, 1),
+('李教练', 3, 1),
+('王教练', 2, 1);
+
 -- 插入测试课程数据
 CREATE TABLE IF NOT EXISTS `course` (
   `id` bigint NOT NULL AUTO_INCREMENT COMMENT '课程ID',
   `name` varchar(100) NOT NULL COMMENT '课程名称',
+  `description` text COMMENT '课程描述',
+  `image` varchar(255) DEFAULT NULL COMMENT '课程图片',
+  `category_id` bigint DEFAULT NULL COMMENT '分类ID',
+  `coach_id` bigint DEFAULT NULL COMMENT '教练ID',
+  `duration` int DEFAULT NULL COMMENT '课程时长（分钟）',
   `type` tinyint DEFAULT '0' COMMENT '课程类型：0-团课，1-私教',
   `difficulty` tinyint DEFAULT '0' COMMENT '课程难度：0-初级，1-中级，2-高级',
   `price` decimal(10,2) DEFAULT '0.00' COMMENT '课程价格',
   `status` tinyint DEFAULT '1' COMMENT '课程状态：0-未上架，1-已上架，2-已下架',
+  `max_people` int DEFAULT NULL COMMENT '最大预约人数',
+  `booked_people` int DEFAULT '0' COMMENT '已预约人数',
+  `tags` varchar(255) DEFAULT NULL COMMENT '课程标签（用逗号分隔）',
   `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `deleted` tinyint DEFAULT '0' COMMENT '删除标记：0-正常，1-删除',
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='课程表';
 
-INSERT INTO `course` (`name`, `type`, `difficulty`, `price`, `status`) VALUES
-('瑜伽基础课', 0, 0, 50.00, 1),
-('有氧健身操', 0, 1, 60.00, 1),
-('力量训练', 0, 2, 70.00, 1);
+INSERT INTO `course` (`name`, `category_id`, `coach_id`, `type`, `difficulty`, `price`, `status`) VALUES
+('瑜伽基础课', 3, 2, 0, 0, 50.00, 1),
+('有氧健身操', 7, 3, 0, 1, 60.00, 1),
+('力量训练', 6, 1, 0, 2, 70.00, 1);